@@ -3,6 +3,7 @@ package dev.zeann3th.stresspilot.common;
 public class Constants {
     public static final String APP_DIR = ".pilot";
     public static final String DB_FILE_NAME = "data.sqlite";
+    public static final String RUNS_DIR = "runs";
     public static final String REASON = "reason";
     public static final String PILOT_HOME = "PILOT_HOME";
     public static final String USER_HOME = "user.home";
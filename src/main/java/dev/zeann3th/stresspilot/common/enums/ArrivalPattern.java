@@ -0,0 +1,7 @@
+package dev.zeann3th.stresspilot.common.enums;
+
+public enum ArrivalPattern {
+    FIXED,
+    RAMPED,
+    POISSON
+}
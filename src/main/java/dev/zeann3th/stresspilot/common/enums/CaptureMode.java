@@ -0,0 +1,9 @@
+package dev.zeann3th.stresspilot.common.enums;
+
+public enum CaptureMode {
+    ALL,
+    NONE,
+    ERRORS_ONLY,
+    FIRST_N,
+    ONE_IN_N
+}
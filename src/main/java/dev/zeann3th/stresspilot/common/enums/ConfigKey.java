@@ -6,5 +6,13 @@ public enum ConfigKey {
     HTTP_WRITE_TIMEOUT,
     HTTP_MAX_POOL_SIZE,
     HTTP_KEEP_ALIVE_DURATION,
-    GRPC_PROTOC_PLUGIN_PATH
+    HTTP_MAX_IN_FLIGHT,
+    HTTP_MAX_IN_FLIGHT_PER_HOST,
+    GRPC_PROTOC_PLUGIN_PATH,
+    REQUEST_LOG_QUEUE_CAPACITY,
+    REQUEST_LOG_BATCH_SIZE,
+    REQUEST_LOG_BACKPRESSURE,
+    JOURNAL_RESPONSE_BODIES,
+    RETENTION_RAW_DAYS,
+    RETENTION_RAW_RUNS
 }
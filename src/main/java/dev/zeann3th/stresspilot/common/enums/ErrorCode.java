@@ -15,7 +15,12 @@ public enum ErrorCode {
     ENDPOINT_UNSUPPORTED_FORMAT(HttpStatus.BAD_REQUEST, "Unsupported endpoint specification format"),
     SYSTEM_BUSY(HttpStatus.INTERNAL_SERVER_ERROR, "System is busy, please try again later"),
     EXECUTOR_UNSUPPORTED_TYPE(HttpStatus.BAD_REQUEST, "Unsupported executor type"),
-    RUN_NOT_FOUND(HttpStatus.NOT_FOUND, "Run not found");
+    RUN_NOT_FOUND(HttpStatus.NOT_FOUND, "Run not found"),
+    RUN_DATA_UNREADABLE(HttpStatus.INTERNAL_SERVER_ERROR, "Run results could not be read"),
+    RUN_SUMMARY_NOT_AVAILABLE(HttpStatus.NOT_FOUND, "Run summary not available"),
+    RUN_ARCHIVED(HttpStatus.GONE, "Run samples were archived, export the run to read them"),
+    RUN_IN_PROGRESS(HttpStatus.CONFLICT, "Run is still in progress"),
+    RUN_DELETE_FAILED(HttpStatus.INTERNAL_SERVER_ERROR, "Run results could not be deleted");
 
     private final HttpStatus status;
     private final String message;
@@ -0,0 +1,6 @@
+package dev.zeann3th.stresspilot.common.enums;
+
+public enum LoadModel {
+    CLOSED_LOOP,
+    ARRIVAL_RATE
+}
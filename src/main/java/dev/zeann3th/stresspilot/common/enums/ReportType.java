@@ -1,6 +1,22 @@
 package dev.zeann3th.stresspilot.common.enums;
 
+import lombok.Getter;
+
+@Getter
 public enum ReportType {
-    SUMMARY,
-    DETAILED
+    SUMMARY("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", false),
+    DETAILED("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", false),
+    CSV("csv", "text/csv; charset=UTF-8", true),
+    NDJSON("ndjson", "application/x-ndjson", true);
+
+    private final String extension;
+    private final String contentType;
+    // Spreadsheets are zip archives already, only the plain text formats are worth compressing
+    private final boolean compressible;
+
+    ReportType(String extension, String contentType, boolean compressible) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.compressible = compressible;
+    }
 }
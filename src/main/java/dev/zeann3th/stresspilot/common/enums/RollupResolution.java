@@ -0,0 +1,27 @@
+package dev.zeann3th.stresspilot.common.enums;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+@Getter
+public enum RollupResolution {
+    SECOND("1s", 1),
+    TEN_SECONDS("10s", 10),
+    MINUTE("1m", 60);
+
+    private final String label;
+    private final int seconds;
+
+    RollupResolution(String label, int seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+
+    public static Optional<RollupResolution> fromLabel(String label) {
+        return Arrays.stream(values())
+                .filter(resolution -> resolution.label.equalsIgnoreCase(label) || resolution.name().equalsIgnoreCase(label))
+                .findFirst();
+    }
+}
@@ -2,5 +2,6 @@ package dev.zeann3th.stresspilot.common.enums;
 
 public enum RunStatus {
     RUNNING,
-    COMPLETED
+    COMPLETED,
+    FAILED
 }
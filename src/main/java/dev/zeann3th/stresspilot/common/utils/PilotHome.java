@@ -0,0 +1,34 @@
+package dev.zeann3th.stresspilot.common.utils;
+
+import dev.zeann3th.stresspilot.common.Constants;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class PilotHome {
+
+    private PilotHome() {
+    }
+
+    public static boolean isConfigured() {
+        return configured() != null;
+    }
+
+    public static Path resolve() {
+        String appHome = configured();
+        return appHome != null
+                ? Paths.get(appHome)
+                : Paths.get(System.getProperty(Constants.USER_HOME), Constants.APP_DIR);
+    }
+
+    public static Path runDirectory(Long runId) {
+        return resolve().resolve(Constants.RUNS_DIR).resolve(String.valueOf(runId));
+    }
+
+    // A -DPILOT_HOME system property wins over the environment, which lets tests keep their data out of the real home
+    private static String configured() {
+        String appHome = System.getProperty(Constants.PILOT_HOME);
+        if (appHome == null || appHome.isEmpty()) appHome = System.getenv(Constants.PILOT_HOME);
+        return appHome == null || appHome.isEmpty() ? null : appHome;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.zeann3th.stresspilot.common.utils;
+
+import okhttp3.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+
+// Lets one shared client serve every virtual user: the cookie jar travels with the request as a tag
+public class RequestCookieInterceptor implements Interceptor {
+
+    @NotNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        CookieJar cookieJar = request.tag(CookieJar.class);
+        if (cookieJar == null) {
+            return chain.proceed(request);
+        }
+
+        List<Cookie> cookies = cookieJar.loadForRequest(request.url());
+        if (!cookies.isEmpty()) {
+            request = request.newBuilder().header("Cookie", cookieHeader(cookies)).build();
+        }
+
+        Response response = chain.proceed(request);
+        List<Cookie> received = Cookie.parseAll(request.url(), response.headers());
+        if (!received.isEmpty()) {
+            cookieJar.saveFromResponse(request.url(), received);
+        }
+        return response;
+    }
+
+    private String cookieHeader(List<Cookie> cookies) {
+        StringBuilder header = new StringBuilder();
+        for (Cookie cookie : cookies) {
+            if (!header.isEmpty()) header.append("; ");
+            header.append(cookie.name()).append('=').append(cookie.value());
+        }
+        return header.toString();
+    }
+}
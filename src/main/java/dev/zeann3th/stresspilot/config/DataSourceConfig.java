@@ -1,32 +1,59 @@
 package dev.zeann3th.stresspilot.config;
 
 import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
 
 import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j(topic = "[Database Migrator]")
 @Configuration
 @SuppressWarnings("all")
 public class DataSourceConfig {
+    private static final Pattern MIGRATION_FILE = Pattern.compile("^V(\\d+)__.+\\.sql$");
+    private static final int INCREMENTAL_VACUUM = 2;
+
+    // SQLite allows one writer at a time. All writes share a single pooled connection so concurrent runs and UI
+    // requests wait for it in the pool instead of failing with SQLITE_BUSY, read-only transactions use their own pool.
     @Bean
-    public DataSource dataSource() {
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writeDataSource);
+        dataSource.setReadOnlyDataSource(readDataSource);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource writeDataSource(DatabaseProperties properties) {
         try {
-            String appHome = System.getenv("PILOT_HOME");
-            if (appHome == null || appHome.isEmpty()) {
+            if (!PilotHome.isConfigured()) {
                 log.warn("PILOT_HOME not set, defaulting to user home directory");
-                appHome = System.getProperty("user.home") + "/" + Constants.APP_DIR;
             }
 
-            Path appDir = Paths.get(appHome);
+            Path appDir = PilotHome.resolve();
             Path dbPath = appDir.resolve(Constants.DB_FILE_NAME);
             Files.createDirectories(appDir);
             boolean dbExists = Files.exists(dbPath);
@@ -38,15 +65,14 @@ public class DataSourceConfig {
                 log.info("Database file exists, skipping initiation");
             }
 
-            String jdbcUrl = "jdbc:sqlite:" + dbPath.toAbsolutePath();
-            DriverManagerDataSource dataSource = new DriverManagerDataSource();
-            dataSource.setDriverClassName("org.sqlite.JDBC");
-            dataSource.setUrl(jdbcUrl);
+            String jdbcUrl = jdbcUrl();
+            HikariDataSource dataSource = pool("sqlite-writer", jdbcUrl, properties, false, 1);
 
             if (!dbExists) {
                 try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
-                    stmt.execute("PRAGMA journal_mode = WAL;");
-
+                    // Switching modes needs a VACUUM, which is instant while the file is still empty
+                    stmt.execute("PRAGMA auto_vacuum = INCREMENTAL;");
+                    stmt.execute("VACUUM;");
                     String sql = new String(
                             getClass().getClassLoader().getResourceAsStream("db/init.sql").readAllBytes()
                     );
@@ -60,10 +86,124 @@ public class DataSourceConfig {
                 }
             }
 
-            log.info("Data source configured with URL: {}", jdbcUrl);
+            migrate(dataSource);
+            enableIncrementalVacuum(dataSource, properties);
+
+            log.info("Data source configured with URL: {}, synchronous={}, cache={} KiB, mmap={} bytes, busy timeout={} ms",
+                    jdbcUrl, properties.getSynchronous(), properties.getCacheSizeKb(), properties.getMmapSizeBytes(),
+                    properties.getBusyTimeoutMs());
             return dataSource;
         } catch (Exception e) {
             throw new RuntimeException("Failed to configure data source", e);
         }
     }
+
+    // Takes the write pool so the schema is migrated before any reader connects
+    @Bean(destroyMethod = "close")
+    public HikariDataSource readDataSource(DatabaseProperties properties,
+                                           @Qualifier("writeDataSource") DataSource writeDataSource) {
+        return pool("sqlite-reader", jdbcUrl(), properties, true, properties.getReaderPoolSize());
+    }
+
+    // Applied by the driver to every new connection
+    private SQLiteConfig connectionConfig(DatabaseProperties properties, boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        // The journal mode is stored in the file, only the writer can change it
+        if (!readOnly) config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(properties.getSynchronous());
+        config.setBusyTimeout(properties.getBusyTimeoutMs());
+        // Negative sizes are in KiB rather than pages
+        config.setCacheSize(-properties.getCacheSizeKb());
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(properties.getMmapSizeBytes()));
+        return config;
+    }
+
+    private HikariDataSource pool(String name, String jdbcUrl, DatabaseProperties properties, boolean readOnly, int size) {
+        SQLiteDataSource sqliteDataSource = new SQLiteDataSource(connectionConfig(properties, readOnly));
+        sqliteDataSource.setUrl(jdbcUrl);
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(name);
+        hikariConfig.setDataSource(sqliteDataSource);
+        // Must match the open mode, the driver refuses to change it on an open connection
+        hikariConfig.setReadOnly(readOnly);
+        hikariConfig.setMaximumPoolSize(size);
+        hikariConfig.setMinimumIdle(1);
+        hikariConfig.setConnectionTimeout(properties.getConnectionTimeoutMs());
+        // SQLite connections never go stale, keeping them avoids reloading the page cache
+        hikariConfig.setMaxLifetime(0);
+        hikariConfig.setIdleTimeout(0);
+        return new HikariDataSource(hikariConfig);
+    }
+
+    private String jdbcUrl() {
+        return "jdbc:sqlite:" + PilotHome.resolve().resolve(Constants.DB_FILE_NAME).toAbsolutePath();
+    }
+
+    private void migrate(DataSource dataSource) throws Exception {
+        Resource[] migrations = new PathMatchingResourcePatternResolver()
+                .getResources("classpath:db/migration/V*__*.sql");
+        Arrays.sort(migrations, Comparator.comparingInt(this::migrationVersion));
+
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            int currentVersion;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA user_version;")) {
+                currentVersion = rs.next() ? rs.getInt(1) : 0;
+            }
+
+            for (Resource migration : migrations) {
+                int version = migrationVersion(migration);
+                if (version <= currentVersion) continue;
+
+                String sql = new String(migration.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                conn.setAutoCommit(false);
+                try {
+                    for (String s : sql.split(";")) {
+                        String trimmed = s.trim();
+                        if (!trimmed.isEmpty()) stmt.execute(trimmed);
+                    }
+                    stmt.execute("PRAGMA user_version = " + version + ";");
+                    conn.commit();
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                currentVersion = version;
+                log.info("Applied migration {}", migration.getFilename());
+            }
+        }
+    }
+
+    // Lets freed pages be returned in small steps. New files start in this mode, existing ones need one full VACUUM
+    // which holds the only write connection for as long as it takes, so it only runs when asked for.
+    private void enableIncrementalVacuum(DataSource dataSource, DatabaseProperties properties) throws Exception {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            int mode;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA auto_vacuum;")) {
+                mode = rs.next() ? rs.getInt(1) : 0;
+            }
+            if (mode == INCREMENTAL_VACUUM) return;
+            if (!properties.isConvertToIncrementalVacuum()) {
+                log.info("Database auto_vacuum mode is {}, freed pages are reused but never returned. "
+                        + "Set application.database.convert-to-incremental-vacuum=true to convert it on the next start", mode);
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL;");
+            stmt.execute("VACUUM;");
+            log.info("Enabled incremental vacuum in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private int migrationVersion(Resource resource) {
+        Matcher matcher = MIGRATION_FILE.matcher(resource.getFilename());
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Invalid migration file name: " + resource.getFilename());
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
 }
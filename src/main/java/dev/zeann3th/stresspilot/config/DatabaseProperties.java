@@ -0,0 +1,21 @@
+package dev.zeann3th.stresspilot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConfig;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "application.database")
+public class DatabaseProperties {
+    private int readerPoolSize = 4;
+    // Writers queue for the single write connection at most this long
+    private long connectionTimeoutMs = 30000;
+    private int busyTimeoutMs = 5000;
+    private int cacheSizeKb = 65536;
+    private long mmapSizeBytes = 268435456;
+    private SQLiteConfig.SynchronousMode synchronous = SQLiteConfig.SynchronousMode.NORMAL;
+    // Rewrites an existing database once at startup so freed pages can be returned, blocks the start for the whole VACUUM
+    private boolean convertToIncrementalVacuum = false;
+}
@@ -0,0 +1,10 @@
+package dev.zeann3th.stresspilot.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@SuppressWarnings("unused")
+public class SchedulingConfig {
+}
@@ -67,7 +67,7 @@ public class FlowController {
     }
 
     @PostMapping("/{flowId}/execute")
-    public ResponseEntity<Void> runFlow(@PathVariable("flowId") Long flowId, @RequestBody RunFlowRequestDTO runFlowRequestDTO) {
+    public ResponseEntity<Void> runFlow(@PathVariable("flowId") Long flowId, @Valid @RequestBody RunFlowRequestDTO runFlowRequestDTO) {
         flowService.runFlow(flowId, runFlowRequestDTO);
         return ResponseEntity.accepted().build();
     }
@@ -1,11 +1,21 @@
 package dev.zeann3th.stresspilot.controller;
 
+import dev.zeann3th.stresspilot.dto.run.EndpointStatisticsDTO;
+import dev.zeann3th.stresspilot.dto.run.LatencySummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSamplePageDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSampleQueryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunTimeSeriesDTO;
 import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
 import dev.zeann3th.stresspilot.service.run.RunService;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -22,12 +32,68 @@ public class RunController {
         return ResponseEntity.ok().body(resp);
     }
 
+    @GetMapping("/shards")
+    public ResponseEntity<List<RunShardEntity>> getRunShards() {
+        var resp = runService.getRunShards();
+        return ResponseEntity.ok().body(resp);
+    }
+
+    @GetMapping("/{runId}/statistics")
+    public ResponseEntity<List<EndpointStatisticsDTO>> getRunStatistics(@PathVariable("runId") Long runId) {
+        var resp = runService.getRunStatistics(runId);
+        return ResponseEntity.ok().body(resp);
+    }
+
+    @GetMapping("/{runId}/latency")
+    public ResponseEntity<List<LatencySummaryDTO>> getRunLatency(@PathVariable("runId") Long runId) {
+        var resp = runService.getRunLatency(runId);
+        return ResponseEntity.ok().body(resp);
+    }
+
+    @GetMapping("/{runId}/summary")
+    public ResponseEntity<RunSummaryDTO> getRunSummary(@PathVariable("runId") Long runId) {
+        var resp = runService.getRunSummary(runId);
+        return ResponseEntity.ok().body(resp);
+    }
+
+    @GetMapping("/{runId}/timeseries")
+    public ResponseEntity<RunTimeSeriesDTO> getRunTimeSeries(
+            @PathVariable("runId") Long runId,
+            @RequestParam(value = "resolution", required = false) String resolution,
+            @RequestParam(value = "endpointId", required = false) Long endpointId
+    ) {
+        var resp = runService.getRunTimeSeries(runId, resolution, endpointId);
+        return ResponseEntity.ok().body(resp);
+    }
+
+    @GetMapping("/{runId}/samples")
+    public ResponseEntity<RunSamplePageDTO> getRunSamples(
+            @PathVariable("runId") Long runId,
+            @ParameterObject RunSampleQueryDTO query
+    ) {
+        var resp = runService.getRunSamples(runId, query);
+        return ResponseEntity.ok().body(resp);
+    }
+
+    @GetMapping(value = "/{runId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRunMetrics(@PathVariable("runId") Long runId) {
+        return runService.streamRunMetrics(runId);
+    }
+
     @GetMapping("/{runId}/export")
     public void exportRun(
             @PathVariable("runId") Long runId,
             @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
             HttpServletResponse response
     ) {
-        runService.exportRun(response, runId, type);
+        runService.exportRun(response, runId, type, fields, gzip);
+    }
+
+    @DeleteMapping("/{runId}")
+    public ResponseEntity<Void> deleteRun(@PathVariable("runId") Long runId) {
+        runService.deleteRun(runId);
+        return ResponseEntity.noContent().build();
     }
 }
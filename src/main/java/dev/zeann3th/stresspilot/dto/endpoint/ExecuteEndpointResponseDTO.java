@@ -1,10 +1,14 @@
 package dev.zeann3th.stresspilot.dto.endpoint;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,6 +18,26 @@ public class ExecuteEndpointResponseDTO {
     private boolean success;
     private String message;
     private long responseTimeMs;
+    private long responseTimeNanos;
+    private int responseSize;
     private Object data;
     private String rawResponse;
+
+    // Executors hand over the body undecoded, it only becomes a String when somebody reads it
+    @JsonIgnore
+    private byte[] rawBody;
+
+    @JsonIgnore
+    private Charset charset;
+
+    public String getRawResponse() {
+        if (rawResponse == null && rawBody != null)
+            rawResponse = new String(rawBody, charset != null ? charset : StandardCharsets.UTF_8);
+        return rawResponse;
+    }
+
+    // Bodies that are not JSON are their own data
+    public Object getData() {
+        return data != null ? data : getRawResponse();
+    }
 }
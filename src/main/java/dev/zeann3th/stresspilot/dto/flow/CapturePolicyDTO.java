@@ -0,0 +1,22 @@
+package dev.zeann3th.stresspilot.dto.flow;
+
+import dev.zeann3th.stresspilot.common.enums.CaptureMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CapturePolicyDTO {
+    @Builder.Default
+    private CaptureMode mode = CaptureMode.ALL;
+
+    // FIRST_N: samples captured per endpoint, ONE_IN_N: every n-th sample of an endpoint is captured
+    private Integer n;
+
+    // Captured bodies are cut to this many bytes, unset keeps them whole
+    private Integer maxBytes;
+}
@@ -1,12 +1,17 @@
 package dev.zeann3th.stresspilot.dto.flow;
 
+import dev.zeann3th.stresspilot.service.run.ResponseCapture;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalWriter;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import okhttp3.CookieJar;
+import org.springframework.expression.EvaluationContext;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Data
 @NoArgsConstructor
@@ -18,6 +23,14 @@ public class FlowThreadContext {
     private CookieJar cookieJar;
     private Map<String, Object> variables;
     private Long runId;
+    private long iterationStartLagNanos;
+    // Intended start of the next paced iteration of an async user
+    private long nextIterationStartNanos;
+    private EvaluationContext evaluationContext;
+    private volatile CompletableFuture<?> pendingRequest;
+    private RunJournalWriter journal;
+    private RunMetrics metrics;
+    private ResponseCapture capture;
 
     public void incrementIteration() {
         this.iterationCount++;
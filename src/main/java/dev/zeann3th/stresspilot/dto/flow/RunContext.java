@@ -0,0 +1,17 @@
+package dev.zeann3th.stresspilot.dto.flow;
+
+import dev.zeann3th.stresspilot.service.run.ResponseCapture;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalWriter;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetrics;
+import lombok.Builder;
+import lombok.Value;
+
+// Per-run sinks shared by every virtual user of the run
+@Value
+@Builder
+public class RunContext {
+    Long runId;
+    RunJournalWriter journal;
+    RunMetrics metrics;
+    ResponseCapture capture;
+}
@@ -1,5 +1,8 @@
 package dev.zeann3th.stresspilot.dto.flow;
 
+import dev.zeann3th.stresspilot.common.enums.ArrivalPattern;
+import dev.zeann3th.stresspilot.common.enums.LoadModel;
+import dev.zeann3th.stresspilot.common.enums.ThreadMode;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -27,6 +30,32 @@ public class RunFlowRequestDTO {
     @Min(value = 0, message = "rampUpDuration cannot be negative")
     private Integer rampUpDuration;
 
+    @Builder.Default
+    private ThreadMode threadMode = ThreadMode.PLATFORM;
+
+    @Builder.Default
+    private LoadModel loadModel = LoadModel.CLOSED_LOOP;
+
+    // CLOSED_LOOP: fixed interval between iteration starts of a virtual user, 0 runs iterations back-to-back
+    @Min(value = 0, message = "pacingMs cannot be negative")
+    private Integer pacingMs;
+
+    // ARRIVAL_RATE: iterations started per second, threads caps the concurrent iterations
+    private Double arrivalRate;
+
+    // RAMPED: rate at the start of the ramp-up window, arrivalRate is reached at its end
+    private Double startArrivalRate;
+
+    @Builder.Default
+    private ArrivalPattern arrivalPattern = ArrivalPattern.FIXED;
+
     @Builder.Default
     private Map<String, Object> variables = new HashMap<>();
+
+    // Which request and response bodies are stored, metrics always count every sample
+    private CapturePolicyDTO capture;
+
+    // Overrides of the run policy keyed by step id
+    @Builder.Default
+    private Map<String, CapturePolicyDTO> stepCapture = new HashMap<>();
 }
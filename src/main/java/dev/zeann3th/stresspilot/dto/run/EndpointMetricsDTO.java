@@ -0,0 +1,24 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EndpointMetricsDTO {
+    private Long endpointId;
+    private long requests;
+    private long totalRequests;
+    private double requestsPerSecond;
+    private long errors;
+    private double errorRate;
+    private long inFlight;
+    private double p50Ms;
+    private double p90Ms;
+    private double p99Ms;
+    private double maxMs;
+}
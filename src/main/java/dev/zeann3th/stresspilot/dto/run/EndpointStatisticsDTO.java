@@ -0,0 +1,21 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EndpointStatisticsDTO {
+    private Long endpointId;
+    private long requests;
+    private long errors;
+    private double minResponseTimeMs;
+    private double avgResponseTimeMs;
+    private double maxResponseTimeMs;
+    private double avgServiceTimeMs;
+    private long totalBytes;
+}
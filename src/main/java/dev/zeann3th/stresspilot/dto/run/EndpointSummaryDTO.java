@@ -0,0 +1,25 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EndpointSummaryDTO {
+    private Long endpointId;
+    private String endpointName;
+    private long requests;
+    private long errors;
+    private double errorRate;
+    private double requestsPerSecond;
+    private Map<String, Long> statusCodes;
+    private Map<String, Long> errorTypes;
+    private LatencySummaryDTO latency;
+    private LatencySummaryDTO serviceLatency;
+}
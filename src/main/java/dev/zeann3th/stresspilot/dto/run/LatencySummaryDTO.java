@@ -0,0 +1,24 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatencySummaryDTO {
+    private String scope;
+    private String key;
+    private String metric;
+    private long count;
+    private double minMs;
+    private double meanMs;
+    private double p50Ms;
+    private double p90Ms;
+    private double p99Ms;
+    private double p999Ms;
+    private double maxMs;
+}
@@ -0,0 +1,23 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunMetricsSnapshotDTO {
+    private Long runId;
+    private long timestamp;
+    private long elapsedMs;
+    private int activeUsers;
+    private double requestsPerSecond;
+    private double errorRate;
+    private long inFlight;
+    private List<EndpointMetricsDTO> endpoints;
+}
@@ -0,0 +1,25 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunSampleDTO {
+    private Long id;
+    private Long endpointId;
+    private Integer statusCode;
+    private Long responseTime;
+    private Long serviceTime;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime createdAt;
+    private String request;
+    private String response;
+}
@@ -0,0 +1,18 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunSamplePageDTO {
+    private List<RunSampleDTO> samples;
+    // Pass as after to get the next page, absent on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,25 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunSampleQueryDTO {
+    private Long endpointId;
+    private Integer minStatus;
+    private Integer maxStatus;
+    private Long minResponseTime;
+    private Long maxResponseTime;
+    // Epoch milliseconds, matched against the time the sample was written
+    private Long from;
+    private Long to;
+    // Id of the last sample of the previous page
+    private Long after;
+    private Integer limit;
+    private boolean payloads;
+}
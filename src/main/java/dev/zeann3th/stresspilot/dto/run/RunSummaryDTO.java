@@ -0,0 +1,31 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunSummaryDTO {
+    private Long runId;
+    private Long flowId;
+    private String loadModel;
+    private Integer threads;
+    private long startedAt;
+    private long durationMs;
+    private long totalRequests;
+    private long totalErrors;
+    private double errorRate;
+    private double avgRequestsPerSecond;
+    private double peakRequestsPerSecond;
+    private Long droppedIterations;
+    private Long lateIterations;
+    private List<EndpointSummaryDTO> endpoints;
+    private List<LatencySummaryDTO> steps;
+    private List<TimelinePointDTO> timeline;
+}
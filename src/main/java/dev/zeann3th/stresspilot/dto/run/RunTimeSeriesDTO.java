@@ -0,0 +1,21 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunTimeSeriesDTO {
+    private Long runId;
+    // All endpoints are merged when absent
+    private Long endpointId;
+    private String resolution;
+    // Buckets without samples are left out
+    private List<TimeSeriesPointDTO> points;
+}
@@ -0,0 +1,20 @@
+package dev.zeann3th.stresspilot.dto.run;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimelinePointDTO {
+    private long elapsedMs;
+    private long requests;
+    private long errors;
+    private double requestsPerSecond;
+    private int activeUsers;
+    private double p50Ms;
+    private double p99Ms;
+}
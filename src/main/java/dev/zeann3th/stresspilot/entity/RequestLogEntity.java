@@ -28,6 +28,15 @@ public class RequestLogEntity extends BaseEntity {
     @Column(name = "response_time", nullable = false)
     private Long responseTime;
 
+    @Column(name = "service_time")
+    private Long serviceTime;
+
+    @Column(name = "request_body_id")
+    private Long requestBodyId;
+
+    @Column(name = "response_body_id")
+    private Long responseBodyId;
+
     @Column(name = "request", columnDefinition = "TEXT")
     private String request;
 
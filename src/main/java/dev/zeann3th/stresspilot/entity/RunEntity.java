@@ -1,8 +1,11 @@
 package dev.zeann3th.stresspilot.entity;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @EqualsAndHashCode(callSuper = false)
 @Data
 @Entity
@@ -30,4 +33,27 @@ public class RunEntity extends BaseEntity {
 
     @Column(name = "ramp_up_duration", nullable = false)
     private Integer rampUpDuration;
+
+    @Column(name = "load_model", columnDefinition = "VARCHAR(20)")
+    private String loadModel;
+
+    @Column(name = "arrival_rate")
+    private Double arrivalRate;
+
+    @Column(name = "dropped_iterations")
+    private Long droppedIterations;
+
+    @Column(name = "late_iterations")
+    private Long lateIterations;
+
+    @Column(name = "payload_bytes")
+    private Long payloadBytes;
+
+    @Column(name = "stored_payload_bytes")
+    private Long storedPayloadBytes;
+
+    // Set once the request logs were moved to the archive file, only the compactor writes it
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(name = "archived_at", insertable = false, updatable = false)
+    private LocalDateTime archivedAt;
 }
@@ -0,0 +1,58 @@
+package dev.zeann3th.stresspilot.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@EqualsAndHashCode(callSuper = false)
+@Data
+@Entity
+@Table(name = "run_latency_histograms")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunLatencyHistogramEntity extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "scope", columnDefinition = "VARCHAR(20)", nullable = false)
+    private String scope;
+
+    @Column(name = "scope_key", nullable = false)
+    private String scopeKey;
+
+    @Column(name = "metric", columnDefinition = "VARCHAR(20)", nullable = false)
+    private String metric;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "min_us")
+    private Long minUs;
+
+    @Column(name = "mean_us")
+    private Double meanUs;
+
+    @Column(name = "p50_us")
+    private Long p50Us;
+
+    @Column(name = "p90_us")
+    private Long p90Us;
+
+    @Column(name = "p99_us")
+    private Long p99Us;
+
+    @Column(name = "p999_us")
+    private Long p999Us;
+
+    @Column(name = "max_us")
+    private Long maxUs;
+
+    // HdrHistogram compressed encoding, microsecond values
+    @Column(name = "histogram", columnDefinition = "BLOB")
+    private byte[] histogram;
+}
@@ -0,0 +1,55 @@
+package dev.zeann3th.stresspilot.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@EqualsAndHashCode(callSuper = false)
+@Data
+@Entity
+@Table(name = "run_rollups")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunRollupEntity extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "endpoint_id", nullable = false)
+    private Long endpointId;
+
+    // Bucket width in seconds
+    @Column(name = "resolution", nullable = false)
+    private Integer resolution;
+
+    // Start of the bucket, seconds since the run started
+    @Column(name = "elapsed_second", nullable = false)
+    private Long elapsedSecond;
+
+    // Time actually covered by the bucket, shorter than the resolution at the end of a run
+    @Column(name = "duration_ms", nullable = false)
+    private Long durationMs;
+
+    @Column(name = "requests", nullable = false)
+    private Long requests;
+
+    @Column(name = "errors", nullable = false)
+    private Long errors;
+
+    @Column(name = "latency_sum_us", nullable = false)
+    private Long latencySumUs;
+
+    @Column(name = "latency_min_us")
+    private Long latencyMinUs;
+
+    @Column(name = "latency_max_us")
+    private Long latencyMaxUs;
+
+    // HdrHistogram compressed encoding, microsecond values
+    @Column(name = "histogram", columnDefinition = "BLOB")
+    private byte[] histogram;
+}
@@ -0,0 +1,43 @@
+package dev.zeann3th.stresspilot.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Catalog entry of the database file holding the request logs of one run
+@EqualsAndHashCode(callSuper = false)
+@Data
+@Entity
+@Table(name = "run_shards")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunShardEntity extends BaseEntity {
+    @Id
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Column(name = "samples", nullable = false)
+    private Long samples;
+
+    @Column(name = "bodies", nullable = false)
+    private Long bodies;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(name = "first_sample_at")
+    private LocalDateTime firstSampleAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(name = "last_sample_at")
+    private LocalDateTime lastSampleAt;
+
+    // Set once the run stopped writing, counts and sizes are final from then on
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(name = "sealed_at")
+    private LocalDateTime sealedAt;
+}
@@ -0,0 +1,20 @@
+package dev.zeann3th.stresspilot.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@EqualsAndHashCode(callSuper = false)
+@Data
+@Entity
+@Table(name = "run_summaries")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunSummaryEntity extends BaseEntity {
+    @Id
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Column(name = "summary", columnDefinition = "TEXT", nullable = false)
+    private String summary;
+}
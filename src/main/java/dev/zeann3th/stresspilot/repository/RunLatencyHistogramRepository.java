@@ -0,0 +1,21 @@
+package dev.zeann3th.stresspilot.repository;
+
+import dev.zeann3th.stresspilot.entity.RunLatencyHistogramEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface RunLatencyHistogramRepository extends JpaRepository<RunLatencyHistogramEntity, Long> {
+    List<RunLatencyHistogramEntity> findByRunId(Long runId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RunLatencyHistogramEntity rlhe WHERE rlhe.runId = :runId")
+    void deleteAllByRunId(@Param("runId") Long runId);
+}
@@ -4,6 +4,9 @@ import dev.zeann3th.stresspilot.entity.RunEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface RunRepository extends JpaRepository<RunEntity, Long> {
+    List<RunEntity> findAllByOrderByIdDesc();
 }
@@ -0,0 +1,26 @@
+package dev.zeann3th.stresspilot.repository;
+
+import dev.zeann3th.stresspilot.entity.RunRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RunRollupRepository extends JpaRepository<RunRollupEntity, Long> {
+    List<RunRollupEntity> findByRunIdAndResolutionOrderByElapsedSecondAscEndpointIdAsc(Long runId, Integer resolution);
+
+    List<RunRollupEntity> findByRunIdAndResolutionAndEndpointIdOrderByElapsedSecondAsc(Long runId, Integer resolution, Long endpointId);
+
+    Optional<RunRollupEntity> findFirstByRunIdAndResolutionOrderByElapsedSecondDesc(Long runId, Integer resolution);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RunRollupEntity rre WHERE rre.runId = :runId")
+    void deleteAllByRunId(@Param("runId") Long runId);
+}
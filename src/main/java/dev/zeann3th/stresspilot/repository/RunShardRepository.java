@@ -0,0 +1,14 @@
+package dev.zeann3th.stresspilot.repository;
+
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RunShardRepository extends JpaRepository<RunShardEntity, Long> {
+    List<RunShardEntity> findAllByOrderByRunIdDesc();
+
+    List<RunShardEntity> findBySealedAtIsNull();
+}
@@ -0,0 +1,9 @@
+package dev.zeann3th.stresspilot.repository;
+
+import dev.zeann3th.stresspilot.entity.RunSummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RunSummaryRepository extends JpaRepository<RunSummaryEntity, Long> {
+}
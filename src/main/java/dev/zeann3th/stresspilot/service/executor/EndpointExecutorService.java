@@ -5,9 +5,38 @@ import dev.zeann3th.stresspilot.entity.EndpointEntity;
 import okhttp3.CookieJar;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface EndpointExecutorService {
     String getType();
 
     ExecuteEndpointResponseDTO execute(EndpointEntity endpointEntity, Map<String, Object> environment, CookieJar cookieJar);
+
+    // Executors without a non-blocking client run the request on the calling thread
+    default CompletableFuture<ExecuteEndpointResponseDTO> executeAsync(EndpointEntity endpointEntity,
+                                                                       Map<String, Object> environment,
+                                                                       CookieJar cookieJar) {
+        return CompletableFuture.completedFuture(execute(endpointEntity, environment, cookieJar));
+    }
+
+    // Executors with nothing to compile keep working from the endpoint itself
+    default PreparedEndpoint prepare(EndpointEntity endpointEntity) {
+        EndpointExecutorService executor = this;
+        return new PreparedEndpoint() {
+            @Override
+            public EndpointEntity getEndpoint() {
+                return endpointEntity;
+            }
+
+            @Override
+            public ExecuteEndpointResponseDTO execute(Map<String, Object> environment, CookieJar cookieJar) {
+                return executor.execute(endpointEntity, environment, cookieJar);
+            }
+
+            @Override
+            public CompletableFuture<ExecuteEndpointResponseDTO> executeAsync(Map<String, Object> environment, CookieJar cookieJar) {
+                return executor.executeAsync(endpointEntity, environment, cookieJar);
+            }
+        };
+    }
 }
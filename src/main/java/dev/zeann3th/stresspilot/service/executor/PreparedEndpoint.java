@@ -0,0 +1,18 @@
+package dev.zeann3th.stresspilot.service.executor;
+
+import dev.zeann3th.stresspilot.dto.endpoint.ExecuteEndpointResponseDTO;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import okhttp3.CookieJar;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// An endpoint with everything that does not depend on the variables of a request already resolved.
+// Flow plans hold one per endpoint step, so nothing is compiled or looked up again while a run is going.
+public interface PreparedEndpoint {
+    EndpointEntity getEndpoint();
+
+    ExecuteEndpointResponseDTO execute(Map<String, Object> environment, CookieJar cookieJar);
+
+    CompletableFuture<ExecuteEndpointResponseDTO> executeAsync(Map<String, Object> environment, CookieJar cookieJar);
+}
@@ -1,13 +1,17 @@
 package dev.zeann3th.stresspilot.service.executor.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.zeann3th.stresspilot.common.enums.ConfigKey;
 import dev.zeann3th.stresspilot.common.enums.EndpointType;
+import dev.zeann3th.stresspilot.common.utils.RequestCookieInterceptor;
 import dev.zeann3th.stresspilot.dto.endpoint.ExecuteEndpointResponseDTO;
 import dev.zeann3th.stresspilot.entity.EndpointEntity;
 import dev.zeann3th.stresspilot.service.ConfigService;
 import dev.zeann3th.stresspilot.service.executor.EndpointExecutorService;
+import dev.zeann3th.stresspilot.service.executor.PreparedEndpoint;
+import dev.zeann3th.stresspilot.service.executor.template.HttpRequestTemplate;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,9 +19,14 @@ import okhttp3.*;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -25,10 +34,13 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 @SuppressWarnings("unused")
 public class HttpEndpointExecutor implements EndpointExecutorService {
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final RequestBody EMPTY_BODY = RequestBody.create(EMPTY_BYTES, null);
+
     private final ConfigService configService;
     private final ObjectMapper objectMapper;
 
-    private OkHttpClient baseClient;
+    private OkHttpClient client;
 
     @PostConstruct
     public void init() {
@@ -38,17 +50,26 @@ public class HttpEndpointExecutor implements EndpointExecutorService {
         int writeTimeout = configService.getValue(ConfigKey.HTTP_WRITE_TIMEOUT.name()).map(Integer::parseInt).orElse(30);
         int maxConnections = configService.getValue(ConfigKey.HTTP_MAX_POOL_SIZE.name()).map(Integer::parseInt).orElse(100);
         int keepAliveDuration = configService.getValue(ConfigKey.HTTP_KEEP_ALIVE_DURATION.name()).map(Integer::parseInt).orElse(5);
+        int maxInFlight = configService.getValue(ConfigKey.HTTP_MAX_IN_FLIGHT.name()).map(Integer::parseInt).orElse(2000);
+        int maxInFlightPerHost = configService.getValue(ConfigKey.HTTP_MAX_IN_FLIGHT_PER_HOST.name()).map(Integer::parseInt).orElse(2000);
+
+        // Async calls wait on sockets from virtual threads, requests beyond the caps queue inside the dispatcher
+        Dispatcher dispatcher = new Dispatcher(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory()));
+        dispatcher.setMaxRequests(maxInFlight);
+        dispatcher.setMaxRequestsPerHost(maxInFlightPerHost);
 
-        baseClient = new OkHttpClient.Builder()
+        client = new OkHttpClient.Builder()
                 .connectTimeout(connectTimeout, TimeUnit.SECONDS)
                 .readTimeout(readTimeout, TimeUnit.SECONDS)
                 .writeTimeout(writeTimeout, TimeUnit.SECONDS)
                 .connectionPool(new ConnectionPool(maxConnections, keepAliveDuration, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .addNetworkInterceptor(new RequestCookieInterceptor())
                 .followRedirects(true)
                 .build();
 
-        log.info("HTTP Executor initialized with timeout: connect={}s, read={}s, write={}s",
-                connectTimeout, readTimeout, writeTimeout);
+        log.info("HTTP Executor initialized with timeout: connect={}s, read={}s, write={}s, in-flight: max={}, per host={}",
+                connectTimeout, readTimeout, writeTimeout, maxInFlight, maxInFlightPerHost);
     }
 
     @Override
@@ -56,87 +77,160 @@ public class HttpEndpointExecutor implements EndpointExecutorService {
         return EndpointType.HTTP.name();
     }
 
+    // Single executions compile the template for the one request they send
     @Override
     public ExecuteEndpointResponseDTO execute(EndpointEntity endpointEntity,
                                               Map<String, Object> environment,
                                               CookieJar cookieJar) {
         try {
-            OkHttpClient client = cookieJar != null
-                    ? baseClient.newBuilder().cookieJar(cookieJar).build()
-                    : baseClient;
+            return execute(compileTemplate(endpointEntity), environment, cookieJar);
+        } catch (Exception e) {
+            return unexpectedError(e);
+        }
+    }
 
-            Request request = buildRequest(endpointEntity, environment);
+    @Override
+    public CompletableFuture<ExecuteEndpointResponseDTO> executeAsync(EndpointEntity endpointEntity,
+                                                                      Map<String, Object> environment,
+                                                                      CookieJar cookieJar) {
+        try {
+            return executeAsync(compileTemplate(endpointEntity), environment, cookieJar);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(unexpectedError(e));
+        }
+    }
+
+    // The template belongs to the flow plan, concurrent runs never share or replace each other's
+    @Override
+    public PreparedEndpoint prepare(EndpointEntity endpointEntity) {
+        try {
+            return new PreparedHttpRequest(compileTemplate(endpointEntity));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            long startTime = System.currentTimeMillis();
+    private ExecuteEndpointResponseDTO execute(HttpRequestTemplate template,
+                                               Map<String, Object> environment,
+                                               CookieJar cookieJar) {
+        try {
+            Request request = buildRequest(template, environment, cookieJar);
+
+            long startTime = System.nanoTime();
             try (Response response = client.newCall(request).execute()) {
-                long responseTimeMs = System.currentTimeMillis() - startTime;
-
-                String rawResponse = response.body() != null ? response.body().string() : "";
-
-                return ExecuteEndpointResponseDTO.builder()
-                        .statusCode(response.code())
-                        .success(response.isSuccessful())
-                        .message(response.message())
-                        .responseTimeMs(responseTimeMs)
-                        .data(parseResponseData(rawResponse))
-                        .rawResponse(rawResponse)
-                        .build();
+                return toResponse(response, startTime);
             }
 
         } catch (IOException e) {
-            log.error("Failed to execute HTTP request for endpoint: {}", endpointEntity.getName(), e);
-            return ExecuteEndpointResponseDTO.builder()
-                    .success(false)
-                    .message("IO Error: " + e.getMessage())
-                    .build();
+            return ioError(template.getEndpoint(), e);
         } catch (Exception e) {
-            log.error("Unexpected error executing HTTP request", e);
-            return ExecuteEndpointResponseDTO.builder()
-                    .success(false)
-                    .message("Unexpected error: " + e.getMessage())
-                    .build();
+            return unexpectedError(e);
         }
     }
 
-    private Request buildRequest(EndpointEntity endpoint, Map<String, Object> environment) {
-        String url = replaceVariables(endpoint.getUrl(), environment);
+    private CompletableFuture<ExecuteEndpointResponseDTO> executeAsync(HttpRequestTemplate template,
+                                                                       Map<String, Object> environment,
+                                                                       CookieJar cookieJar) {
+        EndpointEntity endpointEntity = template.getEndpoint();
+        CompletableFuture<ExecuteEndpointResponseDTO> future = new CompletableFuture<>();
+        Call call;
+        try {
+            call = client.newCall(buildRequest(template, environment, cookieJar));
+        } catch (Exception e) {
+            future.complete(unexpectedError(e));
+            return future;
+        }
 
-        log.debug("Building request - URL after variable replacement: {}", url);
+        long startTime = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (future.isCancelled()) return;
+                future.complete(ioError(endpointEntity, e));
+            }
 
-        Map<String, String> headers = parseHeaders(endpoint.getHttpHeaders());
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    future.complete(toResponse(response, startTime));
+                } catch (IOException e) {
+                    future.complete(ioError(endpointEntity, e));
+                } catch (Exception e) {
+                    future.complete(unexpectedError(e));
+                }
+            }
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) call.cancel();
+        });
+        return future;
+    }
 
-        Request.Builder builder = new Request.Builder().url(url);
+    private ExecuteEndpointResponseDTO toResponse(Response response, long startTime) throws IOException {
+        long responseTimeNanos = System.nanoTime() - startTime;
 
-        headers.forEach((key, value) -> {
-            String replacedValue = replaceVariables(value, environment);
-            builder.addHeader(key, replacedValue);
-        });
+        ResponseBody body = response.body();
+        byte[] bytes = body != null ? body.bytes() : EMPTY_BYTES;
+        Charset charset = charsetOf(body);
 
-        String method = endpoint.getHttpMethod().toUpperCase();
-        RequestBody requestBody = null;
+        return ExecuteEndpointResponseDTO.builder()
+                .statusCode(response.code())
+                .success(response.isSuccessful())
+                .message(response.message())
+                .responseTimeMs(TimeUnit.NANOSECONDS.toMillis(responseTimeNanos))
+                .responseTimeNanos(responseTimeNanos)
+                .responseSize(bytes.length)
+                .data(parseResponseData(bytes, charset))
+                .rawBody(bytes)
+                .charset(charset)
+                .build();
+    }
 
-        if (endpoint.getHttpBody() != null && !endpoint.getHttpBody().isEmpty()) {
-            String body = parseBody(endpoint.getHttpBody(), environment);
-            log.debug("Request body after variable replacement: {}", body);
-            MediaType mediaType = MediaType.parse("application/json; charset=utf-8");
-            requestBody = RequestBody.create(body, mediaType);
-        }
+    private Charset charsetOf(ResponseBody body) {
+        MediaType contentType = body != null ? body.contentType() : null;
+        return contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+    }
+
+    private ExecuteEndpointResponseDTO ioError(EndpointEntity endpointEntity, IOException e) {
+        log.error("Failed to execute HTTP request for endpoint: {}", endpointEntity.getName(), e);
+        return ExecuteEndpointResponseDTO.builder()
+                .success(false)
+                .message("IO Error: " + e.getMessage())
+                .build();
+    }
+
+    private ExecuteEndpointResponseDTO unexpectedError(Exception e) {
+        log.error("Unexpected error executing HTTP request", e);
+        return ExecuteEndpointResponseDTO.builder()
+                .success(false)
+                .message("Unexpected error: " + e.getMessage())
+                .build();
+    }
+
+    private Request buildRequest(HttpRequestTemplate template, Map<String, Object> environment, CookieJar cookieJar) throws JsonProcessingException {
+        Request.Builder builder = new Request.Builder()
+                .url(template.renderUrl(environment))
+                .headers(template.renderHeaders(environment));
+        if (cookieJar != null) builder.tag(CookieJar.class, cookieJar);
+
+        String method = template.getMethod();
+        RequestBody requestBody = template.renderBody(environment);
 
         switch (method) {
             case "GET":
                 builder.get();
                 break;
             case "POST":
-                builder.post(requestBody != null ? requestBody : RequestBody.create("", null));
+                builder.post(requestBody != null ? requestBody : EMPTY_BODY);
                 break;
             case "PUT":
-                builder.put(requestBody != null ? requestBody : RequestBody.create("", null));
+                builder.put(requestBody != null ? requestBody : EMPTY_BODY);
                 break;
             case "DELETE":
                 builder.delete(requestBody);
                 break;
             case "PATCH":
-                builder.patch(requestBody != null ? requestBody : RequestBody.create("", null));
+                builder.patch(requestBody != null ? requestBody : EMPTY_BODY);
                 break;
             case "HEAD":
                 builder.head();
@@ -151,6 +245,14 @@ public class HttpEndpointExecutor implements EndpointExecutorService {
         return builder.build();
     }
 
+    private HttpRequestTemplate compileTemplate(EndpointEntity endpoint) throws JsonProcessingException {
+        return new HttpRequestTemplate(
+                endpoint,
+                parseHeaders(endpoint.getHttpHeaders()),
+                parseJsonBody(endpoint.getHttpBody()),
+                objectMapper);
+    }
+
     private Map<String, String> parseHeaders(String headersJson) {
         if (headersJson == null || headersJson.isEmpty()) {
             return new HashMap<>();
@@ -163,77 +265,63 @@ public class HttpEndpointExecutor implements EndpointExecutorService {
         }
     }
 
-    private String parseBody(String bodyJson, Map<String, Object> environment) {
+    private Map<String, Object> parseJsonBody(String bodyJson) {
         if (bodyJson == null || bodyJson.isEmpty()) {
-            return "";
+            return null;
         }
         try {
-            Map<String, Object> bodyMap = objectMapper.readValue(bodyJson, new TypeReference<>() {});
-            Map<String, Object> replaced = replaceVariablesInMap(bodyMap, environment);
-            return objectMapper.writeValueAsString(replaced);
+            return objectMapper.readValue(bodyJson, new TypeReference<>() {});
         } catch (Exception e) {
             log.debug("Body is not valid JSON, treating as plain text");
-            return replaceVariables(bodyJson, environment);
+            return null;
         }
     }
 
-    private String replaceVariables(String input, Map<String, Object> environment) {
-        if (input == null || environment == null || environment.isEmpty()) {
-            return input;
+    // JSON is parsed straight from the bytes, anything else is left for the response to decode on demand
+    private Object parseResponseData(byte[] bytes, Charset charset) {
+        if (bytes.length == 0) {
+            return Map.of();
         }
-        String result = input;
-        for (Map.Entry<String, Object> entry : environment.entrySet()) {
-            String placeholder = "{{" + entry.getKey() + "}}";
-            String value = entry.getValue() != null ? String.valueOf(entry.getValue()) : "";
-            result = result.replace(placeholder, value);
+        int first = 0;
+        while (first < bytes.length - 1 && Character.isWhitespace(bytes[first])) first++;
+        try {
+            if (bytes[first] == '{') {
+                return charset.equals(StandardCharsets.UTF_8)
+                        ? objectMapper.readValue(bytes, new TypeReference<Map<String, Object>>() {})
+                        : objectMapper.readValue(new String(bytes, charset), new TypeReference<Map<String, Object>>() {});
+            } else if (bytes[first] == '[') {
+                return charset.equals(StandardCharsets.UTF_8)
+                        ? objectMapper.readValue(bytes, new TypeReference<List<Object>>() {})
+                        : objectMapper.readValue(new String(bytes, charset), new TypeReference<List<Object>>() {});
+            } else {
+                return null;
+            }
+        } catch (Exception e) {
+            log.debug("Failed to parse response JSON", e);
+            return null;
         }
-        return result;
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> replaceVariablesInMap(Map<String, Object> input, Map<String, Object> environment) {
-        Map<String, Object> result = new HashMap<>();
-        for (Map.Entry<String, Object> entry : input.entrySet()) {
-            Object value = entry.getValue();
-            switch (value) {
-                case String valueStr -> result.put(entry.getKey(), replaceVariables(valueStr, environment));
-                case Map<?,?> map -> result.put(entry.getKey(), replaceVariablesInMap((Map<String, Object>) value, environment));
-                case List<?> list -> result.put(entry.getKey(), replaceVariablesInList(list, environment));
-                case null, default -> result.put(entry.getKey(), value);
-            }
+    private class PreparedHttpRequest implements PreparedEndpoint {
+        private final HttpRequestTemplate template;
+
+        PreparedHttpRequest(HttpRequestTemplate template) {
+            this.template = template;
         }
-        return result;
-    }
 
-    @SuppressWarnings("unchecked")
-    private List<Object> replaceVariablesInList(List<?> input, Map<String, Object> environment) {
-        List<Object> result = new java.util.ArrayList<>();
-        for (Object item : input) {
-            switch (item) {
-                case String itemStr -> result.add(replaceVariables(itemStr, environment));
-                case Map<?,?> map -> result.add(replaceVariablesInMap((Map<String, Object>) item, environment));
-                case List<?> list -> result.add(replaceVariablesInList(list, environment));
-                case null, default -> result.add(item);
-            }
+        @Override
+        public EndpointEntity getEndpoint() {
+            return template.getEndpoint();
         }
-        return result;
-    }
 
-    private Object parseResponseData(String rawResponse) {
-        if (rawResponse == null || rawResponse.isEmpty()) {
-            return Map.of();
+        @Override
+        public ExecuteEndpointResponseDTO execute(Map<String, Object> environment, CookieJar cookieJar) {
+            return HttpEndpointExecutor.this.execute(template, environment, cookieJar);
         }
-        try {
-            if (rawResponse.trim().startsWith("{")) {
-                return objectMapper.readValue(rawResponse, new TypeReference<Map<String, Object>>() {});
-            } else if (rawResponse.trim().startsWith("[")) {
-                return objectMapper.readValue(rawResponse, new TypeReference<List<Object>>() {});
-            } else {
-                return rawResponse;
-            }
-        } catch (Exception e) {
-            log.debug("Failed to parse response JSON", e);
-            return rawResponse;
+
+        @Override
+        public CompletableFuture<ExecuteEndpointResponseDTO> executeAsync(Map<String, Object> environment, CookieJar cookieJar) {
+            return HttpEndpointExecutor.this.executeAsync(template, environment, cookieJar);
         }
     }
-}
\ No newline at end of file
+}
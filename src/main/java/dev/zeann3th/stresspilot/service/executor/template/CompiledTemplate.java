@@ -0,0 +1,91 @@
+package dev.zeann3th.stresspilot.service.executor.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class CompiledTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final int MAX_RETAINED_BUILDER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    // literals[i] precedes variables[i], the last literal follows the last variable
+    private final String[] literals;
+    private final String[] variables;
+
+    private CompiledTemplate(String source, String[] literals, String[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        if (source == null) return null;
+
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int literalStart = 0;
+        int open = source.indexOf(OPEN);
+        while (open >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) break;
+            literals.add(source.substring(literalStart, open));
+            variables.add(source.substring(open + OPEN.length(), close));
+            literalStart = close + CLOSE.length();
+            open = source.indexOf(OPEN, literalStart);
+        }
+        literals.add(source.substring(literalStart));
+
+        return new CompiledTemplate(source, literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    public boolean isConstant() {
+        return variables.length == 0;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    public String getLiteral(int index) {
+        return literals[index];
+    }
+
+    public String getVariable(int index) {
+        return variables[index];
+    }
+
+    public String render(Map<String, Object> environment) {
+        if (isConstant()) return source;
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(literals[i]);
+            appendVariable(builder, variables[i], environment);
+        }
+        builder.append(literals[variables.length]);
+
+        String rendered = builder.toString();
+        if (builder.capacity() > MAX_RETAINED_BUILDER) {
+            BUILDER.remove();
+        }
+        return rendered;
+    }
+
+    // Unknown variables are left in place, null values render as an empty string
+    private static void appendVariable(StringBuilder builder, String name, Map<String, Object> environment) {
+        Object value = environment != null ? environment.get(name) : null;
+        if (value != null) {
+            builder.append(value);
+        } else if (environment == null || !environment.containsKey(name)) {
+            builder.append(OPEN).append(name).append(CLOSE);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dev.zeann3th.stresspilot.service.executor.template;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import lombok.Getter;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import java.util.Map;
+
+@Getter
+public class HttpRequestTemplate {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final EndpointEntity endpoint;
+    private final String method;
+    private final CompiledTemplate url;
+    private final HttpUrl constantUrl;
+    private final String[] headerNames;
+    private final CompiledTemplate[] headerValues;
+    private final Headers constantHeaders;
+
+    // At most one of these is set: a body without placeholders is built once and reused
+    private final RequestBody constantBody;
+    private final JsonBodyTemplate jsonBody;
+    private final CompiledTemplate textBody;
+
+    public HttpRequestTemplate(EndpointEntity endpoint,
+                               Map<String, String> headers,
+                               Map<String, Object> parsedJsonBody,
+                               ObjectMapper objectMapper) throws JsonProcessingException {
+        this.endpoint = endpoint;
+        this.method = endpoint.getHttpMethod().toUpperCase();
+        this.url = CompiledTemplate.compile(endpoint.getUrl());
+        this.constantUrl = url.isConstant() ? HttpUrl.parse(url.getSource()) : null;
+
+        this.headerNames = headers.keySet().toArray(String[]::new);
+        this.headerValues = new CompiledTemplate[headerNames.length];
+        boolean constant = true;
+        for (int i = 0; i < headerNames.length; i++) {
+            headerValues[i] = CompiledTemplate.compile(headers.get(headerNames[i]));
+            constant &= headerValues[i] == null || headerValues[i].isConstant();
+        }
+        this.constantHeaders = constant ? renderHeaders(null) : null;
+
+        String body = endpoint.getHttpBody();
+        if (body == null || body.isEmpty()) {
+            this.constantBody = null;
+            this.jsonBody = null;
+            this.textBody = null;
+        } else if (parsedJsonBody != null) {
+            JsonBodyTemplate compiled = JsonBodyTemplate.compile(parsedJsonBody, JSON, objectMapper);
+            this.constantBody = compiled.isConstant() ? compiled.render(null) : null;
+            this.jsonBody = compiled.isConstant() ? null : compiled;
+            this.textBody = null;
+        } else {
+            CompiledTemplate compiled = CompiledTemplate.compile(body);
+            this.constantBody = compiled.isConstant() ? RequestBody.create(body, JSON) : null;
+            this.jsonBody = null;
+            this.textBody = compiled.isConstant() ? null : compiled;
+        }
+    }
+
+    public HttpUrl renderUrl(Map<String, Object> environment) {
+        return constantUrl != null ? constantUrl : HttpUrl.get(url.render(environment));
+    }
+
+    public Headers renderHeaders(Map<String, Object> environment) {
+        if (constantHeaders != null) return constantHeaders;
+        Headers.Builder builder = new Headers.Builder();
+        for (int i = 0; i < headerNames.length; i++) {
+            if (headerValues[i] != null) {
+                builder.add(headerNames[i], headerValues[i].render(environment));
+            }
+        }
+        return builder.build();
+    }
+
+    public RequestBody renderBody(Map<String, Object> environment) {
+        if (constantBody != null) return constantBody;
+        if (jsonBody != null) return jsonBody.render(environment);
+        if (textBody != null) return RequestBody.create(textBody.render(environment), JSON);
+        return null;
+    }
+}
@@ -0,0 +1,159 @@
+package dev.zeann3th.stresspilot.service.executor.template;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class JsonBodyTemplate {
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+    private static final byte[] EMPTY = new byte[0];
+
+    private final MediaType mediaType;
+    // chunks[i] precedes the value of slots[i], the last chunk follows the last slot
+    private final byte[][] chunks;
+    private final String[] slots;
+    private final long constantLength;
+
+    private JsonBodyTemplate(MediaType mediaType, byte[][] chunks, String[] slots) {
+        this.mediaType = mediaType;
+        this.chunks = chunks;
+        this.slots = slots;
+        long length = 0;
+        for (byte[] chunk : chunks) length += chunk.length;
+        this.constantLength = length;
+    }
+
+    public static JsonBodyTemplate compile(Object json, MediaType mediaType, ObjectMapper objectMapper) throws JsonProcessingException {
+        Compiler compiler = new Compiler(objectMapper);
+        compiler.write(json);
+        return compiler.build(mediaType);
+    }
+
+    public boolean isConstant() {
+        return slots.length == 0;
+    }
+
+    public RequestBody render(Map<String, Object> environment) {
+        byte[][] values = new byte[slots.length][];
+        long length = constantLength;
+        for (int i = 0; i < slots.length; i++) {
+            values[i] = encodeValue(slots[i], environment);
+            length += values[i].length;
+        }
+        return new TemplateRequestBody(values, length);
+    }
+
+    // Values are substituted inside JSON strings, so they are escaped the same way Jackson escapes string content
+    private static byte[] encodeValue(String name, Map<String, Object> environment) {
+        Object value = environment != null ? environment.get(name) : null;
+        if (value != null) {
+            return ENCODER.quoteAsUTF8(String.valueOf(value));
+        }
+        if (environment == null || !environment.containsKey(name)) {
+            return ENCODER.quoteAsUTF8("{{" + name + "}}");
+        }
+        return EMPTY;
+    }
+
+    private class TemplateRequestBody extends RequestBody {
+        private final byte[][] values;
+        private final long length;
+
+        private TemplateRequestBody(byte[][] values, long length) {
+            this.values = values;
+            this.length = length;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mediaType;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public void writeTo(@NotNull BufferedSink sink) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                sink.write(chunks[i]);
+                sink.write(values[i]);
+            }
+            sink.write(chunks[values.length]);
+        }
+    }
+
+    private static class Compiler {
+        private final ObjectMapper objectMapper;
+        private final List<byte[]> chunks = new ArrayList<>();
+        private final List<String> slots = new ArrayList<>();
+        private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+
+        private Compiler(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        private void write(Object node) throws JsonProcessingException {
+            switch (node) {
+                case null -> literal("null");
+                case String text -> writeString(text);
+                case Map<?, ?> map -> {
+                    literal("{");
+                    boolean first = true;
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        if (!first) literal(",");
+                        first = false;
+                        literal("\"");
+                        current.writeBytes(ENCODER.quoteAsUTF8(String.valueOf(entry.getKey())));
+                        literal("\":");
+                        write(entry.getValue());
+                    }
+                    literal("}");
+                }
+                case List<?> list -> {
+                    literal("[");
+                    for (int i = 0; i < list.size(); i++) {
+                        if (i > 0) literal(",");
+                        write(list.get(i));
+                    }
+                    literal("]");
+                }
+                default -> current.writeBytes(objectMapper.writeValueAsBytes(node));
+            }
+        }
+
+        private void writeString(String text) {
+            CompiledTemplate template = CompiledTemplate.compile(text);
+            literal("\"");
+            for (int i = 0; i < template.getVariableCount(); i++) {
+                current.writeBytes(ENCODER.quoteAsUTF8(template.getLiteral(i)));
+                chunks.add(current.toByteArray());
+                current.reset();
+                slots.add(template.getVariable(i));
+            }
+            current.writeBytes(ENCODER.quoteAsUTF8(template.getLiteral(template.getVariableCount())));
+            literal("\"");
+        }
+
+        private void literal(String text) {
+            current.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private JsonBodyTemplate build(MediaType mediaType) {
+            chunks.add(current.toByteArray());
+            return new JsonBodyTemplate(mediaType, chunks.toArray(byte[][]::new), slots.toArray(String[]::new));
+        }
+    }
+}
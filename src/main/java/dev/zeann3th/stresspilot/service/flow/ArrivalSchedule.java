@@ -0,0 +1,54 @@
+package dev.zeann3th.stresspilot.service.flow;
+
+import dev.zeann3th.stresspilot.common.enums.ArrivalPattern;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+public class ArrivalSchedule {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ArrivalPattern pattern;
+    private final double startRate;
+    private final double targetRate;
+    private final double rampSeconds;
+    private final SplittableRandom random = new SplittableRandom();
+
+    private long arrivals;
+    private double poissonOffsetSeconds;
+
+    public ArrivalSchedule(ArrivalPattern pattern, double startRate, double targetRate, int rampUpSeconds) {
+        this.pattern = pattern != null ? pattern : ArrivalPattern.FIXED;
+        this.startRate = Math.max(0, startRate);
+        this.targetRate = targetRate;
+        this.rampSeconds = Math.max(0, rampUpSeconds);
+    }
+
+    public long nextOffsetNanos() {
+        long k = arrivals++;
+        double seconds = switch (pattern) {
+            case FIXED -> k / targetRate;
+            case RAMPED -> rampedOffset(k);
+            case POISSON -> {
+                if (k > 0) poissonOffsetSeconds += -Math.log(1 - random.nextDouble()) / targetRate;
+                yield poissonOffsetSeconds;
+            }
+        };
+        return (long) (seconds * NANOS_PER_SECOND);
+    }
+
+    // Arrivals during a linear ramp: N(t) = s*t + (r - s) * t^2 / (2R), the k-th one is the root of N(t) = k
+    private double rampedOffset(long k) {
+        if (k == 0) return 0;
+        if (rampSeconds == 0) return k / targetRate;
+
+        double a = (targetRate - startRate) / (2 * rampSeconds);
+        double b = startRate;
+        double arrivalsInRamp = b * rampSeconds + a * rampSeconds * rampSeconds;
+
+        if (k > arrivalsInRamp) {
+            return rampSeconds + (k - arrivalsInRamp) / targetRate;
+        }
+        return 2 * k / (b + Math.sqrt(b * b + 4 * a * k));
+    }
+}
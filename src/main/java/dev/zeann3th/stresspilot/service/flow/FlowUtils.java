@@ -1,96 +1,19 @@
 package dev.zeann3th.stresspilot.service.flow;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.zeann3th.stresspilot.common.Constants;
 import dev.zeann3th.stresspilot.common.enums.ErrorCode;
 import dev.zeann3th.stresspilot.common.enums.FlowStepType;
 import dev.zeann3th.stresspilot.dto.flow.FlowStepDTO;
-import dev.zeann3th.stresspilot.entity.FlowStepEntity;
 import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.CollectionUtils;
 
 import java.util.*;
 
 @Slf4j(topic = "[Flow Service Utils]")
 @SuppressWarnings("java:S3776")
 public class FlowUtils {
-    private static final Random RANDOM = new Random();
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     private FlowUtils() {}
 
-    public static void process(Map<String, Object> processorMap, Map<String, Object> environment, Object prevResp) {
-        if (CollectionUtils.isEmpty(processorMap)) return;
-
-        try {
-            if (processorMap.containsKey("sleep")) {
-                long baseDelayMs = Long.parseLong(processorMap.get("sleep").toString());
-                long randomExtra = 500 + (long) RANDOM.nextInt(501);
-                Thread.sleep(baseDelayMs + randomExtra);
-            }
-
-            if (processorMap.containsKey("inject")) {
-                Object injectObj = processorMap.get("inject");
-                if (injectObj != null) {
-                    Map<String, Object> injectMap = objectMapper.convertValue(injectObj, new TypeReference<>() {});
-                    environment.putAll(injectMap);
-                }
-            }
-
-            if (processorMap.containsKey("extract") && prevResp != null) {
-                Object extractObj = processorMap.get("extract");
-                if (extractObj != null) {
-                    Map<String, Object> extractMap = objectMapper.convertValue(extractObj, new TypeReference<>() {});
-                    for (Map.Entry<String, Object> entry : extractMap.entrySet()) {
-                        String targetKey = entry.getKey();
-                        String path = String.valueOf(entry.getValue());
-                        Object value = resolvePath(prevResp, path);
-                        if (value != null) {
-                            environment.put(targetKey, value);
-                        }
-                    }
-                }
-            }
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            log.error("Error processing processor: {}", e.getMessage(), e);
-        }
-    }
-
-    private static Object resolvePath(Object obj, String path) {
-        if (obj == null || path == null || path.isBlank()) return null;
-
-        String[] parts = path.replaceAll("\\[(\\w+)\\]", ".$1").split("\\.");
-        Object current = obj;
-
-        for (String part : parts) {
-            if (current == null) return null;
-
-            switch (current) {
-                case Map<?, ?> map -> current = map.get(part);
-                case List<?> list -> {
-                    try {
-                        int index = Integer.parseInt(part);
-                        if (index >= 0 && index < list.size()) {
-                            current = list.get(index);
-                        } else {
-                            return null;
-                        }
-                    } catch (NumberFormatException ex) {
-                        return null;
-                    }
-                }
-                default -> { return null; }
-            }
-        }
-
-        return current;
-    }
-
     public static void validateStartStep(List<FlowStepDTO> steps) {
         long startCount = steps.stream().filter(s -> FlowStepType.START.name().equalsIgnoreCase(s.getType())).count();
         if (startCount == 0)
@@ -133,8 +56,4 @@ public class FlowUtils {
         }
         visiting.remove(node); memo.put(node, false); return false;
     }
-
-    public static FlowStepEntity findStartNode(Map<String, FlowStepEntity> stepMap) {
-        return stepMap.values().stream().filter(s -> FlowStepType.START.name().equalsIgnoreCase(s.getType())).findFirst().orElse(null);
-    }
 }
\ No newline at end of file
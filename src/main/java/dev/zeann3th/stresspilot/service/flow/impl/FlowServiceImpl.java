@@ -6,7 +6,10 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.zeann3th.stresspilot.common.Constants;
 import dev.zeann3th.stresspilot.common.enums.ErrorCode;
+import dev.zeann3th.stresspilot.common.enums.LoadModel;
 import dev.zeann3th.stresspilot.common.enums.RunStatus;
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import dev.zeann3th.stresspilot.common.enums.ThreadMode;
 import dev.zeann3th.stresspilot.common.mappers.FlowMapper;
 import dev.zeann3th.stresspilot.common.utils.InMemoryCookieJar;
 import dev.zeann3th.stresspilot.dto.flow.*;
@@ -14,23 +17,39 @@ import dev.zeann3th.stresspilot.dto.endpoint.ExecuteEndpointResponseDTO;
 import dev.zeann3th.stresspilot.entity.*;
 import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
 import dev.zeann3th.stresspilot.repository.*;
-import dev.zeann3th.stresspilot.service.executor.EndpointExecutorServiceFactory;
+import dev.zeann3th.stresspilot.service.flow.ArrivalSchedule;
 import dev.zeann3th.stresspilot.service.flow.FlowService;
 import dev.zeann3th.stresspilot.service.flow.FlowUtils;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledCondition;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledStep;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowCompiler;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+import dev.zeann3th.stresspilot.service.flow.processor.StepProcessor;
+import dev.zeann3th.stresspilot.service.run.CapturedSample;
+import dev.zeann3th.stresspilot.service.run.PayloadUsage;
+import dev.zeann3th.stresspilot.service.run.RequestLogWriter;
+import dev.zeann3th.stresspilot.service.run.ResponseCapture;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalStore;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalWriter;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetrics;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetricsRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
-import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Slf4j(topic = "[Flow Service]")
@@ -43,6 +62,7 @@ public class FlowServiceImpl implements FlowService {
     private static final String START = "START";
     private static final String ENDPOINT = "ENDPOINT";
     private static final String BRANCH = "BRANCH";
+    private static final long LATE_START_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
 
     private final FlowRepository flowRepository;
     private final FlowStepRepository flowStepRepository;
@@ -50,10 +70,14 @@ public class FlowServiceImpl implements FlowService {
     private final EnvironmentVariableRepository envVarRepo;
     private final EndpointRepository endpointRepository;
     private final RunRepository runRepository;
-    private final RequestLogRepository requestLogRepository;
-    private final EndpointExecutorServiceFactory endpointExecutorServiceFactory;
+    private final RequestLogWriter requestLogWriter;
+    private final RunJournalStore runJournalStore;
+    private final RunMetricsRegistry runMetricsRegistry;
+    private final FlowCompiler flowCompiler;
     private final ObjectMapper objectMapper;
     private final FlowMapper flowMapper;
+    // The executor @Async would use, resolved by its bean name since the scheduler is an executor too
+    private final AsyncTaskExecutor applicationTaskExecutor;
 
     /* ==================== FLOW CRUD ==================== */
 
@@ -217,6 +241,8 @@ public class FlowServiceImpl implements FlowService {
                             Map.of(STEP_ID, step.getId())
                     );
                 }
+                StepProcessor.parse(step.getPreProcessor());
+                StepProcessor.parse(step.getPostProcessor());
             }
             case BRANCH -> {
                 if (step.getCondition() == null || step.getCondition().isBlank())
@@ -242,15 +268,36 @@ public class FlowServiceImpl implements FlowService {
         });
     }
 
+    // Everything that can reject the request is checked before the run is handed to the executor,
+    // once it is dispatched the client has already been answered
     @Override
-    @Async
     public void runFlow(Long flowId, RunFlowRequestDTO runFlowRequestDTO) {
+        LoadModel loadModel = runFlowRequestDTO.getLoadModel() != null ? runFlowRequestDTO.getLoadModel() : LoadModel.CLOSED_LOOP;
+        if (loadModel == LoadModel.ARRIVAL_RATE
+                && (runFlowRequestDTO.getArrivalRate() == null || runFlowRequestDTO.getArrivalRate() <= 0))
+            throw CommandExceptionBuilder.exception(ErrorCode.BAD_REQUEST,
+                    Map.of(Constants.REASON, "arrivalRate must be greater than 0 for ARRIVAL_RATE runs"));
+
         FlowEntity flowEntity = flowRepository.findById(flowId)
                 .orElseThrow(() -> CommandExceptionBuilder.exception(ErrorCode.FLOW_NOT_FOUND));
 
         ProjectEntity projectEntity = projectRepository.findById(flowEntity.getProjectId())
                 .orElseThrow(() -> CommandExceptionBuilder.exception(ErrorCode.PROJECT_NOT_FOUND));
 
+        FlowPlan plan = flowCompiler.compile(flowId, flowStepRepository.findAllByFlowId(flowId));
+        ResponseCapture capture = ResponseCapture.compile(plan, runFlowRequestDTO.getCapture(), runFlowRequestDTO.getStepCapture());
+
+        applicationTaskExecutor.execute(() -> {
+            try {
+                executeRun(flowId, plan, capture, projectEntity, loadModel, runFlowRequestDTO);
+            } catch (Exception e) {
+                log.error("Run of flow {} failed: {}", flowId, e.getMessage(), e);
+            }
+        });
+    }
+
+    private void executeRun(Long flowId, FlowPlan plan, ResponseCapture capture, ProjectEntity projectEntity,
+                            LoadModel loadModel, RunFlowRequestDTO runFlowRequestDTO) {
         Map<String, Object> environment = envVarRepo
                 .findAllByEnvironmentIdAndIsActiveTrue(projectEntity.getEnvironmentId())
                 .stream()
@@ -262,34 +309,72 @@ public class FlowServiceImpl implements FlowService {
                 .threads(runFlowRequestDTO.getThreads())
                 .duration(runFlowRequestDTO.getTotalDuration())
                 .rampUpDuration(runFlowRequestDTO.getRampUpDuration())
+                .loadModel(loadModel.name())
+                .arrivalRate(runFlowRequestDTO.getArrivalRate())
                 .build();
         RunEntity savedRun = runRepository.save(runEntity);
 
         environment.putAll(runFlowRequestDTO.getVariables());
 
-        List<FlowStepEntity> steps = flowStepRepository.findAllByFlowId(flowId);
-        Map<String, FlowStepEntity> stepMap = steps.stream()
-                .collect(Collectors.toMap(FlowStepEntity::getId, s -> s));
-
-        Map<Long, EndpointEntity> endpointMap = steps.stream()
-                .map(FlowStepEntity::getEndpointId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .map(id -> endpointRepository.findById(id).orElse(null))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(EndpointEntity::getId, e -> e));
+        RunMetrics metrics = runMetricsRegistry.register(savedRun.getId(), plan);
+        boolean completed = false;
+        try {
+            generateLoad(savedRun, plan, capture, metrics, environment, loadModel, runFlowRequestDTO);
+            completed = true;
+        } finally {
+            // Whatever failed, the run leaves RUNNING and its shard is sealed
+            requestLogWriter.flush();
+            recordPayloadUsage(savedRun);
+            savedRun.setStatus(completed ? RunStatus.COMPLETED.name() : RunStatus.FAILED.name());
+            runRepository.save(savedRun);
+        }
+        logBranchCosts(savedRun.getId(), plan);
+    }
 
-        sortSteps(steps);
+    private void generateLoad(RunEntity savedRun, FlowPlan plan, ResponseCapture capture, RunMetrics metrics,
+                              Map<String, Object> environment, LoadModel loadModel, RunFlowRequestDTO runFlowRequestDTO) {
+        try (RunJournalWriter journal = runJournalStore.create(savedRun.getId())) {
+            RunContext run = RunContext.builder()
+                    .runId(savedRun.getId())
+                    .journal(journal)
+                    .metrics(metrics)
+                    .capture(capture)
+                    .build();
+            if (loadModel == LoadModel.ARRIVAL_RATE)
+                executeFlowWithArrivalRate(savedRun, run, plan, environment, runFlowRequestDTO);
+            else if (runFlowRequestDTO.getThreadMode() == ThreadMode.ASYNC)
+                executeFlowAsync(run, plan, environment, runFlowRequestDTO);
+            else
+                executeFlowWithThreads(run, plan, environment, runFlowRequestDTO);
+        } catch (IOException e) {
+            // Samples lost with the journal would leave a run that looks complete, so it has to fail
+            throw new UncheckedIOException("Journal of run " + savedRun.getId() + " failed", e);
+        } finally {
+            runMetricsRegistry.complete(savedRun);
+        }
+    }
 
-        executeFlowWithThreads(savedRun.getId(), stepMap, endpointMap, environment, runFlowRequestDTO);
+    private void recordPayloadUsage(RunEntity run) {
+        PayloadUsage usage = requestLogWriter.seal(run.getId());
+        run.setPayloadBytes(usage.getRawBytes());
+        run.setStoredPayloadBytes(usage.getStoredBytes());
+        if (usage.getStoredBytes() > 0)
+            log.info("Run {} payloads: {} bytes stored as {} bytes, ratio {}", run.getId(), usage.getRawBytes(),
+                    usage.getStoredBytes(), String.format("%.2f", (double) usage.getRawBytes() / usage.getStoredBytes()));
+    }
 
-        savedRun.setStatus(RunStatus.COMPLETED.name());
-        runRepository.save(savedRun);
+    private void logBranchCosts(Long runId, FlowPlan plan) {
+        for (CompiledStep step : plan.getSteps()) {
+            if (step.getCondition() == null) continue;
+            CompiledCondition condition = step.getCondition();
+            log.info("Run {} branch {} '{}': {} evaluations, avg {} ns, {} failures, compilable={}",
+                    runId, step.getId(), condition.getSource(), condition.getEvaluations(),
+                    condition.getAverageNanos(), condition.getFailures(), condition.isCompilable());
+        }
     }
 
-    private void executeFlowWithThreads(Long runId,
-                                        Map<String, FlowStepEntity> stepMap,
-                                        Map<Long, EndpointEntity> endpointMap,
+    private void executeFlowWithThreads(RunContext run,
+                                        FlowPlan plan,
                                         Map<String, Object> baseEnvironment,
                                         RunFlowRequestDTO config) {
 
@@ -297,12 +382,13 @@ public class FlowServiceImpl implements FlowService {
         int totalDuration = config.getTotalDuration();
         int rampUpDuration = config.getRampUpDuration();
 
-        long threadStartDelay = (rampUpDuration * 1000L) / threads;
+        long threadStartDelayNanos = TimeUnit.SECONDS.toNanos(rampUpDuration) / threads;
+        long pacingNanos = config.getPacingMs() != null ? TimeUnit.MILLISECONDS.toNanos(config.getPacingMs()) : 0;
         AtomicBoolean stopSignal = new AtomicBoolean(false);
         long testStartTime = System.currentTimeMillis();
         long testEndTime = testStartTime + (totalDuration * 1000L);
 
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ExecutorService executor = createVirtualUserExecutor(config.getThreadMode(), threads);
         ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
 
         timeoutScheduler.schedule(() -> {
@@ -314,16 +400,26 @@ public class FlowServiceImpl implements FlowService {
         List<Future<?>> futures = new ArrayList<>();
         for (int i = 0; i < threads; i++) {
             final int threadIndex = i;
-            final long startDelay = i * threadStartDelay;
+            final long startDelayNanos = i * threadStartDelayNanos;
 
             Future<?> future = executor.submit(() -> {
+                boolean started = false;
                 try {
-                    if (startDelay > 0) Thread.sleep(startDelay);
+                    if (startDelayNanos > 0) TimeUnit.NANOSECONDS.sleep(startDelayNanos);
                     log.info("Thread {} started", threadIndex);
-                    FlowThreadContext context = createThreadContext(threadIndex, baseEnvironment, runId);
+                    FlowThreadContext context = createThreadContext(threadIndex, baseEnvironment, run);
+                    run.getMetrics().userStarted();
+                    started = true;
+                    long intendedStart = System.nanoTime();
                     while (!stopSignal.get() && System.currentTimeMillis() < testEndTime) {
+                        if (pacingNanos > 0) {
+                            long wait = intendedStart - System.nanoTime();
+                            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+                            context.setIterationStartLagNanos(Math.max(0, System.nanoTime() - intendedStart));
+                            intendedStart += pacingNanos;
+                        }
                         try {
-                            executeFlowIteration(stepMap, endpointMap, context, stopSignal, testEndTime);
+                            executeFlowIteration(plan, context, stopSignal, testEndTime);
                         } catch (Exception e) {
                             log.error("Thread {} iteration {} error: {}", threadIndex, context.getIterationCount(), e.getMessage(), e);
                         }
@@ -334,6 +430,8 @@ public class FlowServiceImpl implements FlowService {
                     Thread.currentThread().interrupt();
                 } catch (Exception e) {
                     log.error("Thread {} fatal error: {}", threadIndex, e.getMessage(), e);
+                } finally {
+                    if (started) run.getMetrics().userFinished();
                 }
             });
 
@@ -350,111 +448,451 @@ public class FlowServiceImpl implements FlowService {
         timeoutScheduler.shutdown();
     }
 
-    private FlowThreadContext createThreadContext(int threadIndex, Map<String, Object> baseEnvironment, Long runId) {
+    // Virtual users are continuations rather than threads: each step resumes when its request completes
+    private void executeFlowAsync(RunContext run,
+                                  FlowPlan plan,
+                                  Map<String, Object> baseEnvironment,
+                                  RunFlowRequestDTO config) {
+
+        int users = config.getThreads();
+        int totalDuration = config.getTotalDuration();
+        long userStartDelayNanos = TimeUnit.SECONDS.toNanos(config.getRampUpDuration()) / users;
+        long pacingNanos = config.getPacingMs() != null ? TimeUnit.MILLISECONDS.toNanos(config.getPacingMs()) : 0;
+        AtomicBoolean stopSignal = new AtomicBoolean(false);
+        long testEndTime = System.currentTimeMillis() + (totalDuration * 1000L);
+
+        ExecutorService executor = createVirtualUserExecutor(ThreadMode.ASYNC, users);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        FlowThreadContext[] contexts = new FlowThreadContext[users];
+        List<CompletableFuture<Void>> finished = new ArrayList<>(users);
+
+        for (int i = 0; i < users; i++) {
+            final int userIndex = i;
+            CompletableFuture<Void> userFinished = new CompletableFuture<>();
+            finished.add(userFinished);
+            scheduler.schedule(() -> {
+                if (stopSignal.get()) {
+                    userFinished.complete(null);
+                    return;
+                }
+                log.info("Virtual user {} started", userIndex);
+                FlowThreadContext context = createThreadContext(userIndex, baseEnvironment, run);
+                context.setNextIterationStartNanos(System.nanoTime());
+                contexts[userIndex] = context;
+                run.getMetrics().userStarted();
+                executor.execute(() -> runAsyncUser(plan, context, stopSignal, testEndTime, pacingNanos, executor, scheduler,
+                        userFinished));
+            }, i * userStartDelayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        scheduler.schedule(() -> {
+            log.info("Total duration reached, signaling all virtual users to stop");
+            stopSignal.set(true);
+            for (int i = 0; i < users; i++) {
+                if (contexts[i] == null) finished.get(i).complete(null);
+                else cancelPendingRequest(contexts[i]);
+            }
+        }, totalDuration, TimeUnit.SECONDS);
+
+        try {
+            CompletableFuture.allOf(finished.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Virtual user error: {}", e.getMessage());
+        } finally {
+            scheduler.shutdownNow();
+            executor.shutdown();
+        }
+    }
+
+    private void runAsyncUser(FlowPlan plan,
+                              FlowThreadContext context,
+                              AtomicBoolean stopSignal,
+                              long testEndTime,
+                              long pacingNanos,
+                              Executor executor,
+                              ScheduledExecutorService scheduler,
+                              CompletableFuture<Void> finished) {
+        if (stopSignal.get() || System.currentTimeMillis() >= testEndTime) {
+            finishAsyncUser(context, finished);
+            return;
+        }
+        if (pacingNanos > 0) {
+            // A paced user waits for its intended start on the scheduler instead of holding a thread
+            long wait = context.getNextIterationStartNanos() - System.nanoTime();
+            if (wait > 0) {
+                if (System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(wait) >= testEndTime) {
+                    finishAsyncUser(context, finished);
+                    return;
+                }
+                scheduler.schedule(() -> executor.execute(() -> runAsyncUser(plan, context, stopSignal, testEndTime,
+                        pacingNanos, executor, scheduler, finished)), wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            context.setIterationStartLagNanos(-wait);
+            context.setNextIterationStartNanos(context.getNextIterationStartNanos() + pacingNanos);
+        }
+        executeFlowIterationAsync(plan, context, stopSignal, testEndTime, executor)
+                .whenCompleteAsync((ignored, error) -> runAsyncUser(plan, context, stopSignal, testEndTime, pacingNanos,
+                        executor, scheduler, finished), executor);
+    }
+
+    private void finishAsyncUser(FlowThreadContext context, CompletableFuture<Void> finished) {
+        log.info("Virtual user {} completed with {} iterations", context.getThreadId(), context.getIterationCount());
+        context.getMetrics().userFinished();
+        finished.complete(null);
+    }
+
+    private void cancelPendingRequest(FlowThreadContext context) {
+        CompletableFuture<?> pending = context.getPendingRequest();
+        if (pending != null) pending.cancel(true);
+    }
+
+    private void executeFlowWithArrivalRate(RunEntity runEntity,
+                                            RunContext run,
+                                            FlowPlan plan,
+                                            Map<String, Object> baseEnvironment,
+                                            RunFlowRequestDTO config) {
+
+        int maxWorkers = config.getThreads();
+        int totalDuration = config.getTotalDuration();
+        ArrivalSchedule schedule = new ArrivalSchedule(
+                config.getArrivalPattern(),
+                config.getStartArrivalRate() != null ? config.getStartArrivalRate() : 0,
+                config.getArrivalRate(),
+                config.getRampUpDuration());
+
+        boolean async = config.getThreadMode() == ThreadMode.ASYNC;
+        List<FlowThreadContext> contexts = new ArrayList<>(maxWorkers);
+        for (int i = 0; i < maxWorkers; i++)
+            contexts.add(createThreadContext(i, baseEnvironment, run));
+        ArrayBlockingQueue<FlowThreadContext> idleContexts = new ArrayBlockingQueue<>(maxWorkers, false, contexts);
+
+        AtomicBoolean stopSignal = new AtomicBoolean(false);
+        AtomicLong lateStarts = new AtomicLong();
+        long droppedStarts = 0;
+        long scheduledStarts = 0;
+        long testStartNanos = System.nanoTime();
+        long testEndNanos = testStartNanos + TimeUnit.SECONDS.toNanos(totalDuration);
+        long testEndTime = System.currentTimeMillis() + (totalDuration * 1000L);
+
+        ExecutorService executor = createVirtualUserExecutor(config.getThreadMode(), maxWorkers);
+        ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+
+        timeoutScheduler.schedule(() -> {
+            log.info("Total duration reached, signaling all workers to stop");
+            stopSignal.set(true);
+            if (async) contexts.forEach(this::cancelPendingRequest);
+            else executor.shutdownNow();
+        }, totalDuration, TimeUnit.SECONDS);
+
+        log.info("Scheduling {} {} iterations/s on at most {} workers",
+                config.getArrivalPattern(), config.getArrivalRate(), maxWorkers);
+
+        try {
+            while (!stopSignal.get()) {
+                long intendedStart = testStartNanos + schedule.nextOffsetNanos();
+                if (intendedStart >= testEndNanos) break;
+
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+
+                FlowThreadContext context = idleContexts.poll();
+                if (context == null) {
+                    droppedStarts++;
+                    continue;
+                }
+
+                scheduledStarts++;
+                if (async) {
+                    long startLag = Math.max(0, System.nanoTime() - intendedStart);
+                    if (startLag > LATE_START_THRESHOLD_NANOS)
+                        lateStarts.incrementAndGet();
+                    context.setIterationStartLagNanos(startLag);
+                    run.getMetrics().userStarted();
+                    executeFlowIterationAsync(plan, context, stopSignal, testEndTime, executor)
+                            .whenComplete((ignored, error) -> {
+                                run.getMetrics().userFinished();
+                                idleContexts.offer(context);
+                            });
+                    continue;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            long startLag = Math.max(0, System.nanoTime() - intendedStart);
+                            if (startLag > LATE_START_THRESHOLD_NANOS)
+                                lateStarts.incrementAndGet();
+                            context.setIterationStartLagNanos(startLag);
+                            run.getMetrics().userStarted();
+                            executeFlowIteration(plan, context, stopSignal, testEndTime);
+                        } catch (Exception e) {
+                            log.error("Worker {} iteration {} error: {}", context.getThreadId(), context.getIterationCount(), e.getMessage(), e);
+                        } finally {
+                            run.getMetrics().userFinished();
+                            idleContexts.offer(context);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+
+            // Async iterations resume on the executor, so it stays open until every context is back
+            while (async && idleContexts.size() < maxWorkers) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.debug("Waiting for in-flight iterations to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } finally {
+            timeoutScheduler.shutdownNow();
+        }
+
+        runEntity.setDroppedIterations(droppedStarts);
+        runEntity.setLateIterations(lateStarts.get());
+        log.info("Arrival-rate run {} finished: {} iterations started, {} late, {} dropped",
+                runEntity.getId(), scheduledStarts, lateStarts.get(), droppedStarts);
+    }
+
+    private ExecutorService createVirtualUserExecutor(ThreadMode threadMode, int threads) {
+        if (threadMode == ThreadMode.ASYNC) {
+            log.info("Running {} virtual users as async continuations", threads);
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vu-async-", 0).factory());
+        }
+        if (threadMode == ThreadMode.VIRTUAL) {
+            log.info("Running {} virtual users on virtual threads", threads);
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vu-", 0).factory());
+        }
+        log.info("Running {} virtual users on platform threads", threads);
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    private FlowThreadContext createThreadContext(int threadIndex, Map<String, Object> baseEnvironment, RunContext run) {
         FlowThreadContext context = new FlowThreadContext();
         context.setThreadId(threadIndex);
         context.setCookieJar(new InMemoryCookieJar());
         context.setVariables(new ConcurrentHashMap<>(baseEnvironment));
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        evaluationContext.setVariable("variables", context.getVariables());
+        context.setEvaluationContext(evaluationContext);
         context.setIterationCount(0);
-        context.setRunId(runId);
+        context.setRunId(run.getRunId());
+        context.setJournal(run.getJournal());
+        context.setMetrics(run.getMetrics());
+        context.setCapture(run.getCapture());
         return context;
     }
 
-    private void executeFlowIteration(Map<String, FlowStepEntity> stepMap,
-                                      Map<Long, EndpointEntity> endpointMap,
+    private void executeFlowIteration(FlowPlan plan,
                                       FlowThreadContext context,
                                       AtomicBoolean stopSignal,
                                       long testEndTime) {
 
         context.incrementIteration();
-        FlowStepEntity currentStep = FlowUtils.findStartNode(stepMap);
-        if (currentStep == null) { log.warn("No START node found"); return; }
+        CompiledStep[] steps = plan.getSteps();
+        int current = plan.getEntryIndex();
 
-        String nextStepId = currentStep.getNextIfTrue();
-        currentStep = stepMap.get(nextStepId);
-
-        while (currentStep != null && !stopSignal.get() && System.currentTimeMillis() < testEndTime) {
+        while (current != CompiledStep.END && !stopSignal.get() && System.currentTimeMillis() < testEndTime) {
+            CompiledStep step = steps[current];
             try {
-                String stepType = currentStep.getType().toUpperCase();
-                switch (stepType) {
+                switch (step.getType()) {
                     case ENDPOINT -> {
-                        ExecuteEndpointResponseDTO result = executeEndpointStep(currentStep, endpointMap, context);
-                        nextStepId = result.isSuccess() && currentStep.getNextIfTrue() != null ? currentStep.getNextIfTrue() : currentStep.getNextIfFalse();
+                        ExecuteEndpointResponseDTO result = executeEndpointStep(step, context);
+                        current = result.isSuccess() && step.getNextIfTrue() != CompiledStep.END ? step.getNextIfTrue() : step.getNextIfFalse();
                     }
                     case BRANCH -> {
-                        boolean conditionResult = evaluateCondition(currentStep.getCondition(), context);
-                        nextStepId = conditionResult ? currentStep.getNextIfTrue() : currentStep.getNextIfFalse();
-                        log.debug("Branch '{}' evaluated {} for thread {}", currentStep.getCondition(), conditionResult, context.getThreadId());
+                        boolean conditionResult = step.getCondition().evaluate(context.getEvaluationContext());
+                        current = conditionResult ? step.getNextIfTrue() : step.getNextIfFalse();
+                        log.debug("Branch '{}' evaluated {} for thread {}", step.getCondition().getSource(), conditionResult, context.getThreadId());
                     }
-                    default -> log.error("Unknown step type: {}", stepType);
+                    case START -> current = step.getNextIfTrue();
                 }
-                currentStep = nextStepId != null ? stepMap.get(nextStepId) : null;
             } catch (Exception e) {
                 break;
             }
         }
     }
 
-    private ExecuteEndpointResponseDTO executeEndpointStep(FlowStepEntity step, Map<Long, EndpointEntity> endpointMap, FlowThreadContext context) {
-        if (step.getPreProcessor() != null && !step.getPreProcessor().isBlank())
-            executeProcessor(step.getPreProcessor(), context, null, "pre-processor");
+    private CompletableFuture<Void> executeFlowIterationAsync(FlowPlan plan,
+                                                              FlowThreadContext context,
+                                                              AtomicBoolean stopSignal,
+                                                              long testEndTime,
+                                                              Executor executor) {
+        context.incrementIteration();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        executor.execute(() -> continueIterationAsync(plan, plan.getEntryIndex(), context, stopSignal, testEndTime, executor, done));
+        return done;
+    }
 
-        EndpointEntity endpointEntity = endpointMap.get(step.getEndpointId());
-        var executorService = endpointExecutorServiceFactory.getExecutor(endpointEntity.getType());
+    // Runs steps until the next request is in flight, its completion schedules the rest of the iteration
+    private void continueIterationAsync(FlowPlan plan,
+                                        int index,
+                                        FlowThreadContext context,
+                                        AtomicBoolean stopSignal,
+                                        long testEndTime,
+                                        Executor executor,
+                                        CompletableFuture<Void> done) {
+        CompiledStep[] steps = plan.getSteps();
+        int current = index;
 
-        long startTime = System.currentTimeMillis();
-        ExecuteEndpointResponseDTO result;
         try {
-            result = executorService.execute(endpointEntity, context.getVariables(), context.getCookieJar());
+            while (current != CompiledStep.END && !stopSignal.get() && System.currentTimeMillis() < testEndTime) {
+                CompiledStep step = steps[current];
+                switch (step.getType()) {
+                    case ENDPOINT -> {
+                        runPreProcessor(step, context);
+                        context.getMetrics().requestStarted(step.getIndex());
+                        long startTime = System.nanoTime();
+                        CompletableFuture<ExecuteEndpointResponseDTO> request;
+                        try {
+                            request = step.getExecutor().executeAsync(context.getVariables(), context.getCookieJar());
+                        } catch (Exception e) {
+                            request = CompletableFuture.completedFuture(failedResult(e, startTime));
+                        }
+                        context.setPendingRequest(request);
+                        request.whenCompleteAsync((response, error) -> {
+                            context.setPendingRequest(null);
+                            if (error instanceof CancellationException) {
+                                context.getMetrics().requestCancelled(step.getIndex());
+                                done.complete(null);
+                                return;
+                            }
+                            try {
+                                ExecuteEndpointResponseDTO result = error != null ? failedResult(error, startTime) : response;
+                                completeEndpointStep(step, context, result);
+                                int next = result.isSuccess() && step.getNextIfTrue() != CompiledStep.END ? step.getNextIfTrue() : step.getNextIfFalse();
+                                continueIterationAsync(plan, next, context, stopSignal, testEndTime, executor, done);
+                            } catch (Exception e) {
+                                done.complete(null);
+                            }
+                        }, executor);
+                        return;
+                    }
+                    case BRANCH -> {
+                        boolean conditionResult = step.getCondition().evaluate(context.getEvaluationContext());
+                        current = conditionResult ? step.getNextIfTrue() : step.getNextIfFalse();
+                        log.debug("Branch '{}' evaluated {} for thread {}", step.getCondition().getSource(), conditionResult, context.getThreadId());
+                    }
+                    case START -> current = step.getNextIfTrue();
+                }
+            }
         } catch (Exception e) {
-            Map<String, Object> data = Map.of("error", e.getMessage());
-            result = ExecuteEndpointResponseDTO.builder()
-                    .responseTimeMs(System.currentTimeMillis() - startTime)
-                    .success(false)
-                    .statusCode(HttpStatus.INTERNAL_SERVER_ERROR.value())
-                    .data(data)
-                    .rawResponse(data.toString())
-                    .build();
+            log.debug("Virtual user {} iteration {} stopped: {}", context.getThreadId(), context.getIterationCount(), e.getMessage());
         }
+        done.complete(null);
+    }
 
-        logStepResult(context.getRunId(), endpointEntity, result);
+    private ExecuteEndpointResponseDTO executeEndpointStep(CompiledStep step, FlowThreadContext context) {
+        runPreProcessor(step, context);
 
-        if (step.getPostProcessor() != null && !step.getPostProcessor().isBlank())
-            executeProcessor(step.getPostProcessor(), context, result.getData(), "post-processor");
+        context.getMetrics().requestStarted(step.getIndex());
+        long startTime = System.nanoTime();
+        ExecuteEndpointResponseDTO result;
+        try {
+            result = step.getExecutor().execute(context.getVariables(), context.getCookieJar());
+        } catch (Exception e) {
+            result = failedResult(e, startTime);
+        }
 
+        completeEndpointStep(step, context, result);
         return result;
     }
 
-    private void executeProcessor(String processorJson, FlowThreadContext context, Object responseData, String type) {
-        try {
-            Map<String, Object> processor = objectMapper.readValue(processorJson, new TypeReference<>() {});
-            FlowUtils.process(processor, context.getVariables(), responseData);
-        } catch (Exception e) {
-            log.error("Error executing {} for thread {}: {}", type, context.getThreadId(), e.getMessage(), e);
-        }
+    private void runPreProcessor(CompiledStep step, FlowThreadContext context) {
+        if (step.getPreProcessor() != null)
+            step.getPreProcessor().apply(context.getVariables(), null);
     }
 
-    private boolean evaluateCondition(String condition, FlowThreadContext context) {
-        SpelExpressionParser parser = new SpelExpressionParser();
-        StandardEvaluationContext evalContext = new StandardEvaluationContext();
-        evalContext.setVariable("variables", context.getVariables());
-        try {
-            return Boolean.TRUE.equals(parser.parseExpression(condition).getValue(evalContext, Boolean.class));
-        } catch (Exception e) {
-            log.error("Error evaluating condition '{}': {}", condition, e.getMessage());
-            return false;
-        }
+    private void completeEndpointStep(CompiledStep step, FlowThreadContext context, ExecuteEndpointResponseDTO result) {
+        // Requests of a late iteration were intended to start earlier, the lag is part of their response time
+        long correctedResponseTimeMs = result.getResponseTimeMs()
+                + TimeUnit.NANOSECONDS.toMillis(context.getIterationStartLagNanos());
+        long serviceTimeNanos = result.getResponseTimeNanos() > 0
+                ? result.getResponseTimeNanos()
+                : TimeUnit.MILLISECONDS.toNanos(result.getResponseTimeMs());
+        long correctedNanos = serviceTimeNanos + context.getIterationStartLagNanos();
+        SampleError error = result.isSuccess() ? SampleError.NONE
+                : result.getStatusCode() == 0 ? SampleError.NO_RESPONSE
+                : SampleError.HTTP_STATUS;
+        context.getMetrics().record(step.getIndex(), correctedNanos, serviceTimeNanos, result.getStatusCode(), error);
+
+        ResponseCapture capture = context.getCapture();
+        boolean captured = capture.shouldCapture(step.getIndex(), error != SampleError.NONE);
+        byte[] capturedBody = captured ? capture.captureBody(step.getIndex(), result) : null;
+        Long sampleId = journalStepResult(step, context, result, correctedNanos, serviceTimeNanos, error, capturedBody);
+        if (captured) logStepResult(context, step, result, correctedResponseTimeMs, capturedBody, sampleId);
+
+        if (step.getPostProcessor() != null)
+            step.getPostProcessor().apply(context.getVariables(), result.getData());
+    }
+
+    // The journal holds every sample, its record index is the sample id
+    private Long journalStepResult(CompiledStep step,
+                                   FlowThreadContext context,
+                                   ExecuteEndpointResponseDTO result,
+                                   long correctedNanos,
+                                   long serviceTimeNanos,
+                                   SampleError error,
+                                   byte[] capturedBody) {
+        RunJournalWriter journal = context.getJournal();
+        if (journal == null) return null;
+
+        byte[] body = journal.isStoringBodies() ? capturedBody : null;
+
+        long index = journal.append(System.currentTimeMillis(),
+                step.getEndpoint().getId(),
+                step.getIndex(),
+                result.getStatusCode(),
+                correctedNanos,
+                serviceTimeNanos,
+                result.getResponseSize(),
+                error,
+                body);
+        return index >= 0 ? index + 1 : null;
+    }
+
+    // The request never got a response, status 0 makes it count as NO_RESPONSE rather than as a server error
+    private ExecuteEndpointResponseDTO failedResult(Throwable error, long startTime) {
+        Map<String, Object> data = Map.of("error", String.valueOf(error.getMessage()));
+        long elapsedNanos = System.nanoTime() - startTime;
+        return ExecuteEndpointResponseDTO.builder()
+                .responseTimeMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .responseTimeNanos(elapsedNanos)
+                .success(false)
+                .statusCode(0)
+                .data(data)
+                .rawResponse(data.toString())
+                .build();
     }
 
-    private void logStepResult(Long runId, EndpointEntity request, ExecuteEndpointResponseDTO response) {
-        RequestLogEntity logEntity = RequestLogEntity.builder()
-                .runId(runId)
-                .endpointId(request.getId())
+    // Only captured samples are logged, under the id of their journal record so their payloads can be matched to it
+    private void logStepResult(FlowThreadContext context,
+                               CompiledStep step,
+                               ExecuteEndpointResponseDTO response,
+                               long correctedResponseTimeMs,
+                               byte[] capturedBody,
+                               Long sampleId) {
+        Charset charset = response.getCharset() != null ? response.getCharset() : StandardCharsets.UTF_8;
+        // Payloads are stored as UTF-8, only bodies in another charset are transcoded
+        byte[] responseBody = capturedBody != null && !StandardCharsets.UTF_8.equals(charset)
+                ? new String(capturedBody, charset).getBytes(StandardCharsets.UTF_8)
+                : capturedBody;
+        CapturedSample sample = CapturedSample.builder()
+                .id(sampleId)
+                .runId(context.getRunId())
+                .endpointId(step.getEndpoint().getId())
                 .statusCode(response.getStatusCode())
-                .responseTime(response.getResponseTimeMs())
-                .request(request.toString())
-                .response(response.getRawResponse())
+                .responseTime(correctedResponseTimeMs)
+                .serviceTime(response.getResponseTimeMs())
+                .request(context.getCapture().captureRequest(step.getIndex()))
+                .response(responseBody)
                 .build();
-        requestLogRepository.save(logEntity);
+        requestLogWriter.submit(sample);
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package dev.zeann3th.stresspilot.service.flow.plan;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j(topic = "[Flow Condition]")
+public class CompiledCondition {
+    // MIXED compiles an expression to bytecode once it has been interpreted, and falls back to the interpreter if it cannot
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, CompiledCondition.class.getClassLoader()));
+
+    @Getter
+    private final String source;
+    private final Expression expression;
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private CompiledCondition(String source, Expression expression) {
+        this.source = source;
+        this.expression = expression;
+    }
+
+    // Throws ParseException, the compiler turns it into a configuration error
+    public static CompiledCondition compile(String source) {
+        return new CompiledCondition(source, PARSER.parseExpression(source));
+    }
+
+    public boolean evaluate(EvaluationContext context) {
+        long start = System.nanoTime();
+        try {
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        } catch (Exception e) {
+            failures.increment();
+            log.error("Error evaluating condition '{}': {}", source, e.getMessage());
+            return false;
+        } finally {
+            evaluationNanos.add(System.nanoTime() - start);
+            evaluations.increment();
+        }
+    }
+
+    // Read only, MIXED mode compiles the expression itself once its AST reports it compilable after interpretation
+    public boolean isCompilable() {
+        return expression instanceof SpelExpression spel && spel.getAST().isCompilable();
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getAverageNanos() {
+        long count = evaluations.sum();
+        return count == 0 ? 0 : evaluationNanos.sum() / count;
+    }
+}
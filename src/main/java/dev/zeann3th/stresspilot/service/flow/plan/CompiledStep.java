@@ -0,0 +1,29 @@
+package dev.zeann3th.stresspilot.service.flow.plan;
+
+import dev.zeann3th.stresspilot.common.enums.FlowStepType;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import dev.zeann3th.stresspilot.service.executor.PreparedEndpoint;
+import dev.zeann3th.stresspilot.service.flow.processor.StepProcessor;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CompiledStep {
+    public static final int END = -1;
+
+    int index;
+    String id;
+    FlowStepType type;
+    int nextIfTrue;
+    int nextIfFalse;
+
+    // ENDPOINT
+    EndpointEntity endpoint;
+    PreparedEndpoint executor;
+    StepProcessor preProcessor;
+    StepProcessor postProcessor;
+
+    // BRANCH
+    CompiledCondition condition;
+}
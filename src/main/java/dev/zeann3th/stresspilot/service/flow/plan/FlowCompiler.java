@@ -0,0 +1,137 @@
+package dev.zeann3th.stresspilot.service.flow.plan;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.enums.ErrorCode;
+import dev.zeann3th.stresspilot.common.enums.FlowStepType;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import dev.zeann3th.stresspilot.entity.FlowStepEntity;
+import dev.zeann3th.stresspilot.exception.CommandException;
+import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
+import dev.zeann3th.stresspilot.repository.EndpointRepository;
+import dev.zeann3th.stresspilot.service.executor.EndpointExecutorServiceFactory;
+import dev.zeann3th.stresspilot.service.executor.PreparedEndpoint;
+import dev.zeann3th.stresspilot.service.flow.processor.StepProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.expression.ParseException;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j(topic = "[Flow Compiler]")
+@Component
+@RequiredArgsConstructor
+public class FlowCompiler {
+    private final EndpointRepository endpointRepository;
+    private final EndpointExecutorServiceFactory endpointExecutorServiceFactory;
+    private final ObjectMapper objectMapper;
+
+    public FlowPlan compile(Long flowId, List<FlowStepEntity> steps) {
+        Map<String, Integer> indexById = new HashMap<>();
+        FlowStepType[] types = new FlowStepType[steps.size()];
+        int startIndex = CompiledStep.END;
+
+        for (int i = 0; i < steps.size(); i++) {
+            FlowStepEntity step = steps.get(i);
+            indexById.put(step.getId(), i);
+            types[i] = parseType(step);
+            if (types[i] == FlowStepType.START) {
+                if (startIndex != CompiledStep.END)
+                    throw configurationError("Flow must contain one START node");
+                startIndex = i;
+            }
+        }
+        if (startIndex == CompiledStep.END)
+            throw configurationError("Flow must contain one START node (none found)");
+
+        Set<Long> endpointIds = steps.stream()
+                .map(FlowStepEntity::getEndpointId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, EndpointEntity> endpoints = endpointRepository.findAllById(endpointIds).stream()
+                .collect(Collectors.toMap(EndpointEntity::getId, Function.identity()));
+
+        CompiledStep[] compiled = new CompiledStep[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            FlowStepEntity step = steps.get(i);
+            CompiledStep.CompiledStepBuilder builder = CompiledStep.builder()
+                    .index(i)
+                    .id(step.getId())
+                    .type(types[i])
+                    .nextIfTrue(resolveIndex(step.getNextIfTrue(), indexById))
+                    .nextIfFalse(resolveIndex(step.getNextIfFalse(), indexById));
+
+            if (types[i] == FlowStepType.BRANCH)
+                builder.condition(compileCondition(step));
+
+            if (types[i] == FlowStepType.ENDPOINT) {
+                EndpointEntity endpoint = endpoints.get(step.getEndpointId());
+                if (endpoint == null)
+                    throw CommandExceptionBuilder.exception(ErrorCode.ENDPOINT_NOT_FOUND, Map.of("stepId", step.getId()));
+                builder.endpoint(endpoint)
+                        .executor(prepareEndpoint(endpoint, step.getId()))
+                        .preProcessor(parseProcessor(step.getPreProcessor(), step.getId()))
+                        .postProcessor(parseProcessor(step.getPostProcessor(), step.getId()));
+            }
+            compiled[i] = builder.build();
+        }
+
+        int entryIndex = compiled[startIndex].getNextIfTrue();
+        log.debug("Compiled flow {} into {} steps, entry step {}", flowId, compiled.length, entryIndex);
+        return new FlowPlan(flowId, compiled, entryIndex);
+    }
+
+    private FlowStepType parseType(FlowStepEntity step) {
+        try {
+            return FlowStepType.valueOf(step.getType().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw configurationError("Unknown step type: " + step.getType());
+        }
+    }
+
+    private int resolveIndex(String stepId, Map<String, Integer> indexById) {
+        if (stepId == null) return CompiledStep.END;
+        Integer index = indexById.get(stepId);
+        if (index == null)
+            throw configurationError("Step " + stepId + " does not exist");
+        return index;
+    }
+
+    private PreparedEndpoint prepareEndpoint(EndpointEntity endpoint, String stepId) {
+        try {
+            return endpointExecutorServiceFactory.getExecutor(endpoint.getType()).prepare(endpoint);
+        } catch (UncheckedIOException e) {
+            throw configurationError("Invalid request of endpoint " + endpoint.getId() + " on step " + stepId);
+        }
+    }
+
+    private StepProcessor parseProcessor(String json, String stepId) {
+        if (json == null || json.isBlank()) return null;
+        Map<String, Object> definition;
+        try {
+            definition = objectMapper.readValue(json, new TypeReference<>() {});
+        } catch (Exception e) {
+            throw configurationError("Invalid processor on step " + stepId);
+        }
+        return StepProcessor.parse(definition);
+    }
+
+    private CompiledCondition compileCondition(FlowStepEntity step) {
+        if (step.getCondition() == null || step.getCondition().isBlank())
+            throw configurationError("Branch step " + step.getId() + " has no condition");
+        try {
+            return CompiledCondition.compile(step.getCondition());
+        } catch (ParseException e) {
+            throw configurationError("Invalid condition on step " + step.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private CommandException configurationError(String reason) {
+        return CommandExceptionBuilder.exception(ErrorCode.FLOW_CONFIGURATION_ERROR, Map.of(Constants.REASON, reason));
+    }
+}
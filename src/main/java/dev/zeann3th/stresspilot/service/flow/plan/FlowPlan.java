@@ -0,0 +1,16 @@
+package dev.zeann3th.stresspilot.service.flow.plan;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class FlowPlan {
+    private final Long flowId;
+    private final CompiledStep[] steps;
+    private final int entryIndex;
+
+    public int size() {
+        return steps.length;
+    }
+}
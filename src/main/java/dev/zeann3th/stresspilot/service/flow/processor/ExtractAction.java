@@ -0,0 +1,22 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class ExtractAction implements ProcessorAction {
+    String[] targetKeys;
+    ExtractPath[] paths;
+
+    @Override
+    public void apply(Map<String, Object> variables, Object response) {
+        if (response == null) return;
+        for (int i = 0; i < targetKeys.length; i++) {
+            Object value = paths[i].resolve(response);
+            if (value != null) {
+                variables.put(targetKeys[i], value);
+            }
+        }
+    }
+}
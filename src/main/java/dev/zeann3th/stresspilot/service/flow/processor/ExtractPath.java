@@ -0,0 +1,58 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class ExtractPath {
+    private static final Pattern BRACKET_SEGMENT = Pattern.compile("\\[(\\w+)\\]");
+    private static final Pattern SEPARATOR = Pattern.compile("\\.");
+
+    private final String source;
+    private final String[] keys;
+    private final int[] indexes;
+
+    private ExtractPath(String source, String[] keys) {
+        this.source = source;
+        this.keys = keys;
+        this.indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = parseIndex(keys[i]);
+        }
+    }
+
+    public static ExtractPath parse(String path) {
+        String normalized = BRACKET_SEGMENT.matcher(path).replaceAll(".$1");
+        return new ExtractPath(path, SEPARATOR.split(normalized));
+    }
+
+    public Object resolve(Object obj) {
+        Object current = obj;
+        for (int i = 0; i < keys.length; i++) {
+            switch (current) {
+                case null -> { return null; }
+                case Map<?, ?> map -> current = map.get(keys[i]);
+                case List<?> list -> {
+                    int index = indexes[i];
+                    if (index < 0 || index >= list.size()) return null;
+                    current = list.get(index);
+                }
+                default -> { return null; }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static int parseIndex(String key) {
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
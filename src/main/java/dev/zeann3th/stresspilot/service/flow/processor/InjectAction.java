@@ -0,0 +1,15 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class InjectAction implements ProcessorAction {
+    Map<String, Object> values;
+
+    @Override
+    public void apply(Map<String, Object> variables, Object response) {
+        variables.putAll(values);
+    }
+}
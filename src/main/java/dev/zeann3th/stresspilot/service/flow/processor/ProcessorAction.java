@@ -0,0 +1,7 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import java.util.Map;
+
+public interface ProcessorAction {
+    void apply(Map<String, Object> variables, Object response) throws InterruptedException;
+}
@@ -0,0 +1,19 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import lombok.Value;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Value
+public class SleepAction implements ProcessorAction {
+    private static final long MIN_JITTER_MS = 500;
+    private static final long MAX_JITTER_MS = 1000;
+
+    long baseDelayMs;
+
+    @Override
+    public void apply(Map<String, Object> variables, Object response) throws InterruptedException {
+        Thread.sleep(baseDelayMs + ThreadLocalRandom.current().nextLong(MIN_JITTER_MS, MAX_JITTER_MS + 1));
+    }
+}
@@ -0,0 +1,87 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.enums.ErrorCode;
+import dev.zeann3th.stresspilot.exception.CommandException;
+import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j(topic = "[Step Processor]")
+public class StepProcessor {
+    public static final String SLEEP = "sleep";
+    public static final String INJECT = "inject";
+    public static final String EXTRACT = "extract";
+
+    private final ProcessorAction[] actions;
+
+    private StepProcessor(ProcessorAction[] actions) {
+        this.actions = actions;
+    }
+
+    // Returns null when the definition has nothing to run, so callers can skip the step entirely
+    public static StepProcessor parse(Map<String, Object> definition) {
+        if (definition == null || definition.isEmpty()) return null;
+
+        List<ProcessorAction> actions = new ArrayList<>();
+        if (definition.get(SLEEP) != null) actions.add(parseSleep(definition.get(SLEEP)));
+        if (definition.get(INJECT) != null) actions.add(parseInject(definition.get(INJECT)));
+        if (definition.get(EXTRACT) != null) actions.add(parseExtract(definition.get(EXTRACT)));
+
+        return actions.isEmpty() ? null : new StepProcessor(actions.toArray(ProcessorAction[]::new));
+    }
+
+    public void apply(Map<String, Object> variables, Object response) {
+        try {
+            for (ProcessorAction action : actions) {
+                action.apply(variables, response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error processing processor: {}", e.getMessage(), e);
+        }
+    }
+
+    private static SleepAction parseSleep(Object value) {
+        try {
+            long delay = Long.parseLong(value.toString());
+            if (delay < 0) throw invalid("sleep cannot be negative");
+            return new SleepAction(delay);
+        } catch (NumberFormatException e) {
+            throw invalid("sleep must be a number of milliseconds");
+        }
+    }
+
+    private static InjectAction parseInject(Object value) {
+        if (!(value instanceof Map<?, ?> map)) throw invalid("inject must be an object");
+        Map<String, Object> values = new LinkedHashMap<>();
+        map.forEach((k, v) -> {
+            if (v != null) values.put(String.valueOf(k), v);
+        });
+        return new InjectAction(Map.copyOf(values));
+    }
+
+    private static ExtractAction parseExtract(Object value) {
+        if (!(value instanceof Map<?, ?> map)) throw invalid("extract must be an object");
+        String[] targetKeys = new String[map.size()];
+        ExtractPath[] paths = new ExtractPath[map.size()];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getValue() instanceof String path) || path.isBlank())
+                throw invalid("extract path for '" + entry.getKey() + "' must be a non-empty string");
+            targetKeys[i] = String.valueOf(entry.getKey());
+            paths[i] = ExtractPath.parse(path);
+            i++;
+        }
+        return new ExtractAction(targetKeys, paths);
+    }
+
+    private static CommandException invalid(String reason) {
+        return CommandExceptionBuilder.exception(ErrorCode.FLOW_CONFIGURATION_ERROR, Map.of(Constants.REASON, reason));
+    }
+}
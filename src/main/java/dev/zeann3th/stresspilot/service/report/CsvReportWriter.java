@@ -0,0 +1,63 @@
+package dev.zeann3th.stresspilot.service.report;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// RFC 4180 output, values are quoted only when they contain a separator, a quote or a line break
+public class CsvReportWriter<T> implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<ReportColumn<T>> columns;
+    private final Writer writer;
+
+    public CsvReportWriter(List<ReportColumn<T>> columns, OutputStream outputStream) {
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public CsvReportWriter<T> writeHeaderLine() throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(',');
+            writeValue(columns.get(i).getKey());
+        }
+        writer.write("\r\n");
+        return this;
+    }
+
+    public void writeDataLine(T obj) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(',');
+            Object value = columns.get(i).getAccessor().apply(obj);
+            if (value != null) writeValue(value.toString());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (!needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') writer.write('"');
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
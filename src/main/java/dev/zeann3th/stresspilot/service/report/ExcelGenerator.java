@@ -1,52 +1,50 @@
 package dev.zeann3th.stresspilot.service.report;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.Getter;
-import lombok.Setter;
-import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
-import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import java.io.IOException;
-import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Date;
+import java.util.List;
 
-@Slf4j(topic = "[Excel Generator]")
+// Rows are written one at a time and flushed by the streaming workbook, only the last WINDOW_SIZE rows stay in memory
 @Getter
-@Setter
 public class ExcelGenerator<T> {
 
     private static final String FONT_NAME = "Times New Roman";
     private static final int HEADER_FONT_SIZE = 14;
     private static final int BODY_FONT_SIZE = 12;
     private static final int WINDOW_SIZE = 100;
-
-    private final List<T> data;
+    // Column widths are measured on the first rows only, autosizing would need every row kept in memory
+    private static final int WIDTH_SAMPLE_ROWS = 200;
+    private static final int MAX_COLUMN_CHARS = 80;
+    private static final int MAX_CELL_CHARS = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+    private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern(DATE_PATTERN);
+
+    private final List<ReportColumn<T>> columns;
     private final SXSSFWorkbook workbook;
+    private final int[] columnChars;
     private SXSSFSheet sheet;
-    private int totalColumns = 0;
+    private CellStyle bodyStyle;
+    private int rowCount = 1;
+    private boolean widthsApplied;
 
-    private final ObjectMapper mapper;
-
-    public ExcelGenerator(List<T> data) {
-        this.data = data;
+    public ExcelGenerator(List<ReportColumn<T>> columns) {
+        this.columns = columns;
+        this.columnChars = new int[columns.size() + 1];
         this.workbook = new SXSSFWorkbook(WINDOW_SIZE);
         this.workbook.setCompressTempFiles(true);
-
-        this.mapper = new ObjectMapper();
-        this.mapper.registerModule(new JavaTimeModule());
     }
 
-    public ExcelGenerator<T> writeHeaderLines(String[] headers) {
+    public ExcelGenerator<T> writeHeaderLines() {
         sheet = workbook.createSheet("Sheet1");
 
         Row row = sheet.createRow(0);
@@ -66,93 +64,86 @@ public class ExcelGenerator<T> {
 
         int col = 0;
         createCell(row, col++, "No", style);
-        for (String header : headers) {
-            createCell(row, col++, header, style);
+        for (ReportColumn<T> column : columns) {
+            createCell(row, col++, column.getHeader(), style);
         }
 
-        this.totalColumns = headers.length + 1;
+        bodyStyle = workbook.createCellStyle();
+        Font bodyFont = workbook.createFont();
+        bodyFont.setFontHeightInPoints((short) BODY_FONT_SIZE);
+        bodyFont.setFontName(FONT_NAME);
+        bodyStyle.setFont(bodyFont);
+        bodyStyle.setBorderBottom(BorderStyle.THIN);
+        bodyStyle.setBorderTop(BorderStyle.THIN);
+        bodyStyle.setBorderRight(BorderStyle.THIN);
+        bodyStyle.setBorderLeft(BorderStyle.THIN);
         return this;
     }
 
-    private void createCell(Row row, int columnIndex, Object value, CellStyle style) {
-        Cell cell = row.createCell(columnIndex);
+    public void writeDataLine(T obj) {
+        Row row = sheet.createRow(rowCount);
+        int colCount = 0;
 
-        switch (value) {
-            case null -> cell.setCellValue("");
-            case Number num -> {
-                long longVal = num.longValue();
-                if (isPossibleEpoch(longVal)) {
-                    LocalDateTime ldt = LocalDateTime.ofInstant(
-                            Instant.ofEpochMilli(longVal), ZoneId.systemDefault());
-                    cell.setCellValue(ldt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-                } else {
-                    cell.setCellValue(num.doubleValue());
-                }
-            }
-            case Boolean bool -> cell.setCellValue(bool);
-            case Date date -> cell.setCellValue(date);
-            case LocalDateTime ldt -> cell.setCellValue(ldt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            default -> cell.setCellValue(value.toString());
+        createCell(row, colCount++, rowCount, bodyStyle);
+        for (ReportColumn<T> column : columns) {
+            createCell(row, colCount++, column.getAccessor().apply(obj), bodyStyle);
         }
 
-        cell.setCellStyle(style);
+        if (rowCount++ == WIDTH_SAMPLE_ROWS) applyColumnWidths();
     }
 
-    private boolean isPossibleEpoch(long value) {
-        long start = 946684800000L;
-        long end = 4102444800000L;
-        return value >= start && value <= end;
+    public void export(HttpServletResponse response) throws IOException {
+        applyColumnWidths();
+        try (ServletOutputStream outputStream = response.getOutputStream()) {
+            workbook.write(outputStream);
+        } finally {
+            workbook.close();
+        }
     }
 
-    public ExcelGenerator<T> writeDataLines(String[] fields) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setFontHeightInPoints((short) BODY_FONT_SIZE);
-        font.setFontName(FONT_NAME);
-        style.setFont(font);
-        style.setBorderBottom(BorderStyle.THIN);
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-
-        int rowCount = 1;
-        for (T obj : data) {
-            Row row = sheet.createRow(rowCount);
-            int colCount = 0;
-
-            createCell(row, colCount++, rowCount, style);
+    private void createCell(Row row, int columnIndex, Object value, CellStyle style) {
+        Cell cell = row.createCell(columnIndex);
 
-            Map<String, Object> map = mapper.convertValue(obj, new TypeReference<>() {});
-            for (String field : fields) {
-                createCell(row, colCount++, map.get(field), style);
+        String text = switch (value) {
+            case null -> {
+                cell.setCellValue("");
+                yield "";
             }
-
-            rowCount++;
-
-            if (rowCount % WINDOW_SIZE == 0) {
-                try {
-                    sheet.flushRows(WINDOW_SIZE / 2);
-                } catch (IOException e) {
-                    log.error("Error flushing rows to disk", e);
-                }
+            case Number num -> {
+                cell.setCellValue(num.doubleValue());
+                yield num.toString();
             }
-        }
+            case Boolean bool -> {
+                cell.setCellValue(bool);
+                yield bool.toString();
+            }
+            case Date date -> {
+                cell.setCellValue(date);
+                yield DATE_PATTERN;
+            }
+            case LocalDateTime ldt -> {
+                String formatted = ldt.format(DATE_FORMAT);
+                cell.setCellValue(formatted);
+                yield formatted;
+            }
+            default -> {
+                String string = value.toString();
+                if (string.length() > MAX_CELL_CHARS) string = string.substring(0, MAX_CELL_CHARS);
+                cell.setCellValue(string);
+                yield string;
+            }
+        };
 
-        return this;
+        if (!widthsApplied) columnChars[columnIndex] = Math.max(columnChars[columnIndex], text.length());
+        cell.setCellStyle(style);
     }
 
-    public void export(HttpServletResponse response) throws IOException {
-        sheet.trackAllColumnsForAutoSizing();
-        for (int col = 0; col < totalColumns; col++) {
-            sheet.autoSizeColumn(col);
-            int width = sheet.getColumnWidth(col);
-            sheet.setColumnWidth(col, Math.min(width + 512, 255 * 256));
-        }
-
-        try (ServletOutputStream outputStream = response.getOutputStream()) {
-            workbook.write(outputStream);
-        } finally {
-            workbook.close();
+    private void applyColumnWidths() {
+        if (widthsApplied) return;
+        widthsApplied = true;
+        for (int col = 0; col < columnChars.length; col++) {
+            int chars = Math.min(columnChars[col], MAX_COLUMN_CHARS) + 2;
+            sheet.setColumnWidth(col, Math.min(chars * 256 + 512, 255 * 256));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package dev.zeann3th.stresspilot.service.report;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// One JSON object per line, written straight to the output stream without building a tree
+public class NdjsonReportWriter<T> implements Closeable {
+    private final List<ReportColumn<T>> columns;
+    private final JsonGenerator generator;
+
+    public NdjsonReportWriter(List<ReportColumn<T>> columns, OutputStream outputStream, JsonFactory jsonFactory) throws IOException {
+        this.columns = columns;
+        this.generator = jsonFactory.createGenerator(outputStream);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    public void writeDataLine(T obj) throws IOException {
+        generator.writeStartObject();
+        for (ReportColumn<T> column : columns) {
+            generator.writeFieldName(column.getKey());
+            switch (column.getAccessor().apply(obj)) {
+                case null -> generator.writeNull();
+                case Long number -> generator.writeNumber(number);
+                case Integer number -> generator.writeNumber(number);
+                case Double number -> generator.writeNumber(number);
+                case Boolean bool -> generator.writeBoolean(bool);
+                case Object value -> generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,12 @@
+package dev.zeann3th.stresspilot.service.report;
+
+import lombok.Value;
+
+import java.util.function.Function;
+
+@Value(staticConstructor = "of")
+public class ReportColumn<T> {
+    String key;
+    String header;
+    Function<T, Object> accessor;
+}
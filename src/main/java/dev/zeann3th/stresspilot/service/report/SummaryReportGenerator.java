@@ -0,0 +1,197 @@
+package dev.zeann3th.stresspilot.service.report;
+
+import dev.zeann3th.stresspilot.dto.run.EndpointSummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.LatencySummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.TimelinePointDTO;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Built from the stored run summary alone, the size of the report does not depend on the number of requests
+public class SummaryReportGenerator {
+
+    private static final String FONT_NAME = "Times New Roman";
+    private static final int HEADER_FONT_SIZE = 14;
+    private static final int BODY_FONT_SIZE = 12;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final RunSummaryDTO summary;
+    private final Workbook workbook = new XSSFWorkbook();
+    private final CellStyle headerStyle;
+    private final CellStyle bodyStyle;
+    private final CellStyle decimalStyle;
+
+    public SummaryReportGenerator(RunSummaryDTO summary) {
+        this.summary = summary;
+
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerFont.setFontHeightInPoints((short) HEADER_FONT_SIZE);
+        headerFont.setFontName(FONT_NAME);
+        this.headerStyle = borderedStyle(headerFont);
+        headerStyle.setFillForegroundColor(IndexedColors.PALE_BLUE.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        Font bodyFont = workbook.createFont();
+        bodyFont.setFontHeightInPoints((short) BODY_FONT_SIZE);
+        bodyFont.setFontName(FONT_NAME);
+        this.bodyStyle = borderedStyle(bodyFont);
+        this.decimalStyle = borderedStyle(bodyFont);
+        decimalStyle.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
+    }
+
+    public SummaryReportGenerator writeOverview() {
+        Sheet sheet = workbook.createSheet("Overview");
+        writeRow(sheet, 0, headerStyle, "Metric", "Value");
+
+        String startedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(summary.getStartedAt()), ZoneId.systemDefault())
+                .format(DATE_FORMAT);
+        Object[][] rows = {
+                {"Run ID", summary.getRunId()},
+                {"Flow ID", summary.getFlowId()},
+                {"Load Model", summary.getLoadModel()},
+                {"Threads", summary.getThreads()},
+                {"Started At", startedAt},
+                {"Duration (s)", summary.getDurationMs() / 1000d},
+                {"Total Requests", summary.getTotalRequests()},
+                {"Total Errors", summary.getTotalErrors()},
+                {"Error Rate (%)", summary.getErrorRate() * 100},
+                {"Average Throughput (req/s)", summary.getAvgRequestsPerSecond()},
+                {"Peak Throughput (req/s)", summary.getPeakRequestsPerSecond()},
+                {"Dropped Iterations", summary.getDroppedIterations()},
+                {"Late Iterations", summary.getLateIterations()},
+        };
+        for (int i = 0; i < rows.length; i++) {
+            writeRow(sheet, i + 1, bodyStyle, rows[i]);
+        }
+        autoSize(sheet, 2);
+        return this;
+    }
+
+    public SummaryReportGenerator writeEndpoints() {
+        Sheet sheet = workbook.createSheet("Endpoints");
+        String[] headers = {"Endpoint ID", "Endpoint", "Requests", "Errors", "Error Rate (%)", "Throughput (req/s)",
+                "Min (ms)", "Mean (ms)", "P50 (ms)", "P90 (ms)", "P99 (ms)", "P99.9 (ms)", "Max (ms)",
+                "Service P50 (ms)", "Service P99 (ms)", "Status Codes", "Errors By Type"};
+        writeRow(sheet, 0, headerStyle, (Object[]) headers);
+
+        List<EndpointSummaryDTO> endpoints = summary.getEndpoints();
+        for (int i = 0; i < endpoints.size(); i++) {
+            EndpointSummaryDTO endpoint = endpoints.get(i);
+            LatencySummaryDTO latency = endpoint.getLatency();
+            LatencySummaryDTO service = endpoint.getServiceLatency();
+            writeRow(sheet, i + 1, bodyStyle,
+                    endpoint.getEndpointId(), endpoint.getEndpointName(),
+                    endpoint.getRequests(), endpoint.getErrors(),
+                    endpoint.getErrorRate() * 100, endpoint.getRequestsPerSecond(),
+                    latency.getMinMs(), latency.getMeanMs(), latency.getP50Ms(), latency.getP90Ms(),
+                    latency.getP99Ms(), latency.getP999Ms(), latency.getMaxMs(),
+                    service.getP50Ms(), service.getP99Ms(),
+                    format(endpoint.getStatusCodes()), format(endpoint.getErrorTypes()));
+        }
+        autoSize(sheet, headers.length);
+        return this;
+    }
+
+    public SummaryReportGenerator writeSteps() {
+        Sheet sheet = workbook.createSheet("Steps");
+        String[] headers = {"Step", "Metric", "Samples", "Min (ms)", "Mean (ms)", "P50 (ms)", "P90 (ms)",
+                "P99 (ms)", "P99.9 (ms)", "Max (ms)"};
+        writeRow(sheet, 0, headerStyle, (Object[]) headers);
+
+        List<LatencySummaryDTO> steps = summary.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            LatencySummaryDTO step = steps.get(i);
+            writeRow(sheet, i + 1, bodyStyle,
+                    step.getKey(), step.getMetric(), step.getCount(),
+                    step.getMinMs(), step.getMeanMs(), step.getP50Ms(), step.getP90Ms(),
+                    step.getP99Ms(), step.getP999Ms(), step.getMaxMs());
+        }
+        autoSize(sheet, headers.length);
+        return this;
+    }
+
+    public SummaryReportGenerator writeTimeline() {
+        Sheet sheet = workbook.createSheet("Timeline");
+        String[] headers = {"Elapsed (s)", "Requests", "Errors", "Throughput (req/s)", "Active Users", "P50 (ms)", "P99 (ms)"};
+        writeRow(sheet, 0, headerStyle, (Object[]) headers);
+
+        List<TimelinePointDTO> timeline = summary.getTimeline();
+        for (int i = 0; i < timeline.size(); i++) {
+            TimelinePointDTO point = timeline.get(i);
+            writeRow(sheet, i + 1, bodyStyle,
+                    point.getElapsedMs() / 1000d, point.getRequests(), point.getErrors(),
+                    point.getRequestsPerSecond(), point.getActiveUsers(), point.getP50Ms(), point.getP99Ms());
+        }
+        autoSize(sheet, headers.length);
+        return this;
+    }
+
+    public void export(HttpServletResponse response) throws IOException {
+        try (ServletOutputStream outputStream = response.getOutputStream()) {
+            workbook.write(outputStream);
+        } finally {
+            workbook.close();
+        }
+    }
+
+    private void writeRow(Sheet sheet, int rowIndex, CellStyle style, Object... values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int col = 0; col < values.length; col++) {
+            Cell cell = row.createCell(col);
+            switch (values[col]) {
+                case null -> {
+                    cell.setCellValue("");
+                    cell.setCellStyle(style);
+                }
+                case Double number -> {
+                    cell.setCellValue(number);
+                    cell.setCellStyle(style == headerStyle ? style : decimalStyle);
+                }
+                case Number number -> {
+                    cell.setCellValue(number.doubleValue());
+                    cell.setCellStyle(style);
+                }
+                default -> {
+                    cell.setCellValue(values[col].toString());
+                    cell.setCellStyle(style);
+                }
+            }
+        }
+    }
+
+    private void autoSize(Sheet sheet, int columns) {
+        for (int col = 0; col < columns; col++) {
+            sheet.autoSizeColumn(col);
+            sheet.setColumnWidth(col, Math.min(sheet.getColumnWidth(col) + 512, 255 * 256));
+        }
+    }
+
+    private CellStyle borderedStyle(Font font) {
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+        style.setBorderBottom(BorderStyle.THIN);
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        return style;
+    }
+
+    private String format(Map<String, Long> counts) {
+        if (counts == null || counts.isEmpty()) return "";
+        return counts.entrySet().stream()
+                .map(entry -> entry.getKey() + ": " + entry.getValue())
+                .collect(Collectors.joining(", "));
+    }
+}
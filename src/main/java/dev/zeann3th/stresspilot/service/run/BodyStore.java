@@ -0,0 +1,111 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+
+// Keeps one copy of every distinct payload of a run in its shard, keyed by its SHA-256. Request logs reference the copy by id.
+// Only the request log writer thread resolves bodies, ids seen in a transaction become visible once it commits.
+class BodyStore {
+    private static final int CACHED_IDS = 10_000;
+    private static final String FIND_SQL = "select id from run_bodies where hash = ?";
+    private static final String INSERT_SQL = "insert into run_bodies (hash, body, size, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadCodec codec;
+    private final MessageDigest digest;
+    private final Counter rawCounter;
+    private final Counter storedCounter;
+    private final Map<String, Long> ids = lruMap();
+    private final PayloadUsage usage = new PayloadUsage();
+    private final Map<String, Long> pendingIds = new HashMap<>();
+    private final List<long[]> pendingUsage = new ArrayList<>();
+
+    BodyStore(JdbcTemplate jdbcTemplate, PayloadCodec codec, Counter rawCounter, Counter storedCounter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.codec = codec;
+        this.rawCounter = rawCounter;
+        this.storedCounter = storedCounter;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Takes UTF-8 bytes, must run inside the transaction that inserts the referencing rows
+    Long resolve(byte[] raw) {
+        if (raw == null) return null;
+        byte[] hash = digest.digest(raw);
+        String key = HexFormat.of().formatHex(hash);
+
+        Long id = pendingIds.get(key);
+        if (id == null) id = ids.get(key);
+        long stored = 0;
+        if (id == null) {
+            List<Long> existing = jdbcTemplate.queryForList(FIND_SQL, Long.class, hash);
+            if (existing.isEmpty()) {
+                byte[] compressed = codec.encode(raw);
+                stored = compressed != null ? compressed.length : raw.length;
+                id = insert(hash, compressed != null ? compressed : raw, raw.length);
+            } else {
+                id = existing.getFirst();
+            }
+            pendingIds.put(key, id);
+        }
+        pendingUsage.add(new long[]{raw.length, stored});
+        return id;
+    }
+
+    void commit() {
+        ids.putAll(pendingIds);
+        for (long[] pending : pendingUsage) {
+            usage.add(pending[0], pending[1]);
+            rawCounter.increment(pending[0]);
+            storedCounter.increment(pending[1]);
+        }
+        rollback();
+    }
+
+    void rollback() {
+        pendingIds.clear();
+        pendingUsage.clear();
+    }
+
+    PayloadUsage getUsage() {
+        return usage;
+    }
+
+    private Long insert(byte[] hash, byte[] body, int size) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setBytes(1, hash);
+            ps.setBytes(2, body);
+            ps.setInt(3, size);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+            return ps;
+        }, keyHolder);
+        return Objects.requireNonNull(keyHolder.getKey()).longValue();
+    }
+
+    private static Map<String, Long> lruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > CACHED_IDS;
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import lombok.Builder;
+import lombok.Getter;
+
+// A captured sample on its way to the shard of its run, payloads stay the UTF-8 bytes they were captured as
+@Getter
+@Builder
+public class CapturedSample {
+    // Id of the journal record, null lets the shard assign one
+    private final Long id;
+    private final Long runId;
+    private final Long endpointId;
+    private final Integer statusCode;
+    private final Long responseTime;
+    private final Long serviceTime;
+    private final byte[] request;
+    private final byte[] response;
+}
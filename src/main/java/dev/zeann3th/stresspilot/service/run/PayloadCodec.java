@@ -0,0 +1,87 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Compressed payloads are stored as blobs starting with a marker byte that never occurs in UTF-8,
+// rows written before compression are plain text and still decode unchanged. Not thread safe.
+public class PayloadCodec implements Closeable {
+    static final byte MARKER = (byte) 0xFE;
+    static final byte FORMAT_DEFLATE_V1 = 1;
+    private static final int HEADER_SIZE = 2;
+    // Below this size the deflate overhead outweighs the savings
+    private static final int MIN_COMPRESS_BYTES = 64;
+
+    // Preset dictionary shared by all payloads, the most frequent fragments sit at the end where they are cheapest to reference
+    private static final byte[] DICTIONARY = ("Content-Type: application/json; charset=utf-8 text/html text/plain "
+            + "<!DOCTYPE html><html><head><title></title></head><body></body></html> "
+            + "\"timestamp\":\"createdAt\":\"updatedAt\":\"description\":null,\"total\":\"page\":\"size\":"
+            + "\"error\":\"message\":\"status\":\"success\":true,\"success\":false,\"data\":{\"items\":[{\"id\":"
+            + "\"name\":\"type\":\"value\":\"token\":\"code\":"
+            + "EndpointEntity(id=, name=, description=null, type=HTTP, projectId=, url=http://, httpMethod=GET, httpMethod=POST, "
+            + "httpHeaders={\"Content-Type\":\"application/json\"}, httpBody=null, httpBody={\"}, httpParameters=null, "
+            + "grpcServiceName=null, grpcMethodName=null, grpcStubPath=null, graphqlOperationType=null, graphqlVariables=null)")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final Inflater inflater = new Inflater(true);
+    private byte[] buffer = new byte[8192];
+
+    // Returns the compressed form, or null when the payload is better stored as plain text
+    public byte[] encode(byte[] raw) {
+        if (raw == null || raw.length < MIN_COMPRESS_BYTES) return null;
+
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(raw);
+        deflater.finish();
+        ensureCapacity(HEADER_SIZE + raw.length);
+        int length = HEADER_SIZE;
+        while (!deflater.finished() && length < raw.length) {
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        if (!deflater.finished() || length >= raw.length) return null;
+
+        buffer[0] = MARKER;
+        buffer[1] = FORMAT_DEFLATE_V1;
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public String decode(byte[] stored) {
+        if (stored == null) return null;
+        if (stored.length < HEADER_SIZE || stored[0] != MARKER) return new String(stored, StandardCharsets.UTF_8);
+        if (stored[1] != FORMAT_DEFLATE_V1)
+            throw new IllegalStateException("Unknown payload format " + stored[1]);
+
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY);
+        inflater.setInput(stored, HEADER_SIZE, stored.length - HEADER_SIZE);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(stored.length * 4);
+        try {
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalStateException("Truncated compressed payload");
+                output.write(buffer, 0, read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed payload", e);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        inflater.end();
+    }
+
+    private void ensureCapacity(int size) {
+        if (buffer.length < size) buffer = new byte[size];
+    }
+}
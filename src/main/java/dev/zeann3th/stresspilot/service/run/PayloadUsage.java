@@ -0,0 +1,21 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class PayloadUsage {
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+
+    void add(long raw, long stored) {
+        rawBytes.add(raw);
+        storedBytes.add(stored);
+    }
+
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    public long getStoredBytes() {
+        return storedBytes.sum();
+    }
+}
@@ -0,0 +1,283 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.dto.run.RunSampleQueryDTO;
+import dev.zeann3th.stresspilot.entity.RequestLogEntity;
+import dev.zeann3th.stresspilot.service.run.journal.JournalRecord;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalReader;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalStore;
+import dev.zeann3th.stresspilot.service.run.shard.RunShard;
+import dev.zeann3th.stresspilot.service.run.shard.RunShardStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Reads the samples of a run in id order one page at a time, nothing is kept once a page has been consumed.
+// The journal holds every sample and the shard only the payloads of captured ones, under the same id.
+// Runs recorded before the journal existed only have their shard.
+@Component
+@RequiredArgsConstructor
+public class RequestLogReader {
+    private static final int PAGE_SIZE = 1000;
+    private static final String COLUMNS = "l.id, l.endpoint_id, l.status_code, l.response_time, l.service_time, l.created_at";
+    // Rows written before the body store keep their payloads inline
+    private static final String PAYLOAD_COLUMNS = ", coalesce(q.body, l.request) as request, coalesce(r.body, l.response) as response";
+    private static final String PAYLOAD_JOINS = " left join run_bodies q on q.id = l.request_body_id"
+            + " left join run_bodies r on r.id = l.response_body_id";
+    private static final String PAGE_SQL = "select " + COLUMNS + " from request_logs l "
+            + "where l.id > ? order by l.id limit ?";
+    private static final String PAGE_WITH_PAYLOADS_SQL = "select " + COLUMNS + PAYLOAD_COLUMNS + " from request_logs l"
+            + PAYLOAD_JOINS + " where l.id > ? order by l.id limit ?";
+    private static final String PAYLOADS_SQL = "select l.id" + PAYLOAD_COLUMNS + " from request_logs l" + PAYLOAD_JOINS
+            + " where l.id in (";
+
+    private static final String ENDPOINT_INDEX = "idx_request_logs_endpoint_id";
+    private static final String STATUS_INDEX = "idx_request_logs_status_code";
+    private static final String LATENCY_INDEX = "idx_request_logs_response_time";
+    // A range matching fewer rows than this is read through its own index and sorted, otherwise the run is walked in id order
+    private static final int SPARSE_RANGE_ROWS = 10_000;
+    // Logs are written in id order by a single thread, so created_at never decreases as the id grows
+    private static final String FIRST_ID_FROM_SQL = "select id from request_logs indexed by idx_request_logs_created_at "
+            + "where created_at >= ? order by created_at, id limit 1";
+    private static final String LAST_ID_BEFORE_SQL = "select id from request_logs indexed by idx_request_logs_created_at "
+            + "where created_at < ? order by created_at desc, id desc limit 1";
+
+    // Journal records are appended as requests complete, so a timestamp can be older than the one before it by the
+    // moment between reading the clock and reserving a slot. Time bounds are widened by this much before they
+    // turn into index bounds, the exact window is still applied to every record.
+    private static final long JOURNAL_CLOCK_SKEW_MS = 1_000;
+
+    private final RunShardStore runShardStore;
+    private final RunJournalStore runJournalStore;
+
+    // Payloads are only read and decompressed when the caller asks for them
+    public void forEach(Long runId, boolean withPayloads, Consumer<RequestLogEntity> consumer) throws IOException {
+        Optional<RunJournalReader> journal = runJournalStore.open(runId);
+        if (journal.isPresent()) {
+            try (RunJournalReader reader = journal.get()) {
+                forEachJournaled(runId, reader, withPayloads, consumer);
+            }
+            return;
+        }
+        // A run without a journal or a shard never logged anything
+        Optional<RunShard> shard = runShardStore.openForRead(runId);
+        if (shard.isEmpty()) return;
+        try (RunShard opened = shard.get(); PayloadCodec codec = new PayloadCodec()) {
+            forEachPage(opened.getJdbcTemplate(), withPayloads ? PAGE_WITH_PAYLOADS_SQL : PAGE_SQL,
+                    rowMapper(runId, codec, withPayloads), consumer);
+        }
+    }
+
+    // One keyset page of samples matching the query, in id order
+    public List<RequestLogEntity> findSamples(Long runId, RunSampleQueryDTO query, int limit) throws IOException {
+        Optional<RunJournalReader> journal = runJournalStore.open(runId);
+        if (journal.isPresent()) {
+            try (RunJournalReader reader = journal.get()) {
+                return findJournaled(runId, reader, query, limit);
+            }
+        }
+
+        Optional<RunShard> shard = runShardStore.openForRead(runId);
+        if (shard.isEmpty()) return List.of();
+        try (RunShard opened = shard.get()) {
+            JdbcTemplate jdbcTemplate = opened.getJdbcTemplate();
+            long afterId = query.getAfter() != null ? query.getAfter() : 0;
+            long lastId = Long.MAX_VALUE;
+            // The time window is turned into an id range so it never needs a scan of its own
+            if (query.getFrom() != null) {
+                List<Long> first = jdbcTemplate.queryForList(FIRST_ID_FROM_SQL, Long.class, new Timestamp(query.getFrom()));
+                if (first.isEmpty()) return List.of();
+                afterId = Math.max(afterId, first.getFirst() - 1);
+            }
+            if (query.getTo() != null) {
+                List<Long> last = jdbcTemplate.queryForList(LAST_ID_BEFORE_SQL, Long.class, new Timestamp(query.getTo()));
+                if (last.isEmpty()) return List.of();
+                lastId = last.getFirst();
+            }
+            if (afterId >= lastId) return List.of();
+
+            StringBuilder where = new StringBuilder(" where l.id > ? and l.id <= ?");
+            List<Object> args = new ArrayList<>(List.of(afterId, lastId));
+            if (query.getEndpointId() != null) {
+                where.append(" and l.endpoint_id = ?");
+                args.add(query.getEndpointId());
+            }
+            appendRange(where, args, "l.status_code", query.getMinStatus(), query.getMaxStatus());
+            appendRange(where, args, "l.response_time", query.getMinResponseTime(), query.getMaxResponseTime());
+            args.add(limit);
+
+            String sql = "select " + COLUMNS + (query.isPayloads() ? PAYLOAD_COLUMNS : "")
+                    + " from request_logs l " + drivingIndex(jdbcTemplate, query)
+                    + (query.isPayloads() ? PAYLOAD_JOINS : "") + where + " order by l.id limit ?";
+            try (PayloadCodec codec = new PayloadCodec()) {
+                return jdbcTemplate.query(sql, rowMapper(runId, codec, query.isPayloads()), args.toArray());
+            }
+        }
+    }
+
+    private void forEachJournaled(Long runId, RunJournalReader journal, boolean withPayloads,
+                                  Consumer<RequestLogEntity> consumer) throws IOException {
+        RunShard shard = withPayloads ? runShardStore.openForRead(runId).orElse(null) : null;
+        try (PayloadCodec codec = new PayloadCodec()) {
+            List<RequestLogEntity> page = new ArrayList<>(PAGE_SIZE);
+            journal.forEach(0, record -> {
+                page.add(toEntity(runId, record));
+                if (page.size() == PAGE_SIZE) emit(shard, codec, page, consumer);
+                return true;
+            });
+            emit(shard, codec, page, consumer);
+        } finally {
+            if (shard != null) shard.close();
+        }
+    }
+
+    private void emit(RunShard shard, PayloadCodec codec, List<RequestLogEntity> page, Consumer<RequestLogEntity> consumer) {
+        if (shard != null) attachPayloads(shard, codec, page);
+        page.forEach(consumer);
+        page.clear();
+    }
+
+    // The cursor is the id of the last sample returned, which is also the index of the next journal record.
+    // The time window is turned into an index range and an endpoint is read through the journal's endpoint index,
+    // so a page only reads the records it may return.
+    private List<RequestLogEntity> findJournaled(Long runId, RunJournalReader journal, RunSampleQueryDTO query,
+                                                 int limit) throws IOException {
+        long fromIndex = query.getAfter() != null ? query.getAfter() : 0;
+        if (query.getFrom() != null)
+            fromIndex = Math.max(fromIndex,
+                    journal.firstIndexFrom(Math.max(query.getFrom(), Long.MIN_VALUE + JOURNAL_CLOCK_SKEW_MS) - JOURNAL_CLOCK_SKEW_MS));
+        long stopAt = query.getTo() != null && query.getTo() < Long.MAX_VALUE - JOURNAL_CLOCK_SKEW_MS
+                ? query.getTo() + JOURNAL_CLOCK_SKEW_MS
+                : Long.MAX_VALUE;
+
+        List<RequestLogEntity> samples = new ArrayList<>();
+        Predicate<JournalRecord> visitor = record -> {
+            if (record.getTimestampMs() >= stopAt) return false;
+            if (matches(record, query)) samples.add(toEntity(runId, record));
+            return samples.size() < limit;
+        };
+        if (query.getEndpointId() != null) journal.forEach(query.getEndpointId(), fromIndex, visitor);
+        else journal.forEach(fromIndex, visitor);
+        if (!query.isPayloads() || samples.isEmpty()) return samples;
+
+        Optional<RunShard> shard = runShardStore.openForRead(runId);
+        if (shard.isEmpty()) return samples;
+        try (RunShard opened = shard.get(); PayloadCodec codec = new PayloadCodec()) {
+            attachPayloads(opened, codec, samples);
+        }
+        return samples;
+    }
+
+    private boolean matches(JournalRecord record, RunSampleQueryDTO query) {
+        long responseTime = TimeUnit.NANOSECONDS.toMillis(record.getLatencyNanos());
+        return (query.getEndpointId() == null || query.getEndpointId() == record.getEndpointId())
+                && isWithin(record.getStatusCode(), query.getMinStatus(), query.getMaxStatus())
+                && isWithin(responseTime, query.getMinResponseTime(), query.getMaxResponseTime())
+                && (query.getFrom() == null || record.getTimestampMs() >= query.getFrom())
+                && (query.getTo() == null || record.getTimestampMs() < query.getTo());
+    }
+
+    private boolean isWithin(long value, Number min, Number max) {
+        return (min == null || value >= min.longValue()) && (max == null || value <= max.longValue());
+    }
+
+    // Samples that were not captured have no row in the shard and keep empty payloads
+    private void attachPayloads(RunShard shard, PayloadCodec codec, List<RequestLogEntity> samples) {
+        if (samples.isEmpty()) return;
+        Map<Long, RequestLogEntity> byId = new HashMap<>();
+        for (RequestLogEntity sample : samples) {
+            byId.put(sample.getId(), sample);
+        }
+        String sql = PAYLOADS_SQL + String.join(",", Collections.nCopies(byId.size(), "?")) + ")";
+        shard.getJdbcTemplate().query(sql, rs -> {
+            RequestLogEntity sample = byId.get(rs.getLong("id"));
+            sample.setRequest(codec.decode(rs.getBytes("request")));
+            sample.setResponse(codec.decode(rs.getBytes("response")));
+        }, byId.keySet().toArray());
+    }
+
+    private RequestLogEntity toEntity(Long runId, JournalRecord record) {
+        RequestLogEntity entry = RequestLogEntity.builder()
+                .id(record.getSampleId())
+                .runId(runId)
+                .endpointId(record.getEndpointId())
+                .statusCode(record.getStatusCode())
+                .responseTime(TimeUnit.NANOSECONDS.toMillis(record.getLatencyNanos()))
+                .serviceTime(TimeUnit.NANOSECONDS.toMillis(record.getServiceTimeNanos()))
+                .build();
+        entry.setCreatedAt(new Timestamp(record.getTimestampMs()).toLocalDateTime());
+        return entry;
+    }
+
+    private void forEachPage(JdbcTemplate jdbcTemplate, String sql, RowMapper<RequestLogEntity> rowMapper,
+                             Consumer<RequestLogEntity> consumer) {
+        long lastId = 0;
+        List<RequestLogEntity> page;
+        do {
+            page = jdbcTemplate.query(sql, rowMapper, lastId, PAGE_SIZE);
+            for (RequestLogEntity entry : page) {
+                consumer.accept(entry);
+            }
+            if (!page.isEmpty()) lastId = page.getLast().getId();
+        } while (page.size() == PAGE_SIZE);
+    }
+
+    // Planner statistics are not reliable for ranges, so a bounded count on the range index decides instead
+    private String drivingIndex(JdbcTemplate jdbcTemplate, RunSampleQueryDTO query) {
+        if ((query.getMinStatus() != null || query.getMaxStatus() != null)
+                && isSparse(jdbcTemplate, STATUS_INDEX, "status_code", query.getMinStatus(), query.getMaxStatus()))
+            return "indexed by " + STATUS_INDEX;
+        if ((query.getMinResponseTime() != null || query.getMaxResponseTime() != null)
+                && isSparse(jdbcTemplate, LATENCY_INDEX, "response_time", query.getMinResponseTime(), query.getMaxResponseTime()))
+            return "indexed by " + LATENCY_INDEX;
+        if (query.getEndpointId() != null) return "indexed by " + ENDPOINT_INDEX;
+        // Walks the primary key, which is already in id order
+        return "not indexed";
+    }
+
+    private boolean isSparse(JdbcTemplate jdbcTemplate, String index, String column, Number min, Number max) {
+        String sql = "select count(*) from (select 1 from request_logs indexed by " + index
+                + " where " + column + " >= ? and " + column + " <= ? limit ?)";
+        Integer rows = jdbcTemplate.queryForObject(sql, Integer.class,
+                min != null ? min : Long.MIN_VALUE, max != null ? max : Long.MAX_VALUE, SPARSE_RANGE_ROWS);
+        return rows != null && rows < SPARSE_RANGE_ROWS;
+    }
+
+    private void appendRange(StringBuilder where, List<Object> args, String column, Number min, Number max) {
+        if (min != null) {
+            where.append(" and ").append(column).append(" >= ?");
+            args.add(min);
+        }
+        if (max != null) {
+            where.append(" and ").append(column).append(" <= ?");
+            args.add(max);
+        }
+    }
+
+    private RowMapper<RequestLogEntity> rowMapper(Long runId, PayloadCodec codec, boolean withPayloads) {
+        return (rs, rowNum) -> {
+            long serviceTime = rs.getLong("service_time");
+            boolean noServiceTime = rs.wasNull();
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            RequestLogEntity entry = RequestLogEntity.builder()
+                    .id(rs.getLong("id"))
+                    .runId(runId)
+                    .endpointId(rs.getLong("endpoint_id"))
+                    .statusCode(rs.getInt("status_code"))
+                    .responseTime(rs.getLong("response_time"))
+                    .serviceTime(noServiceTime ? null : serviceTime)
+                    .request(withPayloads ? codec.decode(rs.getBytes("request")) : null)
+                    .response(withPayloads ? codec.decode(rs.getBytes("response")) : null)
+                    .build();
+            if (createdAt != null) entry.setCreatedAt(createdAt.toLocalDateTime());
+            return entry;
+        };
+    }
+}
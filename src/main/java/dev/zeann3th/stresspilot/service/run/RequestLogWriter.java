@@ -0,0 +1,268 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.common.enums.ConfigKey;
+import dev.zeann3th.stresspilot.common.enums.LogBackpressurePolicy;
+import dev.zeann3th.stresspilot.service.ConfigService;
+import dev.zeann3th.stresspilot.service.run.shard.RunShard;
+import dev.zeann3th.stresspilot.service.run.shard.RunShardStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Request logs are queued by the load generating threads and inserted in batches by a single writer thread,
+// each run into its own shard which stays open until the run is sealed
+@Slf4j(topic = "[Request Log Writer]")
+@Component
+@RequiredArgsConstructor
+public class RequestLogWriter {
+    private static final String INSERT_SQL = "insert into request_logs "
+            + "(id, endpoint_id, status_code, response_time, service_time, request_body_id, response_body_id, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ConfigService configService;
+    private final RunShardStore runShardStore;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    // Only used by the writer thread
+    private final PayloadCodec payloadCodec = new PayloadCodec();
+    private final Map<Long, OpenShard> shards = new ConcurrentHashMap<>();
+
+    private BlockingQueue<CapturedSample> queue;
+    private int batchSize;
+    private LogBackpressurePolicy policy;
+    private Thread writerThread;
+    private volatile boolean running = true;
+
+    private Counter writtenCounter;
+    private Counter droppedCounter;
+    private Counter failedCounter;
+    private Counter blockedCounter;
+    private DistributionSummary batchSizeSummary;
+    private Counter rawPayloadCounter;
+    private Counter storedPayloadCounter;
+
+    @PostConstruct
+    public void start() {
+        int capacity = configService.getValue(ConfigKey.REQUEST_LOG_QUEUE_CAPACITY.name()).map(Integer::parseInt).orElse(65536);
+        batchSize = configService.getValue(ConfigKey.REQUEST_LOG_BATCH_SIZE.name()).map(Integer::parseInt).orElse(2000);
+        policy = configService.getValue(ConfigKey.REQUEST_LOG_BACKPRESSURE.name())
+                .map(String::toUpperCase)
+                .map(LogBackpressurePolicy::valueOf)
+                .orElse(LogBackpressurePolicy.BLOCK);
+
+        queue = new ArrayBlockingQueue<>(capacity);
+
+        Gauge.builder("stresspilot.request_log.queue.depth", queue, BlockingQueue::size)
+                .description("Request logs waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("stresspilot.request_log.queue.capacity", () -> capacity)
+                .register(meterRegistry);
+        Gauge.builder("stresspilot.request_log.backpressure", () -> 1)
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+        writtenCounter = meterRegistry.counter("stresspilot.request_log.written");
+        droppedCounter = meterRegistry.counter("stresspilot.request_log.dropped");
+        failedCounter = meterRegistry.counter("stresspilot.request_log.failed");
+        blockedCounter = meterRegistry.counter("stresspilot.request_log.blocked");
+        batchSizeSummary = DistributionSummary.builder("stresspilot.request_log.batch.size")
+                .register(meterRegistry);
+        rawPayloadCounter = meterRegistry.counter("stresspilot.request_log.payload.raw.bytes");
+        storedPayloadCounter = meterRegistry.counter("stresspilot.request_log.payload.stored.bytes");
+
+        writerThread = Thread.ofPlatform().name("request-log-writer").daemon().start(this::drain);
+        log.info("Request log writer started: capacity={}, batch size={}, backpressure={}", capacity, batchSize, policy);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (writerThread.isAlive()) return;
+        for (Long runId : List.copyOf(shards.keySet())) {
+            seal(runId);
+        }
+        payloadCodec.close();
+    }
+
+    public void submit(CapturedSample entry) {
+        if (!queue.offer(entry)) {
+            if (policy == LogBackpressurePolicy.DROP) {
+                droppedCounter.increment();
+                return;
+            }
+            blockedCounter.increment();
+            try {
+                queue.put(entry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedCounter.increment();
+                return;
+            }
+        }
+        submitted.incrementAndGet();
+    }
+
+    // Waits until everything submitted before the call has been written or given up on
+    public void flush() {
+        long target = submitted.get();
+        try {
+            while (processed.get() < target && writerThread.isAlive()) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Call after flush, closes the shard of a finished run and returns how much payload it stored
+    public PayloadUsage seal(Long runId) {
+        OpenShard shard = shards.remove(runId);
+        if (shard == null) return new PayloadUsage();
+        synchronized (shard) {
+            try {
+                runShardStore.seal(shard.shard);
+            } catch (Exception e) {
+                log.error("Failed to seal shard of run {}: {}", runId, e.getMessage());
+            }
+        }
+        return shard.bodies.getUsage();
+    }
+
+    public boolean isWriting(Long runId) {
+        return shards.containsKey(runId);
+    }
+
+    private void drain() {
+        List<CapturedSample> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                CapturedSample first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                log.warn("Request log writer interrupted with {} logs queued", queue.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<CapturedSample> batch) throws InterruptedException {
+        // Concurrent runs share the queue, each one gets its own transaction in its own shard
+        Map<Long, List<CapturedSample>> byRun = new LinkedHashMap<>();
+        for (CapturedSample entry : batch) {
+            byRun.computeIfAbsent(entry.getRunId(), runId -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<Long, List<CapturedSample>> run : byRun.entrySet()) {
+            write(run.getKey(), run.getValue());
+        }
+        batchSizeSummary.record(batch.size());
+        processed.addAndGet(batch.size());
+    }
+
+    private void write(Long runId, List<CapturedSample> logs) throws InterruptedException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Long[] requestIds = new Long[logs.size()];
+        Long[] responseIds = new Long[logs.size()];
+        for (int attempt = 1; ; attempt++) {
+            OpenShard shard = null;
+            try {
+                shard = shards.computeIfAbsent(runId, this::open);
+                synchronized (shard) {
+                    BodyStore bodies = shard.bodies;
+                    RunShard target = shard.shard;
+                    // Bodies and the rows referencing them are written in the same transaction
+                    target.getTransactionTemplate().executeWithoutResult(status -> {
+                        for (int i = 0; i < logs.size(); i++) {
+                            CapturedSample entry = logs.get(i);
+                            requestIds[i] = bodies.resolve(entry.getRequest());
+                            responseIds[i] = bodies.resolve(entry.getResponse());
+                        }
+                        target.getJdbcTemplate().batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                CapturedSample entry = logs.get(i);
+                                if (entry.getId() != null) ps.setLong(1, entry.getId());
+                                else ps.setNull(1, Types.BIGINT);
+                                ps.setLong(2, entry.getEndpointId());
+                                // Requests that never got a response carry no status code
+                                ps.setInt(3, entry.getStatusCode() != null ? entry.getStatusCode() : 0);
+                                ps.setLong(4, entry.getResponseTime());
+                                if (entry.getServiceTime() != null) ps.setLong(5, entry.getServiceTime());
+                                else ps.setNull(5, Types.BIGINT);
+                                setBodyId(ps, 6, requestIds[i]);
+                                setBodyId(ps, 7, responseIds[i]);
+                                ps.setTimestamp(8, now);
+                                ps.setTimestamp(9, now);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return logs.size();
+                            }
+                        });
+                    });
+                    bodies.commit();
+                }
+                writtenCounter.increment(logs.size());
+                break;
+            } catch (Exception e) {
+                if (shard != null) shard.bodies.rollback();
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.error("Dropping {} request logs of run {} after {} attempts: {}", logs.size(), runId, attempt, e.getMessage());
+                    failedCounter.increment(logs.size());
+                    break;
+                }
+                log.warn("Writing {} request logs of run {} failed, retrying: {}", logs.size(), runId, e.getMessage());
+                TimeUnit.MILLISECONDS.sleep(50L * attempt);
+            }
+        }
+    }
+
+    private OpenShard open(Long runId) {
+        RunShard shard = runShardStore.openForWrite(runId);
+        return new OpenShard(shard, new BodyStore(shard.getJdbcTemplate(), payloadCodec, rawPayloadCounter, storedPayloadCounter));
+    }
+
+    private void setBodyId(PreparedStatement ps, int index, Long bodyId) throws SQLException {
+        if (bodyId != null) ps.setLong(index, bodyId);
+        else ps.setNull(index, Types.BIGINT);
+    }
+
+    private static class OpenShard {
+        private final RunShard shard;
+        private final BodyStore bodies;
+
+        OpenShard(RunShard shard, BodyStore bodies) {
+            this.shard = shard;
+            this.bodies = bodies;
+        }
+    }
+}
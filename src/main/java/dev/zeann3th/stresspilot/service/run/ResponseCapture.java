@@ -0,0 +1,102 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.enums.CaptureMode;
+import dev.zeann3th.stresspilot.common.enums.ErrorCode;
+import dev.zeann3th.stresspilot.common.enums.FlowStepType;
+import dev.zeann3th.stresspilot.dto.endpoint.ExecuteEndpointResponseDTO;
+import dev.zeann3th.stresspilot.dto.flow.CapturePolicyDTO;
+import dev.zeann3th.stresspilot.exception.CommandException;
+import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledStep;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Decides per sample whether its bodies are stored, the policy of every step is resolved once when the run starts
+public class ResponseCapture {
+    private static final CapturePolicyDTO CAPTURE_ALL = CapturePolicyDTO.builder().build();
+
+    private final CapturePolicyDTO[] policyByStep;
+    // Sample counters are shared by all steps calling the same endpoint
+    private final AtomicLong[] samplesByStep;
+    // Requests of a step only differ by endpoint, each one is encoded and cut once
+    private final byte[][] requestByStep;
+
+    private ResponseCapture(CapturePolicyDTO[] policyByStep, AtomicLong[] samplesByStep, byte[][] requestByStep) {
+        this.policyByStep = policyByStep;
+        this.samplesByStep = samplesByStep;
+        this.requestByStep = requestByStep;
+    }
+
+    public static ResponseCapture compile(FlowPlan plan, CapturePolicyDTO runPolicy, Map<String, CapturePolicyDTO> stepPolicies) {
+        CompiledStep[] steps = plan.getSteps();
+        CapturePolicyDTO[] policies = new CapturePolicyDTO[steps.length];
+        AtomicLong[] samples = new AtomicLong[steps.length];
+        byte[][] requests = new byte[steps.length][];
+        Map<Long, AtomicLong> samplesByEndpoint = new HashMap<>();
+
+        CapturePolicyDTO defaultPolicy = validate(runPolicy != null ? runPolicy : CAPTURE_ALL, "run");
+        Arrays.fill(policies, defaultPolicy);
+        Set<String> unknownSteps = stepPolicies != null ? new HashSet<>(stepPolicies.keySet()) : new HashSet<>();
+        for (CompiledStep step : steps) {
+            if (step.getType() != FlowStepType.ENDPOINT) continue;
+            CapturePolicyDTO override = stepPolicies != null ? stepPolicies.get(step.getId()) : null;
+            if (override != null) policies[step.getIndex()] = validate(override, "step " + step.getId());
+            unknownSteps.remove(step.getId());
+            samples[step.getIndex()] = samplesByEndpoint.computeIfAbsent(step.getEndpoint().getId(), id -> new AtomicLong());
+            requests[step.getIndex()] = cut(step.getEndpoint().toString().getBytes(StandardCharsets.UTF_8),
+                    policies[step.getIndex()].getMaxBytes());
+        }
+        // An override for a step that never sends a request would silently do nothing
+        if (!unknownSteps.isEmpty())
+            throw invalid("Capture policies name steps that are not endpoint steps of the flow: " + new TreeSet<>(unknownSteps));
+        return new ResponseCapture(policies, samples, requests);
+    }
+
+    public boolean shouldCapture(int stepIndex, boolean failed) {
+        CapturePolicyDTO policy = policyByStep[stepIndex];
+        return switch (policy.getMode()) {
+            case ALL -> true;
+            case NONE -> false;
+            case ERRORS_ONLY -> failed;
+            case FIRST_N -> samplesByStep[stepIndex].getAndIncrement() < policy.getN();
+            case ONE_IN_N -> samplesByStep[stepIndex].getAndIncrement() % policy.getN() == 0;
+        };
+    }
+
+    // Works on the raw bytes, a body that is dropped or cut is never decoded in full
+    public byte[] captureBody(int stepIndex, ExecuteEndpointResponseDTO result) {
+        byte[] body = result.getRawBody() != null
+                ? result.getRawBody()
+                : result.getRawResponse() != null ? result.getRawResponse().getBytes(StandardCharsets.UTF_8) : null;
+        return cut(body, policyByStep[stepIndex].getMaxBytes());
+    }
+
+    // UTF-8 bytes of the request, cut to maxBytes like the body
+    public byte[] captureRequest(int stepIndex) {
+        return requestByStep[stepIndex];
+    }
+
+    private static byte[] cut(byte[] payload, Integer maxBytes) {
+        if (payload == null || maxBytes == null || payload.length <= maxBytes) return payload;
+        return Arrays.copyOf(payload, maxBytes);
+    }
+
+    private static CapturePolicyDTO validate(CapturePolicyDTO policy, String owner) {
+        if (policy.getMode() == null)
+            throw invalid("Capture mode of " + owner + " is required");
+        if ((policy.getMode() == CaptureMode.FIRST_N || policy.getMode() == CaptureMode.ONE_IN_N)
+                && (policy.getN() == null || policy.getN() < 1))
+            throw invalid("Capture mode " + policy.getMode() + " of " + owner + " needs n greater than 0");
+        if (policy.getMaxBytes() != null && policy.getMaxBytes() < 0)
+            throw invalid("Capture maxBytes of " + owner + " cannot be negative");
+        return policy;
+    }
+
+    private static CommandException invalid(String reason) {
+        return CommandExceptionBuilder.exception(ErrorCode.BAD_REQUEST, Map.of(Constants.REASON, reason));
+    }
+}
@@ -0,0 +1,119 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import dev.zeann3th.stresspilot.entity.RequestLogEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Request logs of a compacted run live in a gzipped NDJSON file next to its journal, one log per line in id order
+@Component
+@RequiredArgsConstructor
+public class RunArchive {
+    static final String ARCHIVE_FILE = "request_logs.ndjson.gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final RequestLogReader requestLogReader;
+    private final ObjectMapper objectMapper;
+
+    // Written to a temporary file first, a crash never leaves a partial archive behind
+    public long write(Long runId) throws IOException {
+        Path target = path(runId);
+        Path temporary = target.resolveSibling(ARCHIVE_FILE + ".tmp");
+        Files.createDirectories(target.getParent());
+
+        AtomicLong rows = new AtomicLong();
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE);
+             SequenceWriter writer = objectMapper.writerFor(ArchivedLog.class).withRootValueSeparator("\n").writeValues(output)) {
+            requestLogReader.forEach(runId, true, entry -> {
+                try {
+                    writer.write(toArchived(entry));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows.incrementAndGet();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows.get();
+    }
+
+    public void forEach(Long runId, boolean withPayloads, Consumer<RequestLogEntity> consumer) throws IOException {
+        InputStream input = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path(runId)), BUFFER_SIZE), BUFFER_SIZE);
+        try (MappingIterator<ArchivedLog> logs = objectMapper.readerFor(ArchivedLog.class).readValues(input)) {
+            while (logs.hasNextValue()) {
+                consumer.accept(toEntity(runId, logs.nextValue(), withPayloads));
+            }
+        }
+    }
+
+    public long size(Long runId) throws IOException {
+        return Files.size(path(runId));
+    }
+
+    private Path path(Long runId) {
+        return PilotHome.runDirectory(runId).resolve(ARCHIVE_FILE);
+    }
+
+    private ArchivedLog toArchived(RequestLogEntity entry) {
+        return ArchivedLog.builder()
+                .id(entry.getId())
+                .endpointId(entry.getEndpointId())
+                .statusCode(entry.getStatusCode())
+                .responseTime(entry.getResponseTime())
+                .serviceTime(entry.getServiceTime())
+                .createdAt(entry.getCreatedAt() != null ? Timestamp.valueOf(entry.getCreatedAt()).getTime() : null)
+                .request(entry.getRequest())
+                .response(entry.getResponse())
+                .build();
+    }
+
+    private RequestLogEntity toEntity(Long runId, ArchivedLog archived, boolean withPayloads) {
+        RequestLogEntity entry = RequestLogEntity.builder()
+                .id(archived.getId())
+                .runId(runId)
+                .endpointId(archived.getEndpointId())
+                .statusCode(archived.getStatusCode())
+                .responseTime(archived.getResponseTime())
+                .serviceTime(archived.getServiceTime())
+                .request(withPayloads ? archived.getRequest() : null)
+                .response(withPayloads ? archived.getResponse() : null)
+                .build();
+        if (archived.getCreatedAt() != null) entry.setCreatedAt(new Timestamp(archived.getCreatedAt()).toLocalDateTime());
+        return entry;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    static class ArchivedLog {
+        private Long id;
+        private Long endpointId;
+        private Integer statusCode;
+        private Long responseTime;
+        private Long serviceTime;
+        // Epoch milliseconds
+        private Long createdAt;
+        private String request;
+        private String response;
+    }
+}
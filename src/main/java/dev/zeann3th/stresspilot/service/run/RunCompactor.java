@@ -0,0 +1,103 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.common.enums.ConfigKey;
+import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
+import dev.zeann3th.stresspilot.repository.RunRepository;
+import dev.zeann3th.stresspilot.service.ConfigService;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalStore;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetricsRegistry;
+import dev.zeann3th.stresspilot.service.run.shard.RunShardStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Moves the samples of expired runs into archive files, then unlinks their journals and shards.
+// Summaries, histograms and rollups are never touched, so every run keeps its charts and statistics.
+@Slf4j(topic = "[Run Compactor]")
+@Component
+@RequiredArgsConstructor
+public class RunCompactor {
+    private static final String MARK_ARCHIVED_SQL = "update runs set archived_at = ? where id = ?";
+
+    private final RunRepository runRepository;
+    private final RunShardStore runShardStore;
+    private final RunJournalStore runJournalStore;
+    private final RunArchive runArchive;
+    private final RunMetricsRegistry runMetricsRegistry;
+    private final RequestLogWriter requestLogWriter;
+    private final ConfigService configService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Scheduled(initialDelayString = "${application.retention.initial-delay:PT5M}",
+            fixedDelayString = "${application.retention.interval:PT1H}")
+    public void compact() {
+        int retentionDays = configValue(ConfigKey.RETENTION_RAW_DAYS);
+        int retentionRuns = configValue(ConfigKey.RETENTION_RAW_RUNS);
+        if (retentionDays <= 0 && retentionRuns <= 0) return;
+
+        LocalDateTime cutoff = retentionDays > 0 ? LocalDateTime.now().minusDays(retentionDays) : null;
+        Map<Long, RunShardEntity> shards = runShardStore.catalog().stream()
+                .collect(Collectors.toMap(RunShardEntity::getRunId, Function.identity()));
+        // Newest first, a run is aged by its own times, which a legacy import or a re-seal never move
+        List<RunEntity> runs = runRepository.findAllByOrderByIdDesc();
+        for (int i = 0; i < runs.size(); i++) {
+            RunEntity run = runs.get(i);
+            RunShardEntity shard = shards.get(run.getId());
+            LocalDateTime endedAt = run.getUpdatedAt() != null ? run.getUpdatedAt() : run.getCreatedAt();
+            boolean expired = (retentionRuns > 0 && i >= retentionRuns)
+                    || (cutoff != null && endedAt != null && endedAt.isBefore(cutoff));
+            if (!expired || !hasRawSamples(run, shard) || isWriting(run, shard)) continue;
+            try {
+                compact(run, shard);
+            } catch (Exception e) {
+                log.error("Failed to compact run {}: {}", run.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean hasRawSamples(RunEntity run, RunShardEntity shard) {
+        return run.getArchivedAt() == null || shard != null || runJournalStore.exists(run.getId());
+    }
+
+    // Unsealed shards belong to runs that are still writing
+    private boolean isWriting(RunEntity run, RunShardEntity shard) {
+        return runMetricsRegistry.getLive(run.getId()).isPresent()
+                || requestLogWriter.isWriting(run.getId())
+                || (shard != null && shard.getSealedAt() == null);
+    }
+
+    private void compact(RunEntity run, RunShardEntity shard) throws Exception {
+        Long runId = run.getId();
+        // Archived before anything is unlinked, a crash in between only repeats the unlink on the next pass
+        if (run.getArchivedAt() == null) {
+            long startNanos = System.nanoTime();
+            long rows = runArchive.write(runId);
+            jdbcTemplate.update(MARK_ARCHIVED_SQL, Timestamp.valueOf(LocalDateTime.now()), runId);
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            log.info("Archived {} request logs of run {} into {} bytes in {} ms ({} rows/s)",
+                    rows, runId, runArchive.size(runId), elapsedMs, rows * 1000 / elapsedMs);
+        }
+
+        long released = runJournalStore.delete(runId);
+        if (shard != null) {
+            runShardStore.delete(runId);
+            released += shard.getSizeBytes() != null ? shard.getSizeBytes() : 0;
+        }
+        log.info("Removed journal and shard of run {}, {} bytes released", runId, released);
+    }
+
+    private int configValue(ConfigKey key) {
+        return configService.getValue(key.name()).map(String::trim).map(Integer::parseInt).orElse(0);
+    }
+}
@@ -1,12 +1,36 @@
 package dev.zeann3th.stresspilot.service.run;
 
+import dev.zeann3th.stresspilot.dto.run.EndpointStatisticsDTO;
+import dev.zeann3th.stresspilot.dto.run.LatencySummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSamplePageDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSampleQueryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunTimeSeriesDTO;
 import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
 public interface RunService {
     List<RunEntity> getAllRuns();
 
-    void exportRun(HttpServletResponse response, Long runId, String type);
+    List<EndpointStatisticsDTO> getRunStatistics(Long runId);
+
+    List<LatencySummaryDTO> getRunLatency(Long runId);
+
+    RunSummaryDTO getRunSummary(Long runId);
+
+    RunTimeSeriesDTO getRunTimeSeries(Long runId, String resolution, Long endpointId);
+
+    RunSamplePageDTO getRunSamples(Long runId, RunSampleQueryDTO query);
+
+    SseEmitter streamRunMetrics(Long runId);
+
+    void exportRun(HttpServletResponse response, Long runId, String type, String fields, boolean gzip);
+
+    void deleteRun(Long runId);
+
+    List<RunShardEntity> getRunShards();
 }
@@ -1,34 +1,90 @@
 package dev.zeann3th.stresspilot.service.run.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.zeann3th.stresspilot.common.Constants;
 import dev.zeann3th.stresspilot.common.enums.ErrorCode;
 import dev.zeann3th.stresspilot.common.enums.ReportType;
+import dev.zeann3th.stresspilot.common.enums.RollupResolution;
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import dev.zeann3th.stresspilot.dto.run.EndpointStatisticsDTO;
+import dev.zeann3th.stresspilot.dto.run.LatencySummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSampleDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSamplePageDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSampleQueryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunTimeSeriesDTO;
 import dev.zeann3th.stresspilot.entity.RequestLogEntity;
 import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
+import dev.zeann3th.stresspilot.exception.CommandException;
 import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
-import dev.zeann3th.stresspilot.repository.RequestLogRepository;
 import dev.zeann3th.stresspilot.repository.RunRepository;
+import dev.zeann3th.stresspilot.service.report.CsvReportWriter;
 import dev.zeann3th.stresspilot.service.report.ExcelGenerator;
+import dev.zeann3th.stresspilot.service.report.NdjsonReportWriter;
+import dev.zeann3th.stresspilot.service.report.ReportColumn;
+import dev.zeann3th.stresspilot.service.report.SummaryReportGenerator;
+import dev.zeann3th.stresspilot.service.run.RequestLogReader;
+import dev.zeann3th.stresspilot.service.run.RequestLogWriter;
+import dev.zeann3th.stresspilot.service.run.RunArchive;
 import dev.zeann3th.stresspilot.service.run.RunService;
+import dev.zeann3th.stresspilot.service.run.journal.JournalRecord;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalReader;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalStore;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetricsRegistry;
+import dev.zeann3th.stresspilot.service.run.shard.RunShardStore;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j(topic = "[Run Service]")
 @Service
 @RequiredArgsConstructor
 public class RunServiceImpl implements RunService {
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_SAMPLE_LIMIT = 100;
+    private static final int MAX_SAMPLE_LIMIT = 1000;
+    private static final Set<String> PAYLOAD_FIELDS = Set.of("request", "response");
+    private static final List<ReportColumn<RequestLogEntity>> DETAILED_COLUMNS = List.of(
+            ReportColumn.of("id", "ID", RequestLogEntity::getId),
+            ReportColumn.of("endpointId", "Endpoint ID", RequestLogEntity::getEndpointId),
+            ReportColumn.of("statusCode", "Status", RequestLogEntity::getStatusCode),
+            ReportColumn.of("responseTime", "Response Time (ms)", RequestLogEntity::getResponseTime),
+            ReportColumn.of("serviceTime", "Service Time (ms)", RequestLogEntity::getServiceTime),
+            ReportColumn.of("request", "Request", RequestLogEntity::getRequest),
+            ReportColumn.of("response", "Response", RequestLogEntity::getResponse));
+
     private final RunRepository runRepository;
-    private final RequestLogRepository requestLogRepository;
+    private final RequestLogReader requestLogReader;
+    private final RequestLogWriter requestLogWriter;
+    private final RunShardStore runShardStore;
+    private final RunArchive runArchive;
+    private final RunJournalStore runJournalStore;
+    private final RunMetricsRegistry runMetricsRegistry;
+    private final ObjectMapper objectMapper;
 
     @Override
     public List<RunEntity> getAllRuns() {
@@ -36,52 +92,299 @@ public class RunServiceImpl implements RunService {
     }
 
     @Override
-    public void exportRun(HttpServletResponse response, Long runId, String type) {
-        boolean isExists = runRepository.existsById(runId);
-        if (!isExists) {
+    public List<EndpointStatisticsDTO> getRunStatistics(Long runId) {
+        if (!runRepository.existsById(runId)) {
             throw CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND);
         }
 
-        String now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String rawFileName;
-        String encodedFileName;
-
-        if (type == null || type.isEmpty()) {
-            type = ReportType.DETAILED.name();
-        }
-
-        if (ReportType.DETAILED.name().equals(type)) {
-            rawFileName = "[Stress Pilot] Detailed report of run " + runId + "_" + now + ".xlsx";
-            encodedFileName = URLEncoder.encode(rawFileName, StandardCharsets.UTF_8);
-            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        } else if (ReportType.SUMMARY.name().equals(type)) {
-            rawFileName = "[Stress Pilot] Summary report of run " + runId + "_" + now + ".pdf";
-            encodedFileName = URLEncoder.encode(rawFileName, StandardCharsets.UTF_8);
-            response.setContentType("application/pdf");
-        } else {
-            throw CommandExceptionBuilder.exception(ErrorCode.BAD_REQUEST,
-                    Map.of(Constants.REASON, "Unsupported report type: " + type));
+        Map<Long, EndpointAccumulator> accumulators = new TreeMap<>();
+        try {
+            Optional<RunJournalReader> journal = runJournalStore.open(runId);
+            if (journal.isEmpty()) {
+                log.warn("Run {} has no sample journal", runId);
+                return List.of();
+            }
+            try (RunJournalReader reader = journal.get()) {
+                reader.forEach(record -> accumulators
+                        .computeIfAbsent(record.getEndpointId(), id -> new EndpointAccumulator())
+                        .add(record));
+            }
+        } catch (IOException e) {
+            log.error("Error reading journal of run {}", runId, e);
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_DATA_UNREADABLE);
         }
 
-        String contentDisposition = "attachment; filename=\"" + rawFileName + "\"; filename*=UTF-8''" + encodedFileName;
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        return accumulators.entrySet().stream()
+                .map(entry -> entry.getValue().toStatistics(entry.getKey()))
+                .toList();
+    }
+
+    @Override
+    public List<LatencySummaryDTO> getRunLatency(Long runId) {
+        if (!runRepository.existsById(runId)) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND);
+        }
+        return runMetricsRegistry.getSummaries(runId);
+    }
 
+    @Override
+    public RunSummaryDTO getRunSummary(Long runId) {
+        if (!runRepository.existsById(runId)) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND);
+        }
+        return runMetricsRegistry.getRunSummary(runId)
+                .orElseThrow(() -> CommandExceptionBuilder.exception(ErrorCode.RUN_SUMMARY_NOT_AVAILABLE));
+    }
+
+    @Override
+    public RunTimeSeriesDTO getRunTimeSeries(Long runId, String resolution, Long endpointId) {
+        if (!runRepository.existsById(runId)) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND);
+        }
+        RollupResolution rollupResolution = resolution == null || resolution.isBlank()
+                ? null
+                : RollupResolution.fromLabel(resolution.trim())
+                .orElseThrow(() -> badRequest("Unsupported resolution: " + resolution));
+        return runMetricsRegistry.getTimeSeries(runId, rollupResolution, endpointId);
+    }
+
+    @Override
+    public RunSamplePageDTO getRunSamples(Long runId, RunSampleQueryDTO query) {
+        RunEntity run = runRepository.findById(runId)
+                .orElseThrow(() -> CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND));
+        if (run.getArchivedAt() != null) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_ARCHIVED);
+        }
+        int limit = query.getLimit() != null ? query.getLimit() : DEFAULT_SAMPLE_LIMIT;
+        if (limit < 1 || limit > MAX_SAMPLE_LIMIT)
+            throw badRequest("Limit must be between 1 and " + MAX_SAMPLE_LIMIT);
+        if (isReversed(query.getMinStatus(), query.getMaxStatus()))
+            throw badRequest("minStatus cannot be greater than maxStatus");
+        if (isReversed(query.getMinResponseTime(), query.getMaxResponseTime()))
+            throw badRequest("minResponseTime cannot be greater than maxResponseTime");
+        if (isReversed(query.getFrom(), query.getTo()))
+            throw badRequest("from cannot be after to");
+
+        // One extra row tells whether another page follows
+        List<RequestLogEntity> entries;
         try {
-            List<RequestLogEntity> logEntities = requestLogRepository.findByRunId(runId);
+            entries = requestLogReader.findSamples(runId, query, limit + 1);
+        } catch (IOException e) {
+            log.error("Error reading samples of run {}", runId, e);
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_DATA_UNREADABLE);
+        }
+        boolean hasMore = entries.size() > limit;
+        List<RunSampleDTO> samples = entries.stream()
+                .limit(limit)
+                .map(entry -> RunSampleDTO.builder()
+                        .id(entry.getId())
+                        .endpointId(entry.getEndpointId())
+                        .statusCode(entry.getStatusCode())
+                        .responseTime(entry.getResponseTime())
+                        .serviceTime(entry.getServiceTime())
+                        .createdAt(entry.getCreatedAt())
+                        .request(entry.getRequest())
+                        .response(entry.getResponse())
+                        .build())
+                .toList();
+        return RunSamplePageDTO.builder()
+                .samples(samples)
+                .nextCursor(hasMore ? samples.getLast().getId() : null)
+                .build();
+    }
 
-            if (ReportType.DETAILED.name().equals(type)) {
-                String[] headers = {"ID", "Endpoint ID", "Status", "Response Time (ms)", "Request", "Response"};
-                String[] fields = {"id", "endpointId", "statusCode", "responseTime", "request", "response"};
+    @Override
+    public SseEmitter streamRunMetrics(Long runId) {
+        if (!runRepository.existsById(runId)) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND);
+        }
+        return runMetricsRegistry.stream(runId);
+    }
+
+    @Override
+    public void exportRun(HttpServletResponse response, Long runId, String type, String fields, boolean gzip) {
+        RunEntity run = runRepository.findById(runId)
+                .orElseThrow(() -> CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND));
+
+        ReportType reportType = parseReportType(type);
+        List<ReportColumn<RequestLogEntity>> columns = selectColumns(fields);
+        boolean compressed = gzip && reportType.isCompressible();
+        boolean withPayloads = columns.stream().anyMatch(column -> PAYLOAD_FIELDS.contains(column.getKey()));
+
+        // Resolved before any header is written so a missing summary still gets a proper error response
+        RunSummaryDTO summary = reportType == ReportType.SUMMARY ? getRunSummary(runId) : null;
+
+        String now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String title = reportType == ReportType.SUMMARY ? "Summary" : "Detailed";
+        String rawFileName = "[Stress Pilot] " + title + " report of run " + runId + "_" + now + "." + reportType.getExtension()
+                + (compressed ? ".gz" : "");
+        String encodedFileName = URLEncoder.encode(rawFileName, StandardCharsets.UTF_8);
+        response.setContentType(compressed ? "application/gzip" : reportType.getContentType());
+
+        String contentDisposition = "attachment; filename=\"" + rawFileName + "\"; filename*=UTF-8''" + encodedFileName;
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
 
-                new ExcelGenerator<>(logEntities)
-                        .writeHeaderLines(headers)
-                        .writeDataLines(fields)
+        long startNanos = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        try {
+            switch (reportType) {
+                case SUMMARY -> new SummaryReportGenerator(summary)
+                        .writeOverview()
+                        .writeEndpoints()
+                        .writeSteps()
+                        .writeTimeline()
                         .export(response);
-            } else {
-                // PDF logic later
+                case DETAILED -> {
+                    ExcelGenerator<RequestLogEntity> generator = new ExcelGenerator<>(columns).writeHeaderLines();
+                    forEachLog(run, withPayloads, entry -> {
+                        generator.writeDataLine(entry);
+                        rows.incrementAndGet();
+                    });
+                    generator.export(response);
+                }
+                case CSV -> {
+                    try (CsvReportWriter<RequestLogEntity> writer = new CsvReportWriter<>(columns, openOutput(response, compressed))) {
+                        writer.writeHeaderLine();
+                        forEachLog(run, withPayloads, entry -> {
+                            writeUnchecked(() -> writer.writeDataLine(entry));
+                            rows.incrementAndGet();
+                        });
+                    }
+                }
+                case NDJSON -> {
+                    try (NdjsonReportWriter<RequestLogEntity> writer =
+                                 new NdjsonReportWriter<>(columns, openOutput(response, compressed), objectMapper.getFactory())) {
+                        forEachLog(run, withPayloads, entry -> {
+                            writeUnchecked(() -> writer.writeDataLine(entry));
+                            rows.incrementAndGet();
+                        });
+                    }
+                }
             }
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            log.info("Exported run {} as {}{}: {} rows in {} ms ({} rows/s)",
+                    runId, reportType, compressed ? " (gzip)" : "", rows.get(), elapsedMs, rows.get() * 1000 / elapsedMs);
         } catch (Exception e) {
             log.error("Error exporting report", e);
         }
     }
+
+    @Override
+    public void deleteRun(Long runId) {
+        if (!runRepository.existsById(runId)) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_NOT_FOUND);
+        }
+        if (runMetricsRegistry.getLive(runId).isPresent() || requestLogWriter.isWriting(runId)) {
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_IN_PROGRESS);
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            runShardStore.delete(runId);
+            // The journal and the archive live in the same directory as the shard
+            FileSystemUtils.deleteRecursively(PilotHome.runDirectory(runId));
+        } catch (IOException e) {
+            log.error("Error deleting files of run {}", runId, e);
+            throw CommandExceptionBuilder.exception(ErrorCode.RUN_DELETE_FAILED);
+        }
+        runMetricsRegistry.delete(runId);
+        runRepository.deleteById(runId);
+        log.info("Deleted run {} in {} ms", runId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public List<RunShardEntity> getRunShards() {
+        return runShardStore.catalog();
+    }
+
+    // Logs of compacted runs are only kept in their archive file
+    private void forEachLog(RunEntity run, boolean withPayloads, Consumer<RequestLogEntity> consumer) throws IOException {
+        if (run.getArchivedAt() != null) runArchive.forEach(run.getId(), withPayloads, consumer);
+        else requestLogReader.forEach(run.getId(), withPayloads, consumer);
+    }
+
+    private ReportType parseReportType(String type) {
+        if (type == null || type.isEmpty()) return ReportType.DETAILED;
+        try {
+            return ReportType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw CommandExceptionBuilder.exception(ErrorCode.BAD_REQUEST,
+                    Map.of(Constants.REASON, "Unsupported report type: " + type));
+        }
+    }
+
+    private List<ReportColumn<RequestLogEntity>> selectColumns(String fields) {
+        if (fields == null || fields.isBlank()) return DETAILED_COLUMNS;
+        List<ReportColumn<RequestLogEntity>> selected = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String key = field.trim();
+            ReportColumn<RequestLogEntity> column = DETAILED_COLUMNS.stream()
+                    .filter(candidate -> candidate.getKey().equals(key))
+                    .findFirst()
+                    .orElseThrow(() -> CommandExceptionBuilder.exception(ErrorCode.BAD_REQUEST,
+                            Map.of(Constants.REASON, "Unknown export field: " + key)));
+            selected.add(column);
+        }
+        return selected;
+    }
+
+    private boolean isReversed(Number min, Number max) {
+        return min != null && max != null && min.longValue() > max.longValue();
+    }
+
+    private CommandException badRequest(String reason) {
+        return CommandExceptionBuilder.exception(ErrorCode.BAD_REQUEST, Map.of(Constants.REASON, reason));
+    }
+
+    private OutputStream openOutput(HttpServletResponse response, boolean compressed) throws IOException {
+        OutputStream outputStream = response.getOutputStream();
+        return compressed ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE) : outputStream;
+    }
+
+    private void writeUnchecked(IORunnable write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    private static class EndpointAccumulator {
+        private static final double NANOS_PER_MILLI = 1_000_000d;
+
+        private long requests;
+        private long errors;
+        private long minLatency = Long.MAX_VALUE;
+        private long maxLatency;
+        private long totalLatency;
+        private long totalServiceTime;
+        private long totalBytes;
+
+        void add(JournalRecord record) {
+            requests++;
+            if (record.getError() != SampleError.NONE) errors++;
+            minLatency = Math.min(minLatency, record.getLatencyNanos());
+            maxLatency = Math.max(maxLatency, record.getLatencyNanos());
+            totalLatency += record.getLatencyNanos();
+            totalServiceTime += record.getServiceTimeNanos();
+            totalBytes += record.getBytes();
+        }
+
+        EndpointStatisticsDTO toStatistics(Long endpointId) {
+            return EndpointStatisticsDTO.builder()
+                    .endpointId(endpointId)
+                    .requests(requests)
+                    .errors(errors)
+                    .minResponseTimeMs(minLatency / NANOS_PER_MILLI)
+                    .avgResponseTimeMs(totalLatency / NANOS_PER_MILLI / requests)
+                    .maxResponseTimeMs(maxLatency / NANOS_PER_MILLI)
+                    .avgServiceTimeMs(totalServiceTime / NANOS_PER_MILLI / requests)
+                    .totalBytes(totalBytes)
+                    .build();
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static dev.zeann3th.stresspilot.service.run.journal.JournalLayout.*;
+
+// endpoints.idx: the record indexes of each endpoint of a closed journal in ascending order, so a page filtered by
+// endpoint only reads that endpoint's records. Layout: magic, endpoint count, then per endpoint its id, first
+// position and length, then every position list back to back.
+final class EndpointIndex {
+    private static final int MAGIC = 0x53504931;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+    // Positions are int byte offsets into a single mapping, which caps the index at 1 GiB
+    private static final long MAX_RECORDS = 1 << 28;
+
+    private EndpointIndex() {
+    }
+
+    // Built on first use, a journal that is still written or too large for int positions has none
+    static IntBuffer records(Path directory, RunJournalReader journal, long endpointId) throws IOException {
+        if (!journal.isComplete() || journal.getCount() > MAX_RECORDS) return null;
+        Path file = directory.resolve(ENDPOINTS_FILE);
+        if (!Files.exists(file)) build(file, journal);
+
+        MappedByteBuffer index;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        index.order(ByteOrder.LITTLE_ENDIAN);
+        if (index.getInt(0) != MAGIC) throw new IOException("Unsupported endpoint index in " + directory);
+
+        int endpoints = index.getInt(Integer.BYTES);
+        for (int i = 0; i < endpoints; i++) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            if (index.getLong(entry) != endpointId) continue;
+            int first = index.getInt(entry + Long.BYTES);
+            int length = index.getInt(entry + Long.BYTES + Integer.BYTES);
+            return index.slice(first, length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        return IntBuffer.allocate(0);
+    }
+
+    // Position of the first record at or after the given index
+    static int lowerBound(IntBuffer records, long index) {
+        int low = 0;
+        int high = records.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (records.get(middle) < index) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // One pass counts the records of each endpoint, a second writes their indexes. Readers racing to build it each
+    // write their own temporary file and the last move wins.
+    private static void build(Path file, RunJournalReader journal) throws IOException {
+        Map<Long, int[]> counts = new HashMap<>();
+        journal.forEach(record -> counts.computeIfAbsent(record.getEndpointId(), id -> new int[1])[0]++);
+
+        Map<Long, int[]> cursors = new HashMap<>();
+        int position = HEADER_SIZE + counts.size() * ENTRY_SIZE;
+        Path temporary = Files.createTempFile(file.getParent(), ENDPOINTS_FILE, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = position + journal.getCount() * Integer.BYTES;
+                MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                index.order(ByteOrder.LITTLE_ENDIAN);
+                index.putInt(0, MAGIC);
+                index.putInt(Integer.BYTES, counts.size());
+                int entry = HEADER_SIZE;
+                for (Map.Entry<Long, int[]> endpoint : counts.entrySet()) {
+                    int length = endpoint.getValue()[0];
+                    index.putLong(entry, endpoint.getKey());
+                    index.putInt(entry + Long.BYTES, position);
+                    index.putInt(entry + Long.BYTES + Integer.BYTES, length);
+                    cursors.put(endpoint.getKey(), new int[]{position});
+                    position += length * Integer.BYTES;
+                    entry += ENTRY_SIZE;
+                }
+                journal.forEach(record -> {
+                    int[] cursor = cursors.get(record.getEndpointId());
+                    index.putInt(cursor[0], (int) record.getIndex());
+                    cursor[0] += Integer.BYTES;
+                });
+                index.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+// samples.bin: a 64 byte header followed by fixed-width little-endian records
+final class JournalLayout {
+    static final String SAMPLES_FILE = "samples.bin";
+    static final String BODIES_FILE = "bodies.bin";
+    static final String ENDPOINTS_FILE = "endpoints.idx";
+
+    static final int MAGIC = 0x53504A31;
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_RECORD_SIZE = 8;
+    static final int HEADER_COUNT = 16;
+
+    static final int TIMESTAMP = 0;
+    static final int ENDPOINT_ID = 8;
+    static final int STEP_INDEX = 16;
+    static final int STATUS = 20;
+    static final int LATENCY = 24;
+    static final int SERVICE_TIME = 32;
+    static final int BYTES = 40;
+    static final int ERROR = 44;
+    static final int BODY_OFFSET = 48;
+    static final int RECORD_SIZE = 56;
+
+    // Mapped a segment at a time so a run never needs its final size up front
+    static final int SEGMENT_RECORDS = 1 << 16;
+    static final long SEGMENT_SIZE = (long) SEGMENT_RECORDS * RECORD_SIZE;
+
+    static final long NO_BODY = -1;
+
+    private JournalLayout() {
+    }
+
+    static long segmentPosition(int segment) {
+        return HEADER_SIZE + segment * SEGMENT_SIZE;
+    }
+
+    // Segments are contiguous, so a record's position does not depend on how they were mapped
+    static long recordPosition(long index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+}
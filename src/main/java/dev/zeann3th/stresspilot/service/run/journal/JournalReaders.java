@@ -0,0 +1,28 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import java.io.IOException;
+
+// Open readers of one run. Shrinking the samples file under a reader's mapping faults its next access,
+// so the writer only cuts the file while this count is zero.
+final class JournalReaders {
+    private int open;
+
+    synchronized void opened() {
+        open++;
+    }
+
+    synchronized void closed() {
+        open--;
+    }
+
+    // Runs the action while no reader is open and none can open, returns false when a reader kept it from running
+    synchronized boolean whileNoneOpen(Action action) throws IOException {
+        if (open > 0) return false;
+        action.run();
+        return true;
+    }
+
+    interface Action {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,28 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import lombok.Data;
+
+// Reused for every record while streaming, copy the values out if they need to outlive the callback
+@Data
+public class JournalRecord {
+    // Position in the journal, the sample id is one higher
+    private long index;
+    private long timestampMs;
+    private long endpointId;
+    private int stepIndex;
+    private int statusCode;
+    private long latencyNanos;
+    private long serviceTimeNanos;
+    private int bytes;
+    private SampleError error;
+    private long bodyOffset;
+
+    public long getSampleId() {
+        return index + 1;
+    }
+
+    public boolean hasBody() {
+        return bodyOffset != JournalLayout.NO_BODY;
+    }
+}
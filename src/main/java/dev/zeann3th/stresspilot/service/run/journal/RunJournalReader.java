@@ -0,0 +1,177 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static dev.zeann3th.stresspilot.service.run.journal.JournalLayout.*;
+
+public class RunJournalReader implements Closeable {
+    private static final SampleError[] ERRORS = SampleError.values();
+
+    private final Path directory;
+    private final JournalReaders readers;
+    private final FileChannel channel;
+    private final FileChannel bodyChannel;
+    private final long count;
+    // A journal that was never closed has no count, its unwritten slots are still zero
+    private final boolean complete;
+    private boolean closed;
+
+    RunJournalReader(Path directory) throws IOException {
+        this(directory, new JournalReaders());
+    }
+
+    // Counted as open before the file is touched, so the writer cannot cut it between the size check and the reads
+    RunJournalReader(Path directory, JournalReaders readers) throws IOException {
+        this.directory = directory;
+        this.readers = readers;
+        readers.opened();
+        FileChannel samples = null;
+        FileChannel bodies = null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long size;
+        try {
+            samples = FileChannel.open(directory.resolve(SAMPLES_FILE), StandardOpenOption.READ);
+            Path bodiesFile = directory.resolve(BODIES_FILE);
+            if (Files.exists(bodiesFile)) bodies = FileChannel.open(bodiesFile, StandardOpenOption.READ);
+            samples.read(header, 0);
+            if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE)
+                throw new IOException("Unsupported journal format in " + directory);
+            size = samples.size();
+        } catch (IOException e) {
+            if (samples != null) samples.close();
+            if (bodies != null) bodies.close();
+            readers.closed();
+            throw e;
+        }
+        this.channel = samples;
+        this.bodyChannel = bodies;
+
+        long recorded = header.getLong(HEADER_COUNT);
+        this.complete = recorded > 0;
+        this.count = complete ? recorded : Math.max(0, (size - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void forEach(Consumer<JournalRecord> consumer) throws IOException {
+        forEach(0, record -> {
+            consumer.accept(record);
+            return true;
+        });
+    }
+
+    // Visits records from the given index on until the visitor returns false
+    public void forEach(long fromIndex, Predicate<JournalRecord> visitor) throws IOException {
+        JournalRecord record = new JournalRecord();
+        for (long index = Math.max(0, fromIndex); index < count; ) {
+            int segmentIndex = (int) (index / SEGMENT_RECORDS);
+            int records = (int) Math.min(count - (long) segmentIndex * SEGMENT_RECORDS, SEGMENT_RECORDS);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    segmentPosition(segmentIndex), (long) records * RECORD_SIZE);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int i = (int) (index % SEGMENT_RECORDS); i < records; i++, index++) {
+                if (!decode(segment, i * RECORD_SIZE, index, record)) continue;
+                if (!visitor.test(record)) return;
+            }
+        }
+    }
+
+    // Visits the records of one endpoint from the given index on. A closed journal reads them through its endpoint
+    // index, one that is still written is scanned.
+    public void forEach(long endpointId, long fromIndex, Predicate<JournalRecord> visitor) throws IOException {
+        IntBuffer records = EndpointIndex.records(directory, this, endpointId);
+        if (records == null) {
+            forEach(fromIndex, record -> record.getEndpointId() != endpointId || visitor.test(record));
+            return;
+        }
+        JournalRecord record = new JournalRecord();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = EndpointIndex.lowerBound(records, fromIndex); i < records.limit(); i++) {
+            long index = records.get(i);
+            readFully(channel, buffer.clear(), recordPosition(index));
+            if (decode(buffer, 0, index, record) && !visitor.test(record)) return;
+        }
+    }
+
+    // Binary search for the first record written at or after the time, taking timestamps to be in index order.
+    // Unwritten slots count as newer than any time.
+    public long firstIndexFrom(long timestampMs) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            readFully(channel, buffer.clear(), recordPosition(middle) + TIMESTAMP);
+            long timestamp = buffer.getLong(0);
+            if (timestamp != 0 && timestamp < timestampMs) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    public byte[] readBody(long offset) throws IOException {
+        if (bodyChannel == null || offset == NO_BODY) return null;
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(bodyChannel, length, offset);
+        ByteBuffer body = ByteBuffer.allocate(length.getInt(0));
+        readFully(bodyChannel, body, offset + Integer.BYTES);
+        return body.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            channel.close();
+            if (bodyChannel != null) bodyChannel.close();
+        } finally {
+            readers.closed();
+        }
+    }
+
+    private boolean decode(ByteBuffer buffer, int offset, long index, JournalRecord record) {
+        long timestamp = buffer.getLong(offset + TIMESTAMP);
+        if (!complete && timestamp == 0) return false;
+
+        record.setIndex(index);
+        record.setTimestampMs(timestamp);
+        record.setEndpointId(buffer.getLong(offset + ENDPOINT_ID));
+        record.setStepIndex(buffer.getInt(offset + STEP_INDEX));
+        record.setStatusCode(buffer.getInt(offset + STATUS));
+        record.setLatencyNanos(buffer.getLong(offset + LATENCY));
+        record.setServiceTimeNanos(buffer.getLong(offset + SERVICE_TIME));
+        record.setBytes(buffer.getInt(offset + BYTES));
+        record.setError(ERRORS[buffer.getInt(offset + ERROR)]);
+        record.setBodyOffset(buffer.getLong(offset + BODY_OFFSET));
+        return true;
+    }
+
+    private void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position);
+            if (read < 0) throw new IOException("Truncated journal at " + position);
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import dev.zeann3th.stresspilot.common.enums.ConfigKey;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import dev.zeann3th.stresspilot.service.ConfigService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j(topic = "[Run Journal]")
+@Component
+@RequiredArgsConstructor
+public class RunJournalStore {
+    private final ConfigService configService;
+    // Readers of the runs still being written, shared with their writer so it never cuts a file that is being read
+    private final Map<Long, JournalReaders> readers = new ConcurrentHashMap<>();
+
+    public RunJournalWriter create(Long runId) throws IOException {
+        boolean storeBodies = configService.getValue(ConfigKey.JOURNAL_RESPONSE_BODIES.name())
+                .map(Boolean::parseBoolean)
+                .orElse(false);
+        Path directory = PilotHome.runDirectory(runId);
+        log.info("Journaling run {} to {} (response bodies: {})", runId, directory, storeBodies);
+        JournalReaders runReaders = new JournalReaders();
+        readers.put(runId, runReaders);
+        return new RunJournalWriter(directory, storeBodies, runReaders, () -> readers.remove(runId, runReaders));
+    }
+
+    public Optional<RunJournalReader> open(Long runId) throws IOException {
+        Path directory = PilotHome.runDirectory(runId);
+        if (!Files.exists(directory.resolve(JournalLayout.SAMPLES_FILE))) return Optional.empty();
+        // Once the writer has closed nothing cuts the file any more, so a reader can count on its own
+        return Optional.of(new RunJournalReader(directory, readers.getOrDefault(runId, new JournalReaders())));
+    }
+
+    public boolean exists(Long runId) {
+        return Files.exists(PilotHome.runDirectory(runId).resolve(JournalLayout.SAMPLES_FILE));
+    }
+
+    // Removes the samples, bodies and index files and returns the bytes released, the rest of the run directory stays
+    public long delete(Long runId) throws IOException {
+        Path directory = PilotHome.runDirectory(runId);
+        long released = 0;
+        for (String file : new String[]{JournalLayout.SAMPLES_FILE, JournalLayout.BODIES_FILE, JournalLayout.ENDPOINTS_FILE}) {
+            Path path = directory.resolve(file);
+            if (!Files.exists(path)) continue;
+            released += Files.size(path);
+            Files.delete(path);
+        }
+        return released;
+    }
+}
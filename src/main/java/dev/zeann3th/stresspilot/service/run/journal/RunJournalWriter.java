@@ -0,0 +1,173 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static dev.zeann3th.stresspilot.service.run.journal.JournalLayout.*;
+
+// Appends are lock free: every writer reserves a record slot and fills it in place
+@Slf4j(topic = "[Run Journal]")
+public class RunJournalWriter implements Closeable {
+    private final Path directory;
+    private final JournalReaders readers;
+    private final Runnable onClose;
+    private final FileChannel channel;
+    private final FileChannel bodyChannel;
+    private final MappedByteBuffer header;
+    private final AtomicLong nextRecord = new AtomicLong();
+    private final AtomicLong nextBodyOffset = new AtomicLong();
+    // Appends still filling their slot, close waits for them before it cuts the file
+    private final AtomicInteger appending = new AtomicInteger();
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile boolean closed;
+
+    RunJournalWriter(Path directory, boolean storeBodies) throws IOException {
+        this(directory, storeBodies, new JournalReaders(), () -> {});
+    }
+
+    RunJournalWriter(Path directory, boolean storeBodies, JournalReaders readers, Runnable onClose) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.readers = readers;
+        this.onClose = onClose;
+        // An index left by an earlier journal in this directory would describe the wrong records
+        Files.deleteIfExists(directory.resolve(ENDPOINTS_FILE));
+        this.channel = FileChannel.open(directory.resolve(SAMPLES_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.bodyChannel = storeBodies
+                ? FileChannel.open(directory.resolve(BODIES_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+                : null;
+
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(HEADER_MAGIC, MAGIC);
+        header.putInt(HEADER_VERSION, VERSION);
+        header.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+        header.putLong(HEADER_COUNT, 0);
+    }
+
+    // Returns the index of the record, or -1 once the journal is closed
+    public long append(long timestampMs,
+                       long endpointId,
+                       int stepIndex,
+                       int statusCode,
+                       long latencyNanos,
+                       long serviceTimeNanos,
+                       int bytes,
+                       SampleError error,
+                       byte[] body) {
+        appending.incrementAndGet();
+        try {
+            if (closed) return -1;
+
+            long bodyOffset = body != null && bodyChannel != null ? appendBody(body) : NO_BODY;
+            long index = nextRecord.getAndIncrement();
+            MappedByteBuffer segment = segment((int) (index / SEGMENT_RECORDS));
+            int offset = (int) (index % SEGMENT_RECORDS) * RECORD_SIZE;
+
+            segment.putLong(offset + TIMESTAMP, timestampMs);
+            segment.putLong(offset + ENDPOINT_ID, endpointId);
+            segment.putInt(offset + STEP_INDEX, stepIndex);
+            segment.putInt(offset + STATUS, statusCode);
+            segment.putLong(offset + LATENCY, latencyNanos);
+            segment.putLong(offset + SERVICE_TIME, serviceTimeNanos);
+            segment.putInt(offset + BYTES, bytes);
+            segment.putInt(offset + ERROR, error.ordinal());
+            segment.putLong(offset + BODY_OFFSET, bodyOffset);
+            return index;
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    public boolean isStoringBodies() {
+        return bodyChannel != null;
+    }
+
+    public long getRecordCount() {
+        return nextRecord.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        while (appending.get() > 0) {
+            Thread.onSpinWait();
+        }
+
+        long count = nextRecord.get();
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) segment.force();
+        }
+        header.putLong(HEADER_COUNT, count);
+        header.force();
+        segments = new MappedByteBuffer[0];
+        // Segments are mapped at full size, the unused tail of the last one is given back unless a reader has it mapped.
+        // A tail left behind is harmless, readers of a closed journal stop at the count in the header.
+        try {
+            if (!readers.whileNoneOpen(() -> channel.truncate(HEADER_SIZE + count * RECORD_SIZE)))
+                log.info("Journal {} is being read, its unused tail is kept", directory);
+        } catch (IOException e) {
+            // Some platforms refuse to shrink a file that is still mapped, the reader relies on the count anyway
+            log.warn("Journal {} could not be truncated: {}", directory, e.getMessage());
+        }
+        channel.close();
+        if (bodyChannel != null) bodyChannel.close();
+        onClose.run();
+        log.info("Journal {} closed with {} samples", directory, count);
+    }
+
+    private long appendBody(byte[] body) {
+        long offset = nextBodyOffset.getAndAdd(Integer.BYTES + body.length);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(body.length).put(body).flip();
+        try {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += bodyChannel.write(buffer, position);
+            }
+            return offset;
+        } catch (IOException e) {
+            log.warn("Failed to store response body: {}", e.getMessage());
+            return NO_BODY;
+        }
+    }
+
+    private MappedByteBuffer segment(int index) {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length && current[index] != null) return current[index];
+
+        synchronized (this) {
+            current = segments;
+            if (index < current.length && current[index] != null) return current[index];
+            try {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, segmentPosition(index), SEGMENT_SIZE);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                MappedByteBuffer[] grown = Arrays.copyOf(current, Math.max(current.length, index + 1));
+                grown[index] = mapped;
+                segments = grown;
+                return mapped;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
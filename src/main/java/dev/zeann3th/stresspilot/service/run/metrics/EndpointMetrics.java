@@ -0,0 +1,141 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import dev.zeann3th.stresspilot.common.enums.LatencyMetric;
+import dev.zeann3th.stresspilot.common.enums.LatencyScope;
+import dev.zeann3th.stresspilot.common.enums.RollupResolution;
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import dev.zeann3th.stresspilot.dto.run.EndpointMetricsDTO;
+import dev.zeann3th.stresspilot.dto.run.EndpointSummaryDTO;
+import dev.zeann3th.stresspilot.entity.RunRollupEntity;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+@Getter
+class EndpointMetrics {
+    private static final double MICROS_PER_MILLI = 1000d;
+    private static final int STATUS_CODES = 600;
+    private static final String OTHER_STATUS = "other";
+    private static final SampleError[] SAMPLE_ERRORS = SampleError.values();
+
+    private final Long endpointId;
+    private final String name;
+    private final LatencyRecorder corrected;
+    private final LatencyRecorder service;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder latencySumUs = new LongAdder();
+    // Status codes and error kinds are counted as they happen, the summary never has to scan samples
+    private final AtomicLongArray statusCounts = new AtomicLongArray(STATUS_CODES);
+    private final LongAdder otherStatusCount = new LongAdder();
+    private final AtomicLongArray errorCounts = new AtomicLongArray(SAMPLE_ERRORS.length);
+    private final RollupWindow[] rollups = Arrays.stream(RollupResolution.values())
+            .map(RollupWindow::new)
+            .toArray(RollupWindow[]::new);
+    private long lastRequests;
+    private long lastErrors;
+    private long lastLatencySumUs;
+
+    EndpointMetrics(Long endpointId, String name) {
+        this.endpointId = endpointId;
+        this.name = name;
+        this.corrected = new LatencyRecorder(LatencyScope.ENDPOINT, String.valueOf(endpointId), LatencyMetric.CORRECTED);
+        this.service = new LatencyRecorder(LatencyScope.ENDPOINT, String.valueOf(endpointId), LatencyMetric.SERVICE);
+    }
+
+    void record(long correctedNanos, long serviceNanos, int statusCode, SampleError error) {
+        corrected.record(correctedNanos);
+        service.record(serviceNanos);
+        requests.increment();
+        latencySumUs.add(TimeUnit.NANOSECONDS.toMicros(correctedNanos));
+        if (statusCode >= 0 && statusCode < STATUS_CODES) statusCounts.incrementAndGet(statusCode);
+        else otherStatusCount.increment();
+        if (error != SampleError.NONE) {
+            errors.increment();
+            errorCounts.incrementAndGet(error.ordinal());
+        }
+        inFlight.decrement();
+    }
+
+    // Called after the recorders were snapshotted, counters are reported as deltas since the previous interval
+    EndpointMetricsDTO interval(double intervalSeconds) {
+        long totalRequests = requests.sum();
+        long totalErrors = errors.sum();
+        long intervalRequests = totalRequests - lastRequests;
+        long intervalErrors = totalErrors - lastErrors;
+        lastRequests = totalRequests;
+        lastErrors = totalErrors;
+
+        Histogram latency = corrected.getInterval();
+        return EndpointMetricsDTO.builder()
+                .endpointId(endpointId)
+                .requests(intervalRequests)
+                .totalRequests(totalRequests)
+                .requestsPerSecond(intervalSeconds > 0 ? intervalRequests / intervalSeconds : 0)
+                .errors(intervalErrors)
+                .errorRate(intervalRequests > 0 ? (double) intervalErrors / intervalRequests : 0)
+                .inFlight(Math.max(0, inFlight.sum()))
+                .p50Ms(latency.getValueAtPercentile(50) / MICROS_PER_MILLI)
+                .p90Ms(latency.getValueAtPercentile(90) / MICROS_PER_MILLI)
+                .p99Ms(latency.getValueAtPercentile(99) / MICROS_PER_MILLI)
+                .maxMs(latency.getMaxValue() / MICROS_PER_MILLI)
+                .build();
+    }
+
+    // Called right after interval, which is what the rollups take their counts from
+    void rollup(Long runId, long second, long intervalMs, EndpointMetricsDTO interval, List<RunRollupEntity> finished) {
+        long totalLatencySumUs = latencySumUs.sum();
+        long intervalLatencySumUs = totalLatencySumUs - lastLatencySumUs;
+        lastLatencySumUs = totalLatencySumUs;
+        for (RollupWindow window : rollups) {
+            window.add(runId, endpointId, second, intervalMs, interval.getRequests(), interval.getErrors(),
+                    intervalLatencySumUs, corrected.getInterval(), finished);
+        }
+    }
+
+    void closeRollups(Long runId, List<RunRollupEntity> finished) {
+        for (RollupWindow window : rollups) {
+            window.close(runId, endpointId, finished);
+        }
+    }
+
+    EndpointSummaryDTO summarize(double durationSeconds) {
+        long totalRequests = requests.sum();
+        long totalErrors = errors.sum();
+
+        Map<String, Long> statusCodes = new LinkedHashMap<>();
+        for (int code = 0; code < STATUS_CODES; code++) {
+            long count = statusCounts.get(code);
+            if (count > 0) statusCodes.put(String.valueOf(code), count);
+        }
+        long other = otherStatusCount.sum();
+        if (other > 0) statusCodes.put(OTHER_STATUS, other);
+
+        Map<String, Long> errorTypes = new LinkedHashMap<>();
+        for (SampleError error : SAMPLE_ERRORS) {
+            long count = errorCounts.get(error.ordinal());
+            if (count > 0) errorTypes.put(error.name(), count);
+        }
+
+        return EndpointSummaryDTO.builder()
+                .endpointId(endpointId)
+                .endpointName(name)
+                .requests(totalRequests)
+                .errors(totalErrors)
+                .errorRate(totalRequests > 0 ? (double) totalErrors / totalRequests : 0)
+                .requestsPerSecond(durationSeconds > 0 ? totalRequests / durationSeconds : 0)
+                .statusCodes(statusCodes)
+                .errorTypes(errorTypes)
+                .latency(corrected.summarizeCumulative())
+                .serviceLatency(service.summarizeCumulative())
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import dev.zeann3th.stresspilot.common.enums.LatencyMetric;
+import dev.zeann3th.stresspilot.common.enums.LatencyScope;
+import dev.zeann3th.stresspilot.dto.run.LatencySummaryDTO;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Writers record wait-free into the Recorder, snapshots swap its active histogram out and fold it into the totals
+@Getter
+public class LatencyRecorder {
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000d;
+
+    private final LatencyScope scope;
+    private final String key;
+    private final LatencyMetric metric;
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram cumulative = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    LatencyRecorder(LatencyScope scope, String key, LatencyMetric metric) {
+        this.scope = scope;
+        this.key = key;
+        this.metric = metric;
+        this.interval = recorder.getIntervalHistogram();
+    }
+
+    void record(long nanos) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    void snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        cumulative.add(interval);
+    }
+
+    static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] encoded = new byte[length];
+        buffer.flip().get(encoded);
+        return encoded;
+    }
+
+    LatencySummaryDTO summarizeCumulative() {
+        return summarize(cumulative);
+    }
+
+    private LatencySummaryDTO summarize(Histogram histogram) {
+        boolean empty = histogram.getTotalCount() == 0;
+        return LatencySummaryDTO.builder()
+                .scope(scope.name())
+                .key(key)
+                .metric(metric.name())
+                .count(histogram.getTotalCount())
+                .minMs(empty ? 0 : histogram.getMinValue() / MICROS_PER_MILLI)
+                .meanMs(empty ? 0 : histogram.getMean() / MICROS_PER_MILLI)
+                .p50Ms(histogram.getValueAtPercentile(50) / MICROS_PER_MILLI)
+                .p90Ms(histogram.getValueAtPercentile(90) / MICROS_PER_MILLI)
+                .p99Ms(histogram.getValueAtPercentile(99) / MICROS_PER_MILLI)
+                .p999Ms(histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI)
+                .maxMs(histogram.getMaxValue() / MICROS_PER_MILLI)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import dev.zeann3th.stresspilot.common.enums.RollupResolution;
+import dev.zeann3th.stresspilot.entity.RunRollupEntity;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+
+// Accumulates the snapshot intervals of one endpoint that start inside the same bucket, only touched by the snapshot thread
+class RollupWindow {
+    // Two digits keep a stored histogram to a few hundred bytes, plenty for a chart
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final RollupResolution resolution;
+    private final Histogram latency = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private long start = -1;
+    private long durationMs;
+    private long requests;
+    private long errors;
+    private long latencySumUs;
+
+    RollupWindow(RollupResolution resolution) {
+        this.resolution = resolution;
+    }
+
+    // Adding an interval of a later bucket hands the current one out first
+    void add(Long runId, Long endpointId, long second, long intervalMs, long intervalRequests, long intervalErrors,
+             long intervalLatencySumUs, Histogram intervalLatency, List<RunRollupEntity> finished) {
+        long bucket = second - second % resolution.getSeconds();
+        if (bucket != start) {
+            close(runId, endpointId, finished);
+            start = bucket;
+        }
+        durationMs += intervalMs;
+        requests += intervalRequests;
+        errors += intervalErrors;
+        latencySumUs += intervalLatencySumUs;
+        latency.add(intervalLatency);
+    }
+
+    void close(Long runId, Long endpointId, List<RunRollupEntity> finished) {
+        if (start >= 0 && requests > 0) {
+            finished.add(RunRollupEntity.builder()
+                    .runId(runId)
+                    .endpointId(endpointId)
+                    .resolution(resolution.getSeconds())
+                    .elapsedSecond(start)
+                    .durationMs(durationMs)
+                    .requests(requests)
+                    .errors(errors)
+                    .latencySumUs(latencySumUs)
+                    .latencyMinUs(latency.getMinValue())
+                    .latencyMaxUs(latency.getMaxValue())
+                    .histogram(LatencyRecorder.encode(latency))
+                    .build());
+        }
+        start = -1;
+        durationMs = 0;
+        requests = 0;
+        errors = 0;
+        latencySumUs = 0;
+        latency.reset();
+    }
+}
@@ -0,0 +1,209 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import dev.zeann3th.stresspilot.common.enums.FlowStepType;
+import dev.zeann3th.stresspilot.common.enums.LatencyMetric;
+import dev.zeann3th.stresspilot.common.enums.LatencyScope;
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import dev.zeann3th.stresspilot.dto.run.*;
+import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunRollupEntity;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledStep;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Recorders are resolved per step index when the run starts, so recording is a few array reads
+public class RunMetrics {
+    private static final double MICROS_PER_MILLI = 1000d;
+    private static final double MIN_PEAK_INTERVAL_SECONDS = 0.5;
+
+    @Getter
+    private final Long runId;
+    private final long startedAtMs = System.currentTimeMillis();
+    private final long startedAtNanos = System.nanoTime();
+    private final LatencyRecorder[] stepCorrected;
+    private final LatencyRecorder[] stepService;
+    private final EndpointMetrics[] endpointByStep;
+    private final List<EndpointMetrics> endpoints = new ArrayList<>();
+    private final List<LatencyRecorder> recorders = new ArrayList<>();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    // Every snapshot appends one point, so the run summary is complete the moment the run ends
+    private final List<TimelinePointDTO> timeline = new ArrayList<>();
+    private final Histogram runInterval = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, LatencyRecorder.SIGNIFICANT_DIGITS);
+    // Finished rollup buckets waiting to be stored
+    private final List<RunRollupEntity> rollups = new ArrayList<>();
+    private long lastSnapshotNanos = startedAtNanos;
+    private double peakRequestsPerSecond;
+
+    public RunMetrics(Long runId, FlowPlan plan) {
+        this.runId = runId;
+        CompiledStep[] steps = plan.getSteps();
+        this.stepCorrected = new LatencyRecorder[steps.length];
+        this.stepService = new LatencyRecorder[steps.length];
+        this.endpointByStep = new EndpointMetrics[steps.length];
+
+        Map<Long, EndpointMetrics> byEndpoint = new LinkedHashMap<>();
+        for (CompiledStep step : steps) {
+            if (step.getType() != FlowStepType.ENDPOINT) continue;
+            int i = step.getIndex();
+            endpointByStep[i] = byEndpoint.computeIfAbsent(step.getEndpoint().getId(), id -> {
+                EndpointMetrics endpoint = new EndpointMetrics(id, step.getEndpoint().getName());
+                endpoints.add(endpoint);
+                recorders.add(endpoint.getCorrected());
+                recorders.add(endpoint.getService());
+                return endpoint;
+            });
+            stepCorrected[i] = register(LatencyScope.STEP, step.getId(), LatencyMetric.CORRECTED);
+            stepService[i] = register(LatencyScope.STEP, step.getId(), LatencyMetric.SERVICE);
+        }
+    }
+
+    public void userStarted() {
+        activeUsers.incrementAndGet();
+    }
+
+    public void userFinished() {
+        activeUsers.decrementAndGet();
+    }
+
+    public void requestStarted(int stepIndex) {
+        endpointByStep[stepIndex].getInFlight().increment();
+    }
+
+    public void requestCancelled(int stepIndex) {
+        endpointByStep[stepIndex].getInFlight().decrement();
+    }
+
+    public void record(int stepIndex, long correctedNanos, long serviceNanos, int statusCode, SampleError error) {
+        stepCorrected[stepIndex].record(correctedNanos);
+        stepService[stepIndex].record(serviceNanos);
+        endpointByStep[stepIndex].record(correctedNanos, serviceNanos, statusCode, error);
+    }
+
+    public synchronized RunMetricsSnapshotDTO snapshot() {
+        for (LatencyRecorder recorder : recorders) {
+            recorder.snapshot();
+        }
+
+        long now = System.nanoTime();
+        double intervalSeconds = (now - lastSnapshotNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        long intervalMs = TimeUnit.NANOSECONDS.toMillis(now - lastSnapshotNanos);
+        // An interval belongs to the second it started in
+        long second = TimeUnit.NANOSECONDS.toSeconds(lastSnapshotNanos - startedAtNanos);
+        lastSnapshotNanos = now;
+
+        List<EndpointMetricsDTO> endpointMetrics = new ArrayList<>(endpoints.size());
+        long requests = 0;
+        long errors = 0;
+        long inFlight = 0;
+        runInterval.reset();
+        for (EndpointMetrics endpoint : endpoints) {
+            EndpointMetricsDTO interval = endpoint.interval(intervalSeconds);
+            endpoint.rollup(runId, second, intervalMs, interval, rollups);
+            endpointMetrics.add(interval);
+            requests += interval.getRequests();
+            errors += interval.getErrors();
+            inFlight += interval.getInFlight();
+            runInterval.add(endpoint.getCorrected().getInterval());
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - startedAtNanos);
+        int users = Math.max(0, activeUsers.get());
+        double requestsPerSecond = intervalSeconds > 0 ? requests / intervalSeconds : 0;
+        // The final snapshot can cover a few milliseconds, its rate would overstate the peak
+        if (intervalSeconds >= MIN_PEAK_INTERVAL_SECONDS)
+            peakRequestsPerSecond = Math.max(peakRequestsPerSecond, requestsPerSecond);
+        timeline.add(TimelinePointDTO.builder()
+                .elapsedMs(elapsedMs)
+                .requests(requests)
+                .errors(errors)
+                .requestsPerSecond(requestsPerSecond)
+                .activeUsers(users)
+                .p50Ms(runInterval.getValueAtPercentile(50) / MICROS_PER_MILLI)
+                .p99Ms(runInterval.getValueAtPercentile(99) / MICROS_PER_MILLI)
+                .build());
+
+        return RunMetricsSnapshotDTO.builder()
+                .runId(runId)
+                .timestamp(System.currentTimeMillis())
+                .elapsedMs(elapsedMs)
+                .activeUsers(users)
+                .requestsPerSecond(requestsPerSecond)
+                .errorRate(requests > 0 ? (double) errors / requests : 0)
+                .inFlight(inFlight)
+                .endpoints(endpointMetrics)
+                .build();
+    }
+
+    public synchronized List<RunRollupEntity> drainRollups() {
+        List<RunRollupEntity> finished = List.copyOf(rollups);
+        rollups.clear();
+        return finished;
+    }
+
+    // After the final snapshot, hands out the buckets still open
+    public synchronized List<RunRollupEntity> closeRollups() {
+        for (EndpointMetrics endpoint : endpoints) {
+            endpoint.closeRollups(runId, rollups);
+        }
+        return drainRollups();
+    }
+
+    public synchronized List<LatencySummaryDTO> getCumulativeSummaries() {
+        return recorders.stream().map(LatencyRecorder::summarizeCumulative).toList();
+    }
+
+    // Only complete after the final snapshot, which folds the last interval into the totals
+    public synchronized RunSummaryDTO toSummary(RunEntity run) {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(lastSnapshotNanos - startedAtNanos);
+        double durationSeconds = durationMs / 1000d;
+
+        List<EndpointSummaryDTO> endpointSummaries = new ArrayList<>(endpoints.size());
+        long requests = 0;
+        long errors = 0;
+        for (EndpointMetrics endpoint : endpoints) {
+            EndpointSummaryDTO summary = endpoint.summarize(durationSeconds);
+            endpointSummaries.add(summary);
+            requests += summary.getRequests();
+            errors += summary.getErrors();
+        }
+
+        List<LatencySummaryDTO> steps = recorders.stream()
+                .filter(recorder -> recorder.getScope() == LatencyScope.STEP)
+                .map(LatencyRecorder::summarizeCumulative)
+                .toList();
+
+        return RunSummaryDTO.builder()
+                .runId(runId)
+                .flowId(run.getFlowId())
+                .loadModel(run.getLoadModel())
+                .threads(run.getThreads())
+                .startedAt(startedAtMs)
+                .durationMs(durationMs)
+                .totalRequests(requests)
+                .totalErrors(errors)
+                .errorRate(requests > 0 ? (double) errors / requests : 0)
+                .avgRequestsPerSecond(durationSeconds > 0 ? requests / durationSeconds : 0)
+                .peakRequestsPerSecond(peakRequestsPerSecond)
+                .droppedIterations(run.getDroppedIterations())
+                .lateIterations(run.getLateIterations())
+                .endpoints(endpointSummaries)
+                .steps(steps)
+                .timeline(List.copyOf(timeline))
+                .build();
+    }
+
+    List<LatencyRecorder> getRecorders() {
+        return recorders;
+    }
+
+    private LatencyRecorder register(LatencyScope scope, String key, LatencyMetric metric) {
+        LatencyRecorder recorder = new LatencyRecorder(scope, key, metric);
+        recorders.add(recorder);
+        return recorder;
+    }
+}
@@ -0,0 +1,271 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.common.enums.ErrorCode;
+import dev.zeann3th.stresspilot.common.enums.RollupResolution;
+import dev.zeann3th.stresspilot.dto.run.LatencySummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunSummaryDTO;
+import dev.zeann3th.stresspilot.dto.run.RunTimeSeriesDTO;
+import dev.zeann3th.stresspilot.dto.run.TimeSeriesPointDTO;
+import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunLatencyHistogramEntity;
+import dev.zeann3th.stresspilot.entity.RunRollupEntity;
+import dev.zeann3th.stresspilot.entity.RunSummaryEntity;
+import dev.zeann3th.stresspilot.exception.CommandExceptionBuilder;
+import dev.zeann3th.stresspilot.repository.RunLatencyHistogramRepository;
+import dev.zeann3th.stresspilot.repository.RunRollupRepository;
+import dev.zeann3th.stresspilot.repository.RunSummaryRepository;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+@Slf4j(topic = "[Run Metrics]")
+@Component
+@RequiredArgsConstructor
+public class RunMetricsRegistry {
+    private static final double MICROS_PER_MILLI = 1000d;
+    // The default resolution is the finest one that keeps a chart below this many points
+    private static final int MAX_DEFAULT_POINTS = 600;
+
+    private final RunLatencyHistogramRepository runLatencyHistogramRepository;
+    private final RunSummaryRepository runSummaryRepository;
+    private final RunRollupRepository runRollupRepository;
+    private final RunMetricsStreamer runMetricsStreamer;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, RunMetrics> liveRuns = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("run-metrics").daemon().factory());
+        scheduler.scheduleAtFixedRate(this::snapshotLiveRuns, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public RunMetrics register(Long runId, FlowPlan plan) {
+        RunMetrics metrics = new RunMetrics(runId, plan);
+        liveRuns.put(runId, metrics);
+        return metrics;
+    }
+
+    public Optional<RunMetrics> getLive(Long runId) {
+        return Optional.ofNullable(liveRuns.get(runId));
+    }
+
+    // Takes the last interval and stores the merged histograms and the summary, so finished runs never need their samples again
+    public void complete(RunEntity run) {
+        Long runId = run.getId();
+        RunMetrics metrics = liveRuns.get(runId);
+        if (metrics == null) return;
+
+        // A run that failed to persist is still over, left in liveRuns it could never be deleted
+        try {
+            runMetricsStreamer.publish(runId, metrics.snapshot());
+            saveRollups(runId, metrics.closeRollups());
+            List<RunLatencyHistogramEntity> entities = metrics.getRecorders().stream()
+                    .map(recorder -> toEntity(runId, recorder))
+                    .toList();
+            runLatencyHistogramRepository.saveAll(entities);
+            saveSummary(metrics.toSummary(run));
+            log.info("Stored {} latency histograms for run {}", entities.size(), runId);
+        } finally {
+            liveRuns.remove(runId);
+            runMetricsStreamer.complete(runId, metrics.getCumulativeSummaries());
+        }
+    }
+
+    // Viewers of a finished run only get the completed event with the stored percentiles
+    public SseEmitter stream(Long runId) {
+        SseEmitter emitter = runMetricsStreamer.subscribe(runId);
+        if (!liveRuns.containsKey(runId))
+            runMetricsStreamer.complete(runId, getSummaries(runId));
+        return emitter;
+    }
+
+    // Drops everything stored for a finished run
+    public void delete(Long runId) {
+        runRollupRepository.deleteAllByRunId(runId);
+        runLatencyHistogramRepository.deleteAllByRunId(runId);
+        if (runSummaryRepository.existsById(runId)) runSummaryRepository.deleteById(runId);
+    }
+
+    public List<LatencySummaryDTO> getSummaries(Long runId) {
+        RunMetrics live = liveRuns.get(runId);
+        if (live != null) return live.getCumulativeSummaries();
+
+        return runLatencyHistogramRepository.findByRunId(runId).stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    public Optional<RunSummaryDTO> getRunSummary(Long runId) {
+        return runSummaryRepository.findById(runId).map(entity -> {
+            try {
+                return objectMapper.readValue(entity.getSummary(), RunSummaryDTO.class);
+            } catch (JsonProcessingException e) {
+                log.error("Stored summary of run {} is unreadable: {}", runId, e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    // Reads the rollups only, so a chart costs the same however many samples the run had
+    public RunTimeSeriesDTO getTimeSeries(Long runId, RollupResolution resolution, Long endpointId) {
+        if (resolution == null) resolution = defaultResolution(runId);
+        List<RunRollupEntity> rollups = endpointId != null
+                ? runRollupRepository.findByRunIdAndResolutionAndEndpointIdOrderByElapsedSecondAsc(runId, resolution.getSeconds(), endpointId)
+                : runRollupRepository.findByRunIdAndResolutionOrderByElapsedSecondAscEndpointIdAsc(runId, resolution.getSeconds());
+
+        // Rows are ordered by bucket, the endpoints of a bucket are merged into one point
+        Map<Long, List<RunRollupEntity>> buckets = new LinkedHashMap<>();
+        for (RunRollupEntity rollup : rollups) {
+            buckets.computeIfAbsent(rollup.getElapsedSecond(), second -> new ArrayList<>()).add(rollup);
+        }
+        Histogram latency = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, LatencyRecorder.SIGNIFICANT_DIGITS);
+        List<TimeSeriesPointDTO> points = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, List<RunRollupEntity>> bucket : buckets.entrySet()) {
+            points.add(toPoint(runId, bucket.getKey(), bucket.getValue(), latency));
+        }
+
+        return RunTimeSeriesDTO.builder()
+                .runId(runId)
+                .endpointId(endpointId)
+                .resolution(resolution.getLabel())
+                .points(points)
+                .build();
+    }
+
+    private RollupResolution defaultResolution(Long runId) {
+        long lastSecond = runRollupRepository
+                .findFirstByRunIdAndResolutionOrderByElapsedSecondDesc(runId, RollupResolution.SECOND.getSeconds())
+                .map(RunRollupEntity::getElapsedSecond)
+                .orElse(0L);
+        for (RollupResolution resolution : RollupResolution.values()) {
+            if (lastSecond / resolution.getSeconds() < MAX_DEFAULT_POINTS) return resolution;
+        }
+        return RollupResolution.MINUTE;
+    }
+
+    private TimeSeriesPointDTO toPoint(Long runId, long second, List<RunRollupEntity> rollups, Histogram latency) {
+        latency.reset();
+        long requests = 0;
+        long errors = 0;
+        long latencySumUs = 0;
+        long durationMs = 0;
+        for (RunRollupEntity rollup : rollups) {
+            requests += rollup.getRequests();
+            errors += rollup.getErrors();
+            latencySumUs += rollup.getLatencySumUs();
+            durationMs = Math.max(durationMs, rollup.getDurationMs());
+            try {
+                latency.add(Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(rollup.getHistogram()),
+                        LatencyRecorder.HIGHEST_TRACKABLE_MICROS));
+            } catch (DataFormatException e) {
+                log.error("Rollup {} of run {} is unreadable: {}", rollup.getId(), runId, e.getMessage());
+                throw CommandExceptionBuilder.exception(ErrorCode.RUN_DATA_UNREADABLE);
+            }
+        }
+        return TimeSeriesPointDTO.builder()
+                .elapsedMs(TimeUnit.SECONDS.toMillis(second))
+                .requests(requests)
+                .errors(errors)
+                .requestsPerSecond(durationMs > 0 ? requests * 1000d / durationMs : 0)
+                .errorRate(requests > 0 ? (double) errors / requests : 0)
+                .minMs(latency.getMinValue() / MICROS_PER_MILLI)
+                .meanMs(requests > 0 ? latencySumUs / MICROS_PER_MILLI / requests : 0)
+                .p50Ms(latency.getValueAtPercentile(50) / MICROS_PER_MILLI)
+                .p90Ms(latency.getValueAtPercentile(90) / MICROS_PER_MILLI)
+                .p99Ms(latency.getValueAtPercentile(99) / MICROS_PER_MILLI)
+                .maxMs(latency.getMaxValue() / MICROS_PER_MILLI)
+                .build();
+    }
+
+    private void saveRollups(Long runId, List<RunRollupEntity> rollups) {
+        if (rollups.isEmpty()) return;
+        try {
+            runRollupRepository.saveAll(rollups);
+        } catch (Exception e) {
+            log.error("Failed to store {} rollups of run {}: {}", rollups.size(), runId, e.getMessage());
+        }
+    }
+
+    private void saveSummary(RunSummaryDTO summary) {
+        try {
+            runSummaryRepository.save(RunSummaryEntity.builder()
+                    .runId(summary.getRunId())
+                    .summary(objectMapper.writeValueAsString(summary))
+                    .build());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to store summary of run {}: {}", summary.getRunId(), e.getMessage());
+        }
+    }
+
+    private void snapshotLiveRuns() {
+        for (RunMetrics metrics : liveRuns.values()) {
+            try {
+                runMetricsStreamer.publish(metrics.getRunId(), metrics.snapshot());
+                saveRollups(metrics.getRunId(), metrics.drainRollups());
+            } catch (Exception e) {
+                log.error("Failed to snapshot latency of run {}: {}", metrics.getRunId(), e.getMessage());
+            }
+        }
+    }
+
+    private RunLatencyHistogramEntity toEntity(Long runId, LatencyRecorder recorder) {
+        Histogram histogram = recorder.getCumulative();
+        boolean empty = histogram.getTotalCount() == 0;
+        return RunLatencyHistogramEntity.builder()
+                .runId(runId)
+                .scope(recorder.getScope().name())
+                .scopeKey(recorder.getKey())
+                .metric(recorder.getMetric().name())
+                .sampleCount(histogram.getTotalCount())
+                .minUs(empty ? 0 : histogram.getMinValue())
+                .meanUs(empty ? 0 : histogram.getMean())
+                .p50Us(histogram.getValueAtPercentile(50))
+                .p90Us(histogram.getValueAtPercentile(90))
+                .p99Us(histogram.getValueAtPercentile(99))
+                .p999Us(histogram.getValueAtPercentile(99.9))
+                .maxUs(histogram.getMaxValue())
+                .histogram(LatencyRecorder.encode(histogram))
+                .build();
+    }
+
+    private LatencySummaryDTO toSummary(RunLatencyHistogramEntity entity) {
+        return LatencySummaryDTO.builder()
+                .scope(entity.getScope())
+                .key(entity.getScopeKey())
+                .metric(entity.getMetric())
+                .count(entity.getSampleCount())
+                .minMs(entity.getMinUs() / MICROS_PER_MILLI)
+                .meanMs(entity.getMeanUs() / MICROS_PER_MILLI)
+                .p50Ms(entity.getP50Us() / MICROS_PER_MILLI)
+                .p90Ms(entity.getP90Us() / MICROS_PER_MILLI)
+                .p99Ms(entity.getP99Us() / MICROS_PER_MILLI)
+                .p999Ms(entity.getP999Us() / MICROS_PER_MILLI)
+                .maxMs(entity.getMaxUs() / MICROS_PER_MILLI)
+                .build();
+    }
+}
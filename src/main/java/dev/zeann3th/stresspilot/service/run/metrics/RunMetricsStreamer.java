@@ -0,0 +1,100 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Each event is serialized once and written to every viewer from its own virtual thread,
+// a viewer still busy with the previous event skips the next one instead of queueing it
+@Slf4j(topic = "[Run Metrics]")
+@Component
+@RequiredArgsConstructor
+public class RunMetricsStreamer {
+    public static final String METRICS_EVENT = "metrics";
+    public static final String COMPLETED_EVENT = "completed";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, List<Viewer>> viewers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-", 0).factory());
+
+    public SseEmitter subscribe(Long runId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Viewer viewer = new Viewer(emitter);
+        List<Viewer> runViewers = viewers.computeIfAbsent(runId, id -> new CopyOnWriteArrayList<>());
+        runViewers.add(viewer);
+
+        Runnable remove = () -> runViewers.remove(viewer);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    public void publish(Long runId, Object event) {
+        List<Viewer> runViewers = viewers.get(runId);
+        if (runViewers == null || runViewers.isEmpty()) return;
+
+        String payload = serialize(event);
+        if (payload == null) return;
+        for (Viewer viewer : runViewers) {
+            if (!viewer.sending.compareAndSet(false, true)) continue;
+            senders.execute(() -> {
+                try {
+                    viewer.emitter.send(SseEmitter.event().name(METRICS_EVENT).data(payload, MediaType.APPLICATION_JSON));
+                } catch (Exception e) {
+                    runViewers.remove(viewer);
+                    viewer.emitter.completeWithError(e);
+                } finally {
+                    viewer.sending.set(false);
+                }
+            });
+        }
+    }
+
+    public void complete(Long runId, Object finalEvent) {
+        List<Viewer> runViewers = viewers.remove(runId);
+        if (runViewers == null) return;
+
+        String payload = serialize(finalEvent);
+        for (Viewer viewer : runViewers) {
+            senders.execute(() -> {
+                try {
+                    if (payload != null)
+                        viewer.emitter.send(SseEmitter.event().name(COMPLETED_EVENT).data(payload, MediaType.APPLICATION_JSON));
+                    viewer.emitter.complete();
+                } catch (Exception e) {
+                    viewer.emitter.completeWithError(e);
+                }
+            });
+        }
+    }
+
+    private String serialize(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (Exception e) {
+            log.error("Failed to serialize run metrics: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static class Viewer {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Viewer(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.zeann3th.stresspilot.service.run.shard;
+
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Runs logged before shards existed keep their logs in the main database. They are moved into shards in the background
+// once the application is up, ids are kept so export cursors and sample ids stay valid. Each run is copied and then
+// removed from the main database on its own, an import cut off by a shutdown picks up at the next run on the next start.
+@Slf4j(topic = "[Run Shards]")
+@Component
+@RequiredArgsConstructor
+public class LegacyLogImporter {
+    private static final String RUN_IDS_SQL = "select distinct run_id from request_logs";
+    // Ignoring existing rows lets an import cut off by a shutdown simply run again
+    private static final String COPY_BODIES_SQL = "insert or ignore into run_bodies (id, hash, body, size, created_at, updated_at) "
+            + "select id, hash, body, size, created_at, updated_at from legacy.run_bodies where run_id = ?";
+    private static final String COPY_LOGS_SQL = "insert or ignore into request_logs "
+            + "(id, endpoint_id, status_code, response_time, service_time, request_body_id, response_body_id, request, response, created_at, updated_at) "
+            + "select id, endpoint_id, status_code, response_time, service_time, request_body_id, response_body_id, request, response, created_at, updated_at "
+            + "from legacy.request_logs where run_id = ?";
+
+    private final RunShardStore runShardStore;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void importLegacyLogs() {
+        List<Long> runIds = jdbcTemplate.queryForList(RUN_IDS_SQL, Long.class);
+        if (runIds.isEmpty()) return;
+        log.info("Moving the request logs of {} runs into shards", runIds.size());
+
+        String mainDatabase = PilotHome.resolve().resolve(Constants.DB_FILE_NAME).toAbsolutePath().toString();
+        int imported = 0;
+        for (Long runId : runIds) {
+            try {
+                importRun(runId, mainDatabase);
+                imported++;
+            } catch (Exception e) {
+                // Its logs stay in the main database and are tried again on the next start
+                log.error("Failed to move request logs of run {} into its shard: {}", runId, e.getMessage());
+            }
+        }
+
+        Long freePages = jdbcTemplate.queryForObject("PRAGMA freelist_count", Long.class);
+        jdbcTemplate.execute("PRAGMA incremental_vacuum");
+        log.info("Imported {} runs into shards, released {} free pages of the main database", imported, freePages);
+    }
+
+    private void importRun(Long runId, String mainDatabase) {
+        long startNanos = System.nanoTime();
+        RunShard shard = runShardStore.openForWrite(runId);
+        int[] copied = new int[2];
+        try {
+            JdbcTemplate shardJdbc = shard.getJdbcTemplate();
+            shardJdbc.update("attach database ? as legacy", mainDatabase);
+            try {
+                shard.getTransactionTemplate().executeWithoutResult(status -> {
+                    copied[0] = shardJdbc.update(COPY_BODIES_SQL, runId);
+                    copied[1] = shardJdbc.update(COPY_LOGS_SQL, runId);
+                });
+            } finally {
+                shardJdbc.execute("detach database legacy");
+            }
+        } catch (RuntimeException e) {
+            shard.close();
+            throw e;
+        }
+        runShardStore.seal(shard);
+
+        jdbcTemplate.update("delete from request_logs where run_id = ?", runId);
+        jdbcTemplate.update("delete from run_bodies where run_id = ?", runId);
+        log.info("Moved {} request logs and {} bodies of run {} into its shard in {} ms",
+                copied[1], copied[0], runId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+}
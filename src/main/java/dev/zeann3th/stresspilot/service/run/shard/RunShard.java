@@ -0,0 +1,37 @@
+package dev.zeann3th.stresspilot.service.run.shard;
+
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.sql.Connection;
+
+// One connection to the database file of a run, open only while that run is written or read. Not thread safe.
+public class RunShard implements Closeable {
+    @Getter
+    private final Long runId;
+    @Getter
+    private final Path path;
+    @Getter
+    private final JdbcTemplate jdbcTemplate;
+    @Getter
+    private final TransactionTemplate transactionTemplate;
+    private final SingleConnectionDataSource dataSource;
+
+    RunShard(Long runId, Path path, Connection connection) {
+        this.runId = runId;
+        this.path = path;
+        this.dataSource = new SingleConnectionDataSource(connection, true);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public void close() {
+        dataSource.destroy();
+    }
+}
@@ -0,0 +1,178 @@
+package dev.zeann3th.stresspilot.service.run.shard;
+
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import dev.zeann3th.stresspilot.config.DatabaseProperties;
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
+import dev.zeann3th.stresspilot.repository.RunShardRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Request logs and bodies of every run live in their own database file next to its journal, so heavy runs never
+// contend with the main database and dropping a run's logs is a file unlink. The run_shards table is the catalog.
+@Slf4j(topic = "[Run Shards]")
+@Component
+@RequiredArgsConstructor
+public class RunShardStore {
+    static final String SHARD_FILE = "request_logs.db";
+    private static final String[] SIDE_FILE_SUFFIXES = {"-wal", "-shm", "-journal"};
+    private static final int SCHEMA_VERSION = 1;
+
+    private final RunShardRepository runShardRepository;
+    private final DatabaseProperties databaseProperties;
+
+    // Shards a previous process was still writing when it stopped
+    @PostConstruct
+    public void sealAbandoned() {
+        for (RunShardEntity entry : runShardRepository.findBySealedAtIsNull()) {
+            Long runId = entry.getRunId();
+            if (!Files.exists(path(runId))) {
+                runShardRepository.delete(entry);
+                continue;
+            }
+            try {
+                seal(openForWrite(runId));
+                log.info("Sealed shard of run {} left open by a previous start", runId);
+            } catch (Exception e) {
+                log.error("Failed to seal shard of run {}: {}", runId, e.getMessage());
+            }
+        }
+    }
+
+    // Creates the file and its catalog entry on first use
+    public RunShard openForWrite(Long runId) {
+        Path path = path(runId);
+        try {
+            Files.createDirectories(path.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        RunShard shard = open(runId, path, false);
+        try {
+            Integer version = shard.getJdbcTemplate().queryForObject("PRAGMA user_version", Integer.class);
+            if (version == null || version < SCHEMA_VERSION) createSchema(shard);
+            if (!runShardRepository.existsById(runId)) {
+                runShardRepository.save(RunShardEntity.builder()
+                        .runId(runId)
+                        .samples(0L)
+                        .bodies(0L)
+                        .sizeBytes(0L)
+                        .build());
+            }
+            return shard;
+        } catch (RuntimeException e) {
+            shard.close();
+            throw e;
+        }
+    }
+
+    public Optional<RunShard> openForRead(Long runId) {
+        Path path = path(runId);
+        if (!Files.exists(path)) return Optional.empty();
+        return Optional.of(open(runId, path, true));
+    }
+
+    // Closes the shard and records its final counts. Back in rollback journal mode the shard is one self contained file.
+    public void seal(RunShard shard) {
+        Long runId = shard.getRunId();
+        RunShardEntity entry = runShardRepository.findById(runId)
+                .orElseGet(() -> RunShardEntity.builder().runId(runId).build());
+        try (shard) {
+            JdbcTemplate jdbcTemplate = shard.getJdbcTemplate();
+            try {
+                jdbcTemplate.execute("PRAGMA journal_mode = DELETE");
+            } catch (DataAccessException e) {
+                // A reader still has the file open, it stays in WAL mode until the next seal
+                log.warn("Shard of run {} kept in WAL mode: {}", runId, e.getMessage());
+            }
+            jdbcTemplate.query("select count(*), min(created_at), max(created_at) from request_logs", rs -> {
+                entry.setSamples(rs.getLong(1));
+                entry.setFirstSampleAt(toLocalDateTime(rs.getTimestamp(2)));
+                entry.setLastSampleAt(toLocalDateTime(rs.getTimestamp(3)));
+            });
+            entry.setBodies(jdbcTemplate.queryForObject("select count(*) from run_bodies", Long.class));
+        }
+        entry.setSizeBytes(size(shard.getPath()));
+        entry.setSealedAt(LocalDateTime.now());
+        runShardRepository.save(entry);
+    }
+
+    // Only the file is removed, the main database just loses one catalog row
+    public boolean delete(Long runId) throws IOException {
+        Path path = path(runId);
+        boolean deleted = Files.deleteIfExists(path);
+        for (String suffix : SIDE_FILE_SUFFIXES) {
+            Files.deleteIfExists(path.resolveSibling(SHARD_FILE + suffix));
+        }
+        runShardRepository.deleteById(runId);
+        return deleted;
+    }
+
+    // Newest run first
+    public List<RunShardEntity> catalog() {
+        return runShardRepository.findAllByOrderByRunIdDesc();
+    }
+
+    public Path path(Long runId) {
+        return PilotHome.runDirectory(runId).resolve(SHARD_FILE);
+    }
+
+    private RunShard open(Long runId, Path path, boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        // Lets the samples API read a run while it is still being written
+        if (!readOnly) config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(databaseProperties.getSynchronous());
+        config.setBusyTimeout(databaseProperties.getBusyTimeoutMs());
+        try {
+            return new RunShard(runId, path, config.createConnection("jdbc:sqlite:" + path.toAbsolutePath()));
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not open shard of run " + runId, e);
+        }
+    }
+
+    private void createSchema(RunShard shard) {
+        String sql;
+        try (InputStream input = getClass().getClassLoader().getResourceAsStream("db/shard.sql")) {
+            sql = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        shard.getTransactionTemplate().executeWithoutResult(status -> {
+            for (String statement : sql.split(";")) {
+                String trimmed = statement.trim();
+                if (!trimmed.isEmpty()) shard.getJdbcTemplate().execute(trimmed);
+            }
+            shard.getJdbcTemplate().execute("PRAGMA user_version = " + SCHEMA_VERSION);
+        });
+    }
+
+    private long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
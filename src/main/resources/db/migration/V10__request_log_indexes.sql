@@ -0,0 +1 @@
+create index idx_request_logs_run_id on request_logs (run_id);
@@ -0,0 +1,20 @@
+create table run_rollups
+(
+    id             integer
+        primary key,
+    run_id         bigint  not null,
+    endpoint_id    bigint  not null,
+    resolution     integer not null,
+    elapsed_second integer not null,
+    duration_ms    bigint  not null,
+    requests       bigint  not null,
+    errors         bigint  not null,
+    latency_sum_us bigint  not null,
+    latency_min_us bigint,
+    latency_max_us bigint,
+    histogram      BLOB,
+    created_at     timestamp,
+    updated_at     timestamp
+);
+
+create unique index idx_run_rollups_run_id_resolution on run_rollups (run_id, resolution, elapsed_second, endpoint_id);
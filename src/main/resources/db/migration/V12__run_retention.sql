@@ -0,0 +1,5 @@
+alter table runs add column archived_at timestamp;
+
+INSERT OR IGNORE INTO configs (config_key, config_value) VALUES
+('RETENTION_RAW_DAYS', '30'),
+('RETENTION_RAW_RUNS', '0');
@@ -0,0 +1,13 @@
+create table run_shards
+(
+    run_id          integer
+        primary key,
+    samples         bigint not null,
+    bodies          bigint not null,
+    size_bytes      bigint not null,
+    first_sample_at timestamp,
+    last_sample_at  timestamp,
+    sealed_at       timestamp,
+    created_at      timestamp,
+    updated_at      timestamp
+);
@@ -0,0 +1,7 @@
+alter table runs add column load_model VARCHAR(20);
+
+alter table runs add column arrival_rate real;
+
+alter table runs add column dropped_iterations bigint;
+
+alter table runs add column late_iterations bigint;
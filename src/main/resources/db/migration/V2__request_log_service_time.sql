@@ -0,0 +1 @@
+alter table request_logs add column service_time bigint;
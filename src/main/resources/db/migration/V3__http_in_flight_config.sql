@@ -0,0 +1,3 @@
+INSERT OR IGNORE INTO configs (config_key, config_value) VALUES
+('HTTP_MAX_IN_FLIGHT', '2000'),
+('HTTP_MAX_IN_FLIGHT_PER_HOST', '2000');
@@ -0,0 +1,4 @@
+INSERT OR IGNORE INTO configs (config_key, config_value) VALUES
+('REQUEST_LOG_QUEUE_CAPACITY', '65536'),
+('REQUEST_LOG_BATCH_SIZE', '2000'),
+('REQUEST_LOG_BACKPRESSURE', 'BLOCK');
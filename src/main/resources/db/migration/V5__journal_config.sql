@@ -0,0 +1,2 @@
+INSERT OR IGNORE INTO configs (config_key, config_value) VALUES
+('JOURNAL_RESPONSE_BODIES', 'false');
@@ -0,0 +1,22 @@
+create table run_latency_histograms
+(
+    id           integer
+        primary key,
+    run_id       bigint       not null,
+    scope        varchar(20)  not null,
+    scope_key    varchar(255) not null,
+    metric       varchar(20)  not null,
+    sample_count bigint       not null,
+    min_us       bigint,
+    mean_us      real,
+    p50_us       bigint,
+    p90_us       bigint,
+    p99_us       bigint,
+    p999_us      bigint,
+    max_us       bigint,
+    histogram    BLOB,
+    created_at   timestamp,
+    updated_at   timestamp
+);
+
+create index idx_run_latency_histograms_run_id on run_latency_histograms (run_id);
@@ -0,0 +1,8 @@
+create table run_summaries
+(
+    run_id     integer
+        primary key,
+    summary    TEXT not null,
+    created_at timestamp,
+    updated_at timestamp
+);
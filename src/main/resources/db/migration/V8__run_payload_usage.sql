@@ -0,0 +1,3 @@
+alter table runs add column payload_bytes bigint;
+
+alter table runs add column stored_payload_bytes bigint;
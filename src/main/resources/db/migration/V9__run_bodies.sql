@@ -0,0 +1,17 @@
+create table run_bodies
+(
+    id         integer
+        primary key,
+    run_id     bigint  not null,
+    hash       BLOB    not null,
+    body       BLOB,
+    size       integer not null,
+    created_at timestamp,
+    updated_at timestamp
+);
+
+create unique index idx_run_bodies_run_id_hash on run_bodies (run_id, hash);
+
+alter table request_logs add column request_body_id bigint;
+
+alter table request_logs add column response_body_id bigint;
@@ -0,0 +1,36 @@
+create table request_logs
+(
+    id               integer
+        primary key,
+    endpoint_id      bigint  not null,
+    status_code      integer not null,
+    response_time    bigint  not null,
+    service_time     bigint,
+    request_body_id  bigint,
+    response_body_id bigint,
+    request          TEXT,
+    response         TEXT,
+    created_at       timestamp,
+    updated_at       timestamp
+);
+
+create table run_bodies
+(
+    id         integer
+        primary key,
+    hash       BLOB    not null,
+    body       BLOB,
+    size       integer not null,
+    created_at timestamp,
+    updated_at timestamp
+);
+
+create unique index idx_run_bodies_hash on run_bodies (hash);
+
+create index idx_request_logs_endpoint_id on request_logs (endpoint_id);
+
+create index idx_request_logs_status_code on request_logs (status_code);
+
+create index idx_request_logs_response_time on request_logs (response_time);
+
+create index idx_request_logs_created_at on request_logs (created_at);
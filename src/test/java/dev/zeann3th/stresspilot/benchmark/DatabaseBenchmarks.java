@@ -0,0 +1,113 @@
+package dev.zeann3th.stresspilot.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import dev.zeann3th.stresspilot.config.DataSourceConfig;
+import dev.zeann3th.stresspilot.config.DatabaseProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The pooled SQLite data sources against a new driver connection per statement, on a database under a temporary PILOT_HOME
+class DatabaseBenchmarks {
+	private static final int INSERTS = 2_000;
+	private static final int READERS = 4;
+	private static final int READS_PER_READER = 2_000;
+
+	@TempDir
+	Path pilotHome;
+
+	private String previousPilotHome;
+	private HikariDataSource writeDataSource;
+	private HikariDataSource readDataSource;
+	private DriverManagerDataSource unpooled;
+
+	@BeforeEach
+	void setUp() {
+		previousPilotHome = System.setProperty(Constants.PILOT_HOME, pilotHome.toString());
+		DataSourceConfig config = new DataSourceConfig();
+		DatabaseProperties properties = new DatabaseProperties();
+		writeDataSource = config.writeDataSource(properties);
+		readDataSource = config.readDataSource(properties, writeDataSource);
+		unpooled = new DriverManagerDataSource("jdbc:sqlite:" + PilotHome.resolve().resolve(Constants.DB_FILE_NAME).toAbsolutePath());
+		new JdbcTemplate(writeDataSource).execute("create table benchmark_rows (id integer primary key, value text not null)");
+	}
+
+	@AfterEach
+	void tearDown() {
+		readDataSource.close();
+		writeDataSource.close();
+		if (previousPilotHome != null) System.setProperty(Constants.PILOT_HOME, previousPilotHome);
+		else System.clearProperty(Constants.PILOT_HOME);
+	}
+
+	@Test
+	void inserts() throws Exception {
+		double unpooledInserts = Timing.opsPerSecond("sqlite inserts, connection per statement", INSERTS,
+				() -> insert(unpooled));
+		double pooledInserts = Timing.opsPerSecond("sqlite inserts, pooled write connection", INSERTS,
+				() -> insert(writeDataSource));
+
+		assertThat(unpooledInserts).isPositive();
+		assertThat(pooledInserts).isPositive();
+	}
+
+	@Test
+	void concurrentReads() throws Exception {
+		insert(writeDataSource);
+		long reads = (long) READERS * READS_PER_READER;
+
+		double unpooledReads = Timing.opsPerSecond("sqlite reads, " + READERS + " threads, connection per statement", reads,
+				() -> read(unpooled));
+		double pooledReads = Timing.opsPerSecond("sqlite reads, " + READERS + " threads, reader pool", reads,
+				() -> read(readDataSource));
+
+		assertThat(unpooledReads).isPositive();
+		assertThat(pooledReads).isPositive();
+	}
+
+	private long insert(DataSource dataSource) {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		long inserted = 0;
+		for (int i = 0; i < INSERTS; i++) {
+			inserted += jdbcTemplate.update("insert into benchmark_rows (value) values (?)", "row-" + i);
+		}
+		return inserted;
+	}
+
+	private long read(DataSource dataSource) throws Exception {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		List<Callable<Long>> readers = new ArrayList<>();
+		for (int reader = 0; reader < READERS; reader++) {
+			readers.add(() -> {
+				long found = 0;
+				for (int i = 1; i <= READS_PER_READER; i++) {
+					found += jdbcTemplate.queryForObject("select count(*) from benchmark_rows where id = ?", Long.class, i);
+				}
+				return found;
+			});
+		}
+		long found = 0;
+		try (ExecutorService executor = Executors.newFixedThreadPool(READERS)) {
+			for (Future<Long> result : executor.invokeAll(readers)) {
+				found += result.get();
+			}
+		}
+		return found;
+	}
+}
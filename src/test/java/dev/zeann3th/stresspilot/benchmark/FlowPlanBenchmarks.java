@@ -0,0 +1,115 @@
+package dev.zeann3th.stresspilot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import dev.zeann3th.stresspilot.entity.FlowStepEntity;
+import dev.zeann3th.stresspilot.repository.EndpointRepository;
+import dev.zeann3th.stresspilot.service.executor.EndpointExecutorService;
+import dev.zeann3th.stresspilot.service.executor.EndpointExecutorServiceFactory;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledStep;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowCompiler;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Walking the compiled plan by index against looking every step up by id, as iterations did before plans
+class FlowPlanBenchmarks {
+	private static final int STEPS = 50;
+	private static final int ITERATIONS = 200_000;
+
+	@Test
+	void planTraversal() throws Exception {
+		List<FlowStepEntity> steps = chain();
+		FlowPlan plan = compiler().compile(1L, steps);
+		Map<String, FlowStepEntity> byId = new HashMap<>();
+		for (FlowStepEntity step : steps) {
+			byId.put(step.getId(), step);
+		}
+
+		double lookups = Timing.opsPerSecond("flow iteration, steps looked up by id", ITERATIONS, () -> {
+			long visited = 0;
+			for (int i = 0; i < ITERATIONS; i++) {
+				FlowStepEntity start = steps.stream().filter(s -> "START".equalsIgnoreCase(s.getType())).findFirst().orElseThrow();
+				for (FlowStepEntity step = byId.get(start.getNextIfTrue()); step != null; step = byId.get(step.getNextIfTrue())) {
+					if ("ENDPOINT".equals(step.getType().toUpperCase())) visited += step.getEndpointId();
+				}
+			}
+			return visited;
+		});
+		double indexed = Timing.opsPerSecond("flow iteration, compiled plan", ITERATIONS, () -> {
+			long visited = 0;
+			CompiledStep[] compiled = plan.getSteps();
+			for (int i = 0; i < ITERATIONS; i++) {
+				for (int index = plan.getEntryIndex(); index != CompiledStep.END; index = compiled[index].getNextIfTrue()) {
+					visited += compiled[index].getEndpoint().getId();
+				}
+			}
+			return visited;
+		});
+
+		assertThat(lookups).isPositive();
+		assertThat(indexed).isPositive();
+	}
+
+	@Test
+	void planCompilation() throws Exception {
+		List<FlowStepEntity> steps = chain();
+		FlowCompiler compiler = compiler();
+
+		int compilations = 2_000;
+
+		double compiled = Timing.opsPerSecond("plan compilation, " + STEPS + " steps", compilations, () -> {
+			long total = 0;
+			for (int i = 0; i < compilations; i++) {
+				total += compiler.compile(1L, steps).getSteps().length;
+			}
+			return total;
+		});
+
+		assertThat(compiled).isPositive();
+	}
+
+	// Stub-only mocks do not record invocations, recording would dominate the timing
+	private static FlowCompiler compiler() {
+		EndpointRepository endpointRepository = mock(EndpointRepository.class, withSettings().stubOnly());
+		EndpointExecutorServiceFactory executorFactory = mock(EndpointExecutorServiceFactory.class, withSettings().stubOnly());
+		EndpointExecutorService executor = mock(EndpointExecutorService.class, withSettings().stubOnly());
+		List<EndpointEntity> endpoints = new ArrayList<>();
+		for (long id = 1; id <= STEPS; id++) {
+			endpoints.add(EndpointEntity.builder().id(id).type("HTTP").build());
+		}
+		when(endpointRepository.findAllById(any())).thenReturn(endpoints);
+		when(executorFactory.getExecutor("HTTP")).thenReturn(executor);
+		return new FlowCompiler(endpointRepository, executorFactory, new ObjectMapper());
+	}
+
+	// START followed by a straight line of endpoint steps
+	private static List<FlowStepEntity> chain() {
+		List<FlowStepEntity> steps = new ArrayList<>();
+		steps.add(step("start", "START", "step-1", null));
+		for (int i = 1; i <= STEPS; i++) {
+			steps.add(step("step-" + i, "ENDPOINT", i < STEPS ? "step-" + (i + 1) : null, (long) i));
+		}
+		return steps;
+	}
+
+	private static FlowStepEntity step(String id, String type, String nextIfTrue, Long endpointId) {
+		return FlowStepEntity.builder()
+				.id(id)
+				.flowId(1L)
+				.type(type)
+				.nextIfTrue(nextIfTrue)
+				.endpointId(endpointId)
+				.build();
+	}
+}
@@ -0,0 +1,93 @@
+package dev.zeann3th.stresspilot.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.service.executor.template.JsonBodyTemplate;
+import okhttp3.MediaType;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rendering a compiled JSON body against parsing, substituting and serializing the stored body per request
+class JsonBodyBenchmarks {
+	private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+	private static final Map<String, Object> ENVIRONMENT = Map.of("id", 42, "token", "abc", "tag", "load");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void smallBody() throws Exception {
+		Map<String, Object> body = item(0);
+
+		compare("small", body, 100_000);
+	}
+
+	@Test
+	void largeBody() throws Exception {
+		List<Object> items = new ArrayList<>();
+		for (int i = 0; i < 800; i++) {
+			items.add(item(i));
+		}
+		Map<String, Object> body = Map.of("items", items);
+		assertThat(objectMapper.writeValueAsBytes(body).length).isGreaterThan(100_000);
+
+		compare("100 KB", body, 1_000);
+	}
+
+	private void compare(String size, Map<String, Object> body, int requests) throws Exception {
+		String stored = objectMapper.writeValueAsString(body);
+		JsonBodyTemplate template = JsonBodyTemplate.compile(body, JSON, objectMapper);
+
+		double perRequest = Timing.opsPerSecond("json body " + size + ", parse and serialize", requests, () -> {
+			long bytes = 0;
+			for (int i = 0; i < requests; i++) {
+				Map<String, Object> parsed = objectMapper.readValue(stored, new TypeReference<>() {
+				});
+				bytes += objectMapper.writeValueAsBytes(substitute(parsed)).length;
+			}
+			return bytes;
+		});
+		double compiled = Timing.opsPerSecond("json body " + size + ", compiled template", requests, () -> {
+			long bytes = 0;
+			Buffer sink = new Buffer();
+			for (int i = 0; i < requests; i++) {
+				template.render(ENVIRONMENT).writeTo(sink);
+				bytes += sink.size();
+				sink.clear();
+			}
+			return bytes;
+		});
+
+		assertThat(perRequest).isPositive();
+		assertThat(compiled).isPositive();
+	}
+
+	private static Map<String, Object> item(int index) {
+		Map<String, Object> item = new LinkedHashMap<>();
+		item.put("name", "user-{{id}}-" + index);
+		item.put("auth", "Bearer {{token}}");
+		item.put("tags", List.of("{{tag}}", "static", index));
+		item.put("profile", Map.of("active", true, "score", index * 1.5, "bio", "x".repeat(40)));
+		return item;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object substitute(Object value) {
+		return switch (value) {
+			case String text -> text.replace("{{id}}", "42").replace("{{token}}", "abc").replace("{{tag}}", "load");
+			case Map<?, ?> map -> {
+				Map<String, Object> copy = new LinkedHashMap<>();
+				((Map<String, Object>) map).forEach((key, nested) -> copy.put(key, substitute(nested)));
+				yield copy;
+			}
+			case List<?> list -> list.stream().map(JsonBodyBenchmarks::substitute).toList();
+			case null, default -> value;
+		};
+	}
+}
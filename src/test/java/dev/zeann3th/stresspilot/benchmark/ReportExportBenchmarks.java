@@ -0,0 +1,71 @@
+package dev.zeann3th.stresspilot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.entity.RequestLogEntity;
+import dev.zeann3th.stresspilot.service.report.CsvReportWriter;
+import dev.zeann3th.stresspilot.service.report.ExcelGenerator;
+import dev.zeann3th.stresspilot.service.report.NdjsonReportWriter;
+import dev.zeann3th.stresspilot.service.report.ReportColumn;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rows per second of each detailed export format, written to a stream that discards them
+class ReportExportBenchmarks {
+	private static final int ROWS = 50_000;
+	private static final List<ReportColumn<RequestLogEntity>> COLUMNS = List.of(
+			ReportColumn.of("id", "ID", RequestLogEntity::getId),
+			ReportColumn.of("endpointId", "Endpoint ID", RequestLogEntity::getEndpointId),
+			ReportColumn.of("statusCode", "Status", RequestLogEntity::getStatusCode),
+			ReportColumn.of("responseTime", "Response Time (ms)", RequestLogEntity::getResponseTime),
+			ReportColumn.of("request", "Request", RequestLogEntity::getRequest),
+			ReportColumn.of("response", "Response", RequestLogEntity::getResponse));
+
+	private final RequestLogEntity row = RequestLogEntity.builder()
+			.id(1L)
+			.endpointId(7L)
+			.statusCode(200)
+			.responseTime(12L)
+			.request("EndpointEntity(id=7, name=login, url=http://localhost/login)")
+			.response("{\"token\":\"abc\",\"user\":{\"id\":42,\"name\":\"load, \\\"test\\\"\"}}")
+			.build();
+
+	@Test
+	void exportFormats() throws Exception {
+		double excel = Timing.opsPerSecond("export rows, excel", ROWS, () -> {
+			ExcelGenerator<RequestLogEntity> generator = new ExcelGenerator<>(COLUMNS).writeHeaderLines();
+			for (int i = 0; i < ROWS; i++) {
+				generator.writeDataLine(row);
+			}
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			generator.export(response);
+			return response.getContentAsByteArray().length;
+		});
+		double csv = Timing.opsPerSecond("export rows, csv", ROWS, () -> {
+			try (CsvReportWriter<RequestLogEntity> writer = new CsvReportWriter<>(COLUMNS, OutputStream.nullOutputStream())) {
+				writer.writeHeaderLine();
+				for (int i = 0; i < ROWS; i++) {
+					writer.writeDataLine(row);
+				}
+			}
+			return ROWS;
+		});
+		double ndjson = Timing.opsPerSecond("export rows, ndjson", ROWS, () -> {
+			try (NdjsonReportWriter<RequestLogEntity> writer =
+						 new NdjsonReportWriter<>(COLUMNS, OutputStream.nullOutputStream(), new ObjectMapper().getFactory())) {
+				for (int i = 0; i < ROWS; i++) {
+					writer.writeDataLine(row);
+				}
+			}
+			return ROWS;
+		});
+
+		assertThat(excel).isPositive();
+		assertThat(csv).isPositive();
+		assertThat(ndjson).isPositive();
+	}
+}
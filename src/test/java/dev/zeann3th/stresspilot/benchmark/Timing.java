@@ -0,0 +1,44 @@
+package dev.zeann3th.stresspilot.benchmark;
+
+import java.util.Arrays;
+
+// Runs a few warm-up rounds, then reports the median throughput of the measured rounds.
+// Numbers are only comparable between runs on the same machine, compare the pairs printed by one run.
+final class Timing {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 7;
+
+	// Results are summed into here so the JIT cannot drop the measured work
+	private static volatile long sink;
+
+	interface Round {
+		long run() throws Exception;
+	}
+
+	private Timing() {
+	}
+
+	static double opsPerSecond(String name, long opsPerRound, Round round) throws Exception {
+		long consumed = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			consumed += round.run();
+		}
+		long[] nanos = new long[MEASURED_ROUNDS];
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			consumed += round.run();
+			nanos[i] = System.nanoTime() - start;
+		}
+		sink += consumed;
+
+		Arrays.sort(nanos);
+		double median = rate(opsPerRound, nanos[MEASURED_ROUNDS / 2]);
+		System.out.printf("%-56s %,14.0f ops/s  (min %,.0f, max %,.0f)%n",
+				name, median, rate(opsPerRound, nanos[MEASURED_ROUNDS - 1]), rate(opsPerRound, nanos[0]));
+		return median;
+	}
+
+	private static double rate(long ops, long nanos) {
+		return ops * 1e9 / nanos;
+	}
+}
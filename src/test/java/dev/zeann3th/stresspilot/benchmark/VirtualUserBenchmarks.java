@@ -0,0 +1,126 @@
+package dev.zeann3th.stresspilot.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Virtual users calling a local server: platform against virtual threads, and one shared client against a client per request
+class VirtualUserBenchmarks {
+	private static final int USERS = 500;
+	private static final int REQUESTS_PER_USER = 4;
+	private static final long SERVER_DELAY_MS = 10;
+
+	private HttpServer server;
+	private OkHttpClient client;
+
+	// /slow answers after a short delay like a real service, /fast answers at once
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/slow", exchange -> {
+			try {
+				TimeUnit.MILLISECONDS.sleep(SERVER_DELAY_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.createContext("/fast", exchange -> {
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.start();
+		client = new OkHttpClient.Builder()
+				.connectionPool(new ConnectionPool(USERS, 1, TimeUnit.MINUTES))
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+		client.dispatcher().executorService().shutdown();
+		client.connectionPool().evictAll();
+	}
+
+	@Test
+	void platformAgainstVirtualThreads() throws Exception {
+		long requests = (long) USERS * REQUESTS_PER_USER;
+
+		double platform = Timing.opsPerSecond("blocking requests, " + USERS + " platform threads", requests,
+				() -> runUsers(Thread.ofPlatform()));
+		double virtual = Timing.opsPerSecond("blocking requests, " + USERS + " virtual threads", requests,
+				() -> runUsers(Thread.ofVirtual()));
+
+		assertThat(platform).isPositive();
+		assertThat(virtual).isPositive();
+	}
+
+	@Test
+	void sharedClientAgainstClientPerRequest() throws Exception {
+		int requests = 2_000;
+
+		double perRequest = Timing.opsPerSecond("sequential requests, new client per request", requests, () -> {
+			long answered = 0;
+			for (int i = 0; i < requests; i++) {
+				OkHttpClient fresh = new OkHttpClient();
+				answered += call(fresh, "/fast");
+				fresh.dispatcher().executorService().shutdown();
+				fresh.connectionPool().evictAll();
+			}
+			return answered;
+		});
+		double shared = Timing.opsPerSecond("sequential requests, shared client", requests, () -> {
+			long answered = 0;
+			for (int i = 0; i < requests; i++) {
+				answered += call(client, "/fast");
+			}
+			return answered;
+		});
+
+		assertThat(perRequest).isPositive();
+		assertThat(shared).isPositive();
+	}
+
+	private long runUsers(Thread.Builder threads) throws InterruptedException {
+		AtomicLong answered = new AtomicLong();
+		List<Thread> users = new ArrayList<>(USERS);
+		for (int i = 0; i < USERS; i++) {
+			users.add(threads.start(() -> {
+				for (int request = 0; request < REQUESTS_PER_USER; request++) {
+					answered.addAndGet(call(client, "/slow"));
+				}
+			}));
+		}
+		for (Thread user : users) {
+			user.join();
+		}
+		return answered.get();
+	}
+
+	private long call(OkHttpClient httpClient, String path) {
+		Request request = new Request.Builder().url("http://127.0.0.1:" + server.getAddress().getPort() + path).build();
+		try (Response response = httpClient.newCall(request).execute()) {
+			return response.code();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
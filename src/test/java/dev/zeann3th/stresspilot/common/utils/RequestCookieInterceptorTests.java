@@ -0,0 +1,78 @@
+package dev.zeann3th.stresspilot.common.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.CookieJar;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCookieInterceptorTests {
+
+	private final OkHttpClient client = new OkHttpClient.Builder()
+			.addNetworkInterceptor(new RequestCookieInterceptor())
+			.build();
+	private HttpServer server;
+
+	// /login/<user> sets a session cookie, /echo answers with the Cookie header it received
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/login/", exchange -> {
+			String user = exchange.getRequestURI().getPath().substring("/login/".length());
+			exchange.getResponseHeaders().add("Set-Cookie", "session=" + user + "; Path=/");
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.createContext("/echo", exchange -> {
+			String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+			byte[] body = (cookie != null ? cookie : "").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+		client.dispatcher().executorService().shutdown();
+		client.connectionPool().evictAll();
+	}
+
+	@Test
+	void virtualUsersSharingOneClientKeepTheirOwnCookies() throws IOException {
+		CookieJar alice = new InMemoryCookieJar();
+		CookieJar bob = new InMemoryCookieJar();
+
+		call("/login/alice", alice);
+		call("/login/bob", bob);
+
+		assertThat(call("/echo", alice)).isEqualTo("session=alice");
+		assertThat(call("/echo", bob)).isEqualTo("session=bob");
+	}
+
+	@Test
+	void requestsWithoutACookieJarSendNoCookies() throws IOException {
+		call("/login/alice", new InMemoryCookieJar());
+
+		assertThat(call("/echo", null)).isEmpty();
+	}
+
+	private String call(String path, CookieJar cookieJar) throws IOException {
+		Request.Builder builder = new Request.Builder().url("http://127.0.0.1:" + server.getAddress().getPort() + path);
+		if (cookieJar != null) builder.tag(CookieJar.class, cookieJar);
+		try (Response response = client.newCall(builder.build()).execute()) {
+			return response.body() != null ? response.body().string() : null;
+		}
+	}
+}
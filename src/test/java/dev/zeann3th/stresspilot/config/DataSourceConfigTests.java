@@ -0,0 +1,103 @@
+package dev.zeann3th.stresspilot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the database under the PILOT_HOME that surefire points at target/pilot-home
+@SpringBootTest
+class DataSourceConfigTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("writeDataSource")
+	private HikariDataSource writeDataSource;
+
+	@Autowired
+	@Qualifier("readDataSource")
+	private HikariDataSource readDataSource;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// Tables are created and dropped here, so refuse to run against the user's own database
+		assertThat(System.getProperty(Constants.PILOT_HOME)).as("PILOT_HOME system property").isNotBlank();
+		assertThat(writeDataSource.getDataSource().unwrap(SQLiteDataSource.class).getUrl())
+				.isEqualTo("jdbc:sqlite:" + PilotHome.resolve().resolve(Constants.DB_FILE_NAME).toAbsolutePath());
+		jdbcTemplate.execute("create table if not exists data_source_writes (id integer primary key, writer integer not null)");
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("drop table if exists data_source_writes");
+	}
+
+	@Test
+	void writesShareOneConnectionAndReadsHaveTheirOwnPool() {
+		assertThat(writeDataSource.getMaximumPoolSize()).isEqualTo(1);
+		assertThat(writeDataSource.isReadOnly()).isFalse();
+		assertThat(readDataSource.isReadOnly()).isTrue();
+		assertThat(jdbcTemplate.queryForObject("PRAGMA journal_mode", String.class)).isEqualToIgnoringCase("wal");
+	}
+
+	@Test
+	void concurrentWritersWaitForTheConnectionInsteadOfFailing() throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int writer = 0; writer < 8; writer++) {
+				int id = writer;
+				writers.add(executor.submit(() -> {
+					for (int i = 0; i < 50; i++) {
+						transactionTemplate.executeWithoutResult(status ->
+								jdbcTemplate.update("insert into data_source_writes (writer) values (?)", id));
+					}
+				}));
+			}
+			for (Future<?> writer : writers) writer.get();
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(jdbcTemplate.queryForObject("select count(*) from data_source_writes", Integer.class)).isEqualTo(400);
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReaderPool() {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		jdbcTemplate.update("insert into data_source_writes (writer) values (1)");
+
+		Boolean connectionReadOnly = readOnly.execute(status -> jdbcTemplate.execute(
+				(Connection connection) -> connection.isReadOnly()));
+		Integer rows = readOnly.execute(status ->
+				jdbcTemplate.queryForObject("select count(*) from data_source_writes", Integer.class));
+
+		assertThat(connectionReadOnly).isTrue();
+		assertThat(rows).isEqualTo(1);
+	}
+}
@@ -0,0 +1,170 @@
+package dev.zeann3th.stresspilot.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.sun.net.httpserver.HttpServer;
+import dev.zeann3th.stresspilot.common.enums.ThreadMode;
+import dev.zeann3th.stresspilot.common.utils.PilotHome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs against the database under the PILOT_HOME that surefire points at target/pilot-home
+@SpringBootTest
+@AutoConfigureMockMvc
+class FlowControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private final List<Number> runIds = new ArrayList<>();
+
+	// A run can only be deleted once its logs are flushed, which may trail its COMPLETED status
+	@AfterEach
+	void deleteRuns() throws Exception {
+		for (Number runId : runIds) {
+			int status = HttpStatus.CONFLICT.value();
+			for (int i = 0; i < 100 && status == HttpStatus.CONFLICT.value(); i++) {
+				if (i > 0) Thread.sleep(100);
+				status = mockMvc.perform(delete("/api/v1/runs/{runId}", runId)).andReturn().getResponse().getStatus();
+			}
+			assertThat(status).isEqualTo(HttpStatus.NO_CONTENT.value());
+			assertThat(PilotHome.runDirectory(runId.longValue())).doesNotExist();
+		}
+	}
+
+	@Test
+	void arrivalRateRunWithoutRateIsRejected() throws Exception {
+		mockMvc.perform(post("/api/v1/flows/{flowId}/execute", 1)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"threads\":1,\"totalDuration\":1,\"rampUpDuration\":0,\"loadModel\":\"ARRIVAL_RATE\"}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.params.reason").value("arrivalRate must be greater than 0 for ARRIVAL_RATE runs"));
+	}
+
+	@Test
+	void invalidRunRequestIsRejected() throws Exception {
+		mockMvc.perform(post("/api/v1/flows/{flowId}/execute", 1)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"threads\":0,\"totalDuration\":1,\"rampUpDuration\":0}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void unconfiguredFlowIsRejectedBeforeItRuns() throws Exception {
+		String project = mockMvc.perform(post("/api/v1/projects")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"unconfigured\"}"))
+				.andReturn().getResponse().getContentAsString();
+		Number projectId = JsonPath.read(project, "$.id");
+		String flow = mockMvc.perform(post("/api/v1/flows")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"projectId\":" + projectId + ",\"name\":\"unconfigured\"}"))
+				.andReturn().getResponse().getContentAsString();
+		Number flowId = JsonPath.read(flow, "$.id");
+
+		mockMvc.perform(post("/api/v1/flows/{flowId}/execute", flowId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"threads\":1,\"totalDuration\":1,\"rampUpDuration\":0}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.params.reason").value("Flow must contain one START node (none found)"));
+	}
+
+	@Test
+	void runOfUnknownFlowIsNotFound() throws Exception {
+		mockMvc.perform(post("/api/v1/flows/{flowId}/execute", Long.MAX_VALUE)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"threads\":1,\"totalDuration\":1,\"rampUpDuration\":0}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@ParameterizedTest
+	@EnumSource(ThreadMode.class)
+	void runCompletesInEveryThreadMode(ThreadMode threadMode) throws Exception {
+		HttpServer server = pingServer(new AtomicInteger());
+		try {
+			List<String> statuses = runPingFlow(server, threadMode.name(),
+					"{\"threads\":2,\"totalDuration\":1,\"rampUpDuration\":0,\"threadMode\":\"" + threadMode + "\"}");
+
+			assertThat(statuses).containsExactly("COMPLETED");
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void asyncUsersKeepTheirPacing() throws Exception {
+		AtomicInteger requests = new AtomicInteger();
+		HttpServer server = pingServer(requests);
+		try {
+			List<String> statuses = runPingFlow(server, "paced",
+					"{\"threads\":1,\"totalDuration\":1,\"rampUpDuration\":0,\"threadMode\":\"ASYNC\",\"pacingMs\":400}");
+
+			// Iterations are meant to start at 0, 400 and 800 ms, an unpaced user would send hundreds
+			assertThat(statuses).containsExactly("COMPLETED");
+			assertThat(requests.get()).isBetween(1, 3);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private HttpServer pingServer(AtomicInteger requests) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.start();
+		return server;
+	}
+
+	// Runs a one-step flow against the server and waits for it to leave RUNNING
+	private List<String> runPingFlow(HttpServer server, String name, String runRequest) throws Exception {
+		Number projectId = JsonPath.read(postJson("/api/v1/projects", "{\"name\":\"" + name + "\"}"), "$.id");
+		Number endpointId = JsonPath.read(postJson("/api/v1/endpoints", "{\"name\":\"ping\",\"type\":\"HTTP\",\"httpMethod\":\"GET\","
+				+ "\"url\":\"http://127.0.0.1:" + server.getAddress().getPort() + "/ping\",\"projectId\":" + projectId + "}"), "$.id");
+		Number flowId = JsonPath.read(postJson("/api/v1/flows", "{\"projectId\":" + projectId + ",\"name\":\"ping\"}"), "$.id");
+		postJson("/api/v1/flows/" + flowId + "/configuration", "[{\"id\":\"start\",\"type\":\"START\",\"nextIfTrue\":\"ping\"},"
+				+ "{\"id\":\"ping\",\"type\":\"ENDPOINT\",\"endpointId\":" + endpointId + "}]");
+
+		mockMvc.perform(post("/api/v1/flows/{flowId}/execute", flowId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(runRequest))
+				.andExpect(status().isAccepted());
+
+		// The run is dispatched in the background, it leaves RUNNING once its load has been generated
+		List<String> statuses = List.of();
+		for (int i = 0; i < 100 && !statuses.contains("COMPLETED"); i++) {
+			Thread.sleep(100);
+			String runs = mockMvc.perform(get("/api/v1/runs")).andReturn().getResponse().getContentAsString();
+			statuses = JsonPath.read(runs, "$[?(@.flowId == " + flowId + ")].status");
+			if (runIds.isEmpty()) runIds.addAll(JsonPath.<List<Number>>read(runs, "$[?(@.flowId == " + flowId + ")].id"));
+		}
+		return statuses;
+	}
+
+	private String postJson(String path, String content) throws Exception {
+		return mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(content))
+				.andReturn().getResponse().getContentAsString();
+	}
+}
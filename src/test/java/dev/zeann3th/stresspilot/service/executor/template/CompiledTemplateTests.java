@@ -0,0 +1,55 @@
+package dev.zeann3th.stresspilot.service.executor.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTests {
+
+	@Test
+	void variablesAreSubstitutedBetweenLiterals() {
+		CompiledTemplate template = CompiledTemplate.compile("/users/{{userId}}/orders/{{orderId}}?page=1");
+
+		assertThat(template.isConstant()).isFalse();
+		assertThat(template.getVariableCount()).isEqualTo(2);
+		assertThat(template.render(Map.of("userId", 7, "orderId", "a-1"))).isEqualTo("/users/7/orders/a-1?page=1");
+	}
+
+	@Test
+	void unknownVariablesAreKeptAndNullValuesRenderEmpty() {
+		CompiledTemplate template = CompiledTemplate.compile("{{known}}-{{missing}}");
+		Map<String, Object> environment = new HashMap<>();
+		environment.put("known", null);
+
+		assertThat(template.render(environment)).isEqualTo("-{{missing}}");
+		assertThat(template.render(null)).isEqualTo("{{known}}-{{missing}}");
+	}
+
+	@Test
+	void textWithoutVariablesIsConstant() {
+		CompiledTemplate template = CompiledTemplate.compile("https://example.com/health");
+
+		assertThat(template.isConstant()).isTrue();
+		assertThat(template.render(Map.of())).isSameAs(template.getSource());
+		assertThat(CompiledTemplate.compile(null)).isNull();
+	}
+
+	@Test
+	void unclosedPlaceholderStaysLiteral() {
+		CompiledTemplate template = CompiledTemplate.compile("{{a}} and {{b");
+
+		assertThat(template.getVariableCount()).isEqualTo(1);
+		assertThat(template.render(Map.of("a", 1, "b", 2))).isEqualTo("1 and {{b");
+	}
+
+	@Test
+	void renderingIsRepeatable() {
+		CompiledTemplate template = CompiledTemplate.compile("{{x}}");
+
+		assertThat(template.render(Map.of("x", "x".repeat(100_000)))).hasSize(100_000);
+		assertThat(template.render(Map.of("x", "y"))).isEqualTo("y");
+	}
+}
@@ -0,0 +1,85 @@
+package dev.zeann3th.stresspilot.service.executor.template;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonBodyTemplateTests {
+
+	private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void placeholdersInsideStringsAreSubstituted() throws IOException {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("name", "user-{{id}}");
+		json.put("tags", List.of("{{tag}}", 3, true));
+		json.put("nested", Map.of("token", "Bearer {{token}}"));
+		json.put("missing", null);
+
+		RequestBody body = JsonBodyTemplate.compile(json, JSON, objectMapper)
+				.render(Map.of("id", 42, "tag", "load", "token", "abc"));
+
+		assertThat(read(body)).isEqualTo(
+				"{\"name\":\"user-42\",\"tags\":[\"load\",3,true],\"nested\":{\"token\":\"Bearer abc\"},\"missing\":null}");
+		assertThat(body.contentType()).isEqualTo(JSON);
+	}
+
+	@Test
+	void substitutedValuesAreEscapedAsJsonStrings() throws IOException {
+		JsonBodyTemplate template = JsonBodyTemplate.compile(Map.of("text", "say {{value}}"), JSON, objectMapper);
+
+		RequestBody body = template.render(Map.of("value", "\"hi\"\n\\ né"));
+
+		String rendered = read(body);
+		assertThat(rendered).isEqualTo("{\"text\":\"say \\\"hi\\\"\\n\\\\ né\"}");
+		assertThat(objectMapper.readTree(rendered).get("text").asText()).isEqualTo("say \"hi\"\n\\ né");
+	}
+
+	@Test
+	void contentLengthCountsEncodedBytes() throws IOException {
+		JsonBodyTemplate template = JsonBodyTemplate.compile(Map.of("a", "{{x}}é{{y}}"), JSON, objectMapper);
+
+		for (String value : List.of("", "ü\"", "x".repeat(200_000))) {
+			RequestBody body = template.render(Map.of("x", value, "y", "\t"));
+			Buffer buffer = new Buffer();
+			body.writeTo(buffer);
+
+			assertThat(body.contentLength()).isEqualTo(buffer.size());
+		}
+	}
+
+	@Test
+	void unknownVariablesAreKeptAndNullValuesRenderEmpty() throws IOException {
+		JsonBodyTemplate template = JsonBodyTemplate.compile(Map.of("a", "{{known}}{{missing}}"), JSON, objectMapper);
+		Map<String, Object> environment = new HashMap<>();
+		environment.put("known", null);
+
+		assertThat(read(template.render(environment))).isEqualTo("{\"a\":\"{{missing}}\"}");
+	}
+
+	@Test
+	void bodyWithoutPlaceholdersIsConstant() throws IOException {
+		JsonBodyTemplate template = JsonBodyTemplate.compile(List.of(1, "two", Map.of("k\"ey", 3.5)), JSON, objectMapper);
+
+		assertThat(template.isConstant()).isTrue();
+		assertThat(read(template.render(Map.of()))).isEqualTo("[1,\"two\",{\"k\\\"ey\":3.5}]");
+	}
+
+	private static String read(RequestBody body) throws IOException {
+		Buffer buffer = new Buffer();
+		body.writeTo(buffer);
+		return buffer.readUtf8();
+	}
+}
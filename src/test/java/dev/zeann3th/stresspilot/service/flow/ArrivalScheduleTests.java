@@ -0,0 +1,73 @@
+package dev.zeann3th.stresspilot.service.flow;
+
+import dev.zeann3th.stresspilot.common.enums.ArrivalPattern;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ArrivalScheduleTests {
+
+	@Test
+	void fixedRateSpacesArrivalsEvenly() {
+		ArrivalSchedule schedule = new ArrivalSchedule(ArrivalPattern.FIXED, 0, 4, 0);
+
+		assertThat(schedule.nextOffsetNanos()).isZero();
+		assertThat(schedule.nextOffsetNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+		assertThat(schedule.nextOffsetNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@Test
+	void missingPatternFallsBackToFixed() {
+		ArrivalSchedule schedule = new ArrivalSchedule(null, 0, 10, 0);
+
+		schedule.nextOffsetNanos();
+		assertThat(schedule.nextOffsetNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	void rampedRateReachesTheTargetAfterTheRamp() {
+		// From 0 to 10 per second over 10 seconds, 50 arrivals fall inside the ramp
+		ArrivalSchedule schedule = new ArrivalSchedule(ArrivalPattern.RAMPED, 0, 10, 10);
+
+		long[] offsets = new long[61];
+		for (int i = 0; i < offsets.length; i++) offsets[i] = schedule.nextOffsetNanos();
+
+		assertThat(offsets[0]).isZero();
+		// N(t) = t^2 / 2 during the ramp, so the 8th arrival is due at 4 s
+		assertThat(seconds(offsets[8])).isCloseTo(4.0, within(1e-6));
+		assertThat(seconds(offsets[50])).isCloseTo(10.0, within(1e-6));
+		assertThat(seconds(offsets[60])).isCloseTo(11.0, within(1e-6));
+		for (int i = 1; i < offsets.length; i++) assertThat(offsets[i]).isGreaterThan(offsets[i - 1]);
+	}
+
+	@Test
+	void rampedWithoutRampIsFixed() {
+		ArrivalSchedule schedule = new ArrivalSchedule(ArrivalPattern.RAMPED, 1, 5, 0);
+
+		schedule.nextOffsetNanos();
+		assertThat(schedule.nextOffsetNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	void poissonArrivalsAverageTheTargetRate() {
+		ArrivalSchedule schedule = new ArrivalSchedule(ArrivalPattern.POISSON, 0, 100, 0);
+
+		long previous = schedule.nextOffsetNanos();
+		assertThat(previous).isZero();
+		long last = 0;
+		for (int i = 1; i <= 20_000; i++) {
+			last = schedule.nextOffsetNanos();
+			assertThat(last).isGreaterThanOrEqualTo(previous);
+			previous = last;
+		}
+		// 20 000 arrivals at 100 per second take about 200 s, the spread is well under 5 %
+		assertThat(seconds(last)).isCloseTo(200.0, within(10.0));
+	}
+
+	private static double seconds(long nanos) {
+		return nanos / 1e9;
+	}
+}
@@ -0,0 +1,39 @@
+package dev.zeann3th.stresspilot.service.flow.plan;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledConditionTests {
+
+	@Test
+	void conditionIsEvaluatedAgainstTheContext() {
+		CompiledCondition condition = CompiledCondition.compile("#thread > 1");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("thread", 2);
+
+		assertThat(condition.evaluate(context)).isTrue();
+		assertThat(condition.getEvaluations()).isEqualTo(1);
+		assertThat(condition.getFailures()).isZero();
+	}
+
+	@Test
+	void failingConditionCountsAsFalse() {
+		CompiledCondition condition = CompiledCondition.compile("#missing.length() > 1");
+
+		assertThat(condition.evaluate(new StandardEvaluationContext())).isFalse();
+		assertThat(condition.getFailures()).isEqualTo(1);
+	}
+
+	@Test
+	void reportingCompilabilityDoesNotEvaluateOrCompile() {
+		CompiledCondition condition = CompiledCondition.compile("1 < 2");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		condition.evaluate(context);
+
+		assertThat(condition.isCompilable()).isTrue();
+		assertThat(condition.isCompilable()).isTrue();
+		assertThat(condition.getEvaluations()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,128 @@
+package dev.zeann3th.stresspilot.service.flow.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.enums.ErrorCode;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import dev.zeann3th.stresspilot.entity.FlowStepEntity;
+import dev.zeann3th.stresspilot.exception.CommandException;
+import dev.zeann3th.stresspilot.repository.EndpointRepository;
+import dev.zeann3th.stresspilot.service.executor.EndpointExecutorService;
+import dev.zeann3th.stresspilot.service.executor.EndpointExecutorServiceFactory;
+import dev.zeann3th.stresspilot.service.executor.PreparedEndpoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class FlowCompilerTests {
+
+	private final EndpointRepository endpointRepository = mock(EndpointRepository.class);
+	private final EndpointExecutorServiceFactory endpointExecutorServiceFactory = mock(EndpointExecutorServiceFactory.class);
+	private final FlowCompiler flowCompiler = new FlowCompiler(endpointRepository, endpointExecutorServiceFactory,
+			new ObjectMapper());
+
+	@Test
+	void branchConditionIsCompiledIntoThePlan() {
+		FlowPlan plan = flowCompiler.compile(1L, branchFlow("#thread > 1"));
+
+		CompiledStep branch = plan.getSteps()[1];
+		assertThat(branch.getCondition().getSource()).isEqualTo("#thread > 1");
+		assertThat(branch.getNextIfTrue()).isEqualTo(0);
+		assertThat(branch.getNextIfFalse()).isEqualTo(CompiledStep.END);
+	}
+
+	@Test
+	void unparseableConditionIsAConfigurationError() {
+		assertThatThrownBy(() -> flowCompiler.compile(1L, branchFlow("#thread >")))
+				.isInstanceOfSatisfying(CommandException.class, e -> {
+					assertThat(e.getErrorCode()).isEqualTo(ErrorCode.FLOW_CONFIGURATION_ERROR);
+					assertThat(e.getParams().get(Constants.REASON).toString()).startsWith("Invalid condition on step branch");
+				});
+	}
+
+	@Test
+	void flowWithoutStartIsAConfigurationError() {
+		assertThatThrownBy(() -> flowCompiler.compile(1L, List.of()))
+				.isInstanceOfSatisfying(CommandException.class,
+						e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.FLOW_CONFIGURATION_ERROR));
+	}
+
+	@Test
+	void danglingStepReferenceIsAConfigurationError() {
+		List<FlowStepEntity> steps = List.of(step("start", "START", "missing", null, null));
+
+		assertThatThrownBy(() -> flowCompiler.compile(1L, steps))
+				.isInstanceOfSatisfying(CommandException.class,
+						e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.FLOW_CONFIGURATION_ERROR));
+	}
+
+	@Test
+	void endpointStepsArePreparedWhenThePlanIsCompiled() {
+		EndpointEntity endpoint = EndpointEntity.builder().id(5L).type("HTTP").build();
+		EndpointExecutorService executor = mock(EndpointExecutorService.class);
+		PreparedEndpoint prepared = mock(PreparedEndpoint.class);
+		when(endpointRepository.findAllById(Set.of(5L))).thenReturn(List.of(endpoint));
+		when(endpointExecutorServiceFactory.getExecutor("HTTP")).thenReturn(executor);
+		when(executor.prepare(endpoint)).thenReturn(prepared);
+		FlowStepEntity call = step("call", "ENDPOINT", null, null, null);
+		call.setEndpointId(5L);
+		call.setPostProcessor("{\"extract\":{\"token\":\"data.token\"}}");
+
+		FlowPlan plan = flowCompiler.compile(1L, List.of(step("start", "START", "call", null, null), call));
+
+		CompiledStep compiled = plan.getSteps()[plan.getEntryIndex()];
+		assertThat(compiled.getId()).isEqualTo("call");
+		assertThat(compiled.getExecutor()).isSameAs(prepared);
+		assertThat(compiled.getPostProcessor()).isNotNull();
+		assertThat(compiled.getNextIfTrue()).isEqualTo(CompiledStep.END);
+		verify(executor, times(1)).prepare(endpoint);
+	}
+
+	@Test
+	void stepOfMissingEndpointIsNotFound() {
+		when(endpointRepository.findAllById(Set.of(5L))).thenReturn(List.of());
+		FlowStepEntity call = step("call", "ENDPOINT", null, null, null);
+		call.setEndpointId(5L);
+
+		assertThatThrownBy(() -> flowCompiler.compile(1L, List.of(step("start", "START", "call", null, null), call)))
+				.isInstanceOfSatisfying(CommandException.class,
+						e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.ENDPOINT_NOT_FOUND));
+	}
+
+	@Test
+	void invalidProcessorIsAConfigurationError() {
+		when(endpointRepository.findAllById(Set.of(5L))).thenReturn(List.of(EndpointEntity.builder().id(5L).type("HTTP").build()));
+		when(endpointExecutorServiceFactory.getExecutor("HTTP")).thenReturn(mock(EndpointExecutorService.class));
+		FlowStepEntity call = step("call", "ENDPOINT", null, null, null);
+		call.setEndpointId(5L);
+		call.setPreProcessor("{not json");
+
+		assertThatThrownBy(() -> flowCompiler.compile(1L, List.of(step("start", "START", "call", null, null), call)))
+				.isInstanceOfSatisfying(CommandException.class, e -> {
+					assertThat(e.getErrorCode()).isEqualTo(ErrorCode.FLOW_CONFIGURATION_ERROR);
+					assertThat(e.getParams().get(Constants.REASON)).isEqualTo("Invalid processor on step call");
+				});
+	}
+
+	private List<FlowStepEntity> branchFlow(String condition) {
+		return List.of(
+				step("start", "START", "branch", null, null),
+				step("branch", "BRANCH", "start", null, condition));
+	}
+
+	private FlowStepEntity step(String id, String type, String nextIfTrue, String nextIfFalse, String condition) {
+		return FlowStepEntity.builder()
+				.id(id)
+				.flowId(1L)
+				.type(type)
+				.nextIfTrue(nextIfTrue)
+				.nextIfFalse(nextIfFalse)
+				.condition(condition)
+				.build();
+	}
+}
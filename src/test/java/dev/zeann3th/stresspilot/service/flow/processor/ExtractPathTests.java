@@ -0,0 +1,41 @@
+package dev.zeann3th.stresspilot.service.flow.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExtractPathTests {
+
+	private final Map<String, Object> response = Map.of(
+			"data", Map.of(
+					"token", "abc",
+					"items", List.of(Map.of("id", 7), Map.of("id", 8))));
+
+	@Test
+	void dottedPathResolvesNestedMaps() {
+		assertThat(ExtractPath.parse("data.token").resolve(response)).isEqualTo("abc");
+	}
+
+	@Test
+	void bracketAndDottedIndexesResolveTheSameElement() {
+		assertThat(ExtractPath.parse("data.items[1].id").resolve(response)).isEqualTo(8);
+		assertThat(ExtractPath.parse("data.items.1.id").resolve(response)).isEqualTo(8);
+	}
+
+	@Test
+	void missingKeysAndIndexesResolveToNull() {
+		assertThat(ExtractPath.parse("data.missing.id").resolve(response)).isNull();
+		assertThat(ExtractPath.parse("data.items[5].id").resolve(response)).isNull();
+		assertThat(ExtractPath.parse("data.items.first").resolve(response)).isNull();
+		assertThat(ExtractPath.parse("data.token.length").resolve(response)).isNull();
+		assertThat(ExtractPath.parse("data").resolve(null)).isNull();
+	}
+
+	@Test
+	void pathKeepsItsSourceForLogging() {
+		assertThat(ExtractPath.parse("data.items[0].id")).hasToString("data.items[0].id");
+	}
+}
@@ -0,0 +1,44 @@
+package dev.zeann3th.stresspilot.service.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvReportWriterTests {
+
+	private final List<ReportColumn<Map<String, Object>>> columns = List.of(
+			ReportColumn.of("id", "Id", row -> row.get("id")),
+			ReportColumn.of("response", "Response", row -> row.get("response")));
+
+	@Test
+	void valuesAreQuotedOnlyWhenNeeded() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (CsvReportWriter<Map<String, Object>> writer = new CsvReportWriter<>(columns, output)) {
+			writer.writeHeaderLine();
+			writer.writeDataLine(Map.of("id", 1L, "response", "plain"));
+			writer.writeDataLine(Map.of("id", 2L, "response", "{\"a\":1,\"b\":\"x\"}"));
+			writer.writeDataLine(Map.of("id", 3L, "response", "line\r\nbreak é"));
+		}
+
+		assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("id,response\r\n"
+				+ "1,plain\r\n"
+				+ "2,\"{\"\"a\"\":1,\"\"b\"\":\"\"x\"\"}\"\r\n"
+				+ "3,\"line\r\nbreak é\"\r\n");
+	}
+
+	@Test
+	void nullValuesAreLeftEmpty() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (CsvReportWriter<Map<String, Object>> writer = new CsvReportWriter<>(columns, output)) {
+			writer.writeDataLine(Map.of("id", 4L));
+		}
+
+		assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("4,\r\n");
+	}
+}
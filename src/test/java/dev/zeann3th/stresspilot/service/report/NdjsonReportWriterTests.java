@@ -0,0 +1,48 @@
+package dev.zeann3th.stresspilot.service.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonReportWriterTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<ReportColumn<Map<String, Object>>> columns = List.of(
+			ReportColumn.of("id", "Id", row -> row.get("id")),
+			ReportColumn.of("status", "Status", row -> row.get("status")),
+			ReportColumn.of("success", "Success", row -> row.get("success")),
+			ReportColumn.of("response", "Response", row -> row.get("response")));
+
+	@Test
+	void eachRowIsOneTypedJsonObjectPerLine() throws IOException {
+		Map<String, Object> empty = new HashMap<>();
+		empty.put("id", 2L);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (NdjsonReportWriter<Map<String, Object>> writer = new NdjsonReportWriter<>(columns, output, objectMapper.getFactory())) {
+			writer.writeDataLine(Map.of("id", 1L, "status", 200, "success", true, "response", "{\"a\":\"line\nbreak\"}"));
+			writer.writeDataLine(empty);
+		}
+
+		String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(lines).hasSize(2);
+
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertThat(first.get("id").isIntegralNumber()).isTrue();
+		assertThat(first.get("status").asInt()).isEqualTo(200);
+		assertThat(first.get("success").asBoolean()).isTrue();
+		assertThat(first.get("response").asText()).isEqualTo("{\"a\":\"line\nbreak\"}");
+
+		JsonNode second = objectMapper.readTree(lines[1]);
+		assertThat(second.get("id").asLong()).isEqualTo(2L);
+		assertThat(second.get("response").isNull()).isTrue();
+	}
+}
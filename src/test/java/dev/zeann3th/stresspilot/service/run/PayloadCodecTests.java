@@ -0,0 +1,75 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadCodecTests {
+
+	private final PayloadCodec codec = new PayloadCodec();
+
+	@AfterEach
+	void close() {
+		codec.close();
+	}
+
+	@Test
+	void compressiblePayloadRoundTrips() {
+		String payload = "{\"data\":{\"items\":[" + "{\"id\":1,\"name\":\"item\",\"success\":true},".repeat(50) + "]}}";
+		byte[] raw = payload.getBytes(StandardCharsets.UTF_8);
+
+		byte[] encoded = codec.encode(raw);
+
+		assertThat(encoded).isNotNull();
+		assertThat(encoded.length).isLessThan(raw.length);
+		assertThat(encoded[0]).isEqualTo(PayloadCodec.MARKER);
+		assertThat(encoded[1]).isEqualTo(PayloadCodec.FORMAT_DEFLATE_V1);
+		assertThat(codec.decode(encoded)).isEqualTo(payload);
+	}
+
+	@Test
+	void payloadsThatDoNotShrinkStayPlain() {
+		assertThat(codec.encode(null)).isNull();
+		assertThat(codec.encode("{\"ok\":true}".getBytes(StandardCharsets.UTF_8))).isNull();
+
+		byte[] random = new byte[4096];
+		new Random(1).nextBytes(random);
+		assertThat(codec.encode(random)).isNull();
+	}
+
+	@Test
+	void plainRowsWrittenBeforeCompressionDecodeUnchanged() {
+		String legacy = "{\"message\":\"héllo\"}";
+
+		assertThat(codec.decode(legacy.getBytes(StandardCharsets.UTF_8))).isEqualTo(legacy);
+		assertThat(codec.decode(null)).isNull();
+	}
+
+	@Test
+	void codecIsReusableAcrossPayloads() {
+		String first = "a".repeat(10_000);
+		String second = "{\"status\":\"error\",\"message\":\"" + "b".repeat(500) + "\"}";
+
+		byte[] firstEncoded = codec.encode(first.getBytes(StandardCharsets.UTF_8));
+		byte[] secondEncoded = codec.encode(second.getBytes(StandardCharsets.UTF_8));
+
+		assertThat(codec.decode(secondEncoded)).isEqualTo(second);
+		assertThat(codec.decode(firstEncoded)).isEqualTo(first);
+	}
+
+	@Test
+	void unknownFormatAndTruncatedPayloadsAreRejected() {
+		byte[] encoded = codec.encode("x".repeat(1000).getBytes(StandardCharsets.UTF_8));
+
+		byte[] unknown = encoded.clone();
+		unknown[1] = 9;
+		assertThatThrownBy(() -> codec.decode(unknown)).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> codec.decode(Arrays.copyOf(encoded, 3))).isInstanceOf(IllegalStateException.class);
+	}
+}
@@ -0,0 +1,161 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.common.Constants;
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import dev.zeann3th.stresspilot.config.DatabaseProperties;
+import dev.zeann3th.stresspilot.dto.run.RunSampleQueryDTO;
+import dev.zeann3th.stresspilot.entity.RequestLogEntity;
+import dev.zeann3th.stresspilot.repository.RunShardRepository;
+import dev.zeann3th.stresspilot.service.ConfigService;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalStore;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalWriter;
+import dev.zeann3th.stresspilot.service.run.shard.RunShard;
+import dev.zeann3th.stresspilot.service.run.shard.RunShardStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Journals and shards are written under a temporary PILOT_HOME
+class RequestLogReaderTests {
+
+	private static final Long JOURNALED_RUN = 1L;
+	private static final Long LEGACY_RUN = 2L;
+	private static final String INSERT_SQL = "insert into request_logs (id, endpoint_id, status_code, response_time, "
+			+ "request, response, created_at) values (?, ?, ?, ?, ?, ?, ?)";
+
+	private final RunShardStore runShardStore = new RunShardStore(mock(RunShardRepository.class), new DatabaseProperties());
+	private final RunJournalStore runJournalStore = new RunJournalStore(mock(ConfigService.class));
+	private final RequestLogReader reader = new RequestLogReader(runShardStore, runJournalStore);
+
+	@TempDir
+	Path pilotHome;
+
+	private String previousPilotHome;
+
+	@BeforeEach
+	void setUp() {
+		previousPilotHome = System.setProperty(Constants.PILOT_HOME, pilotHome.toString());
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (previousPilotHome != null) System.setProperty(Constants.PILOT_HOME, previousPilotHome);
+		else System.clearProperty(Constants.PILOT_HOME);
+	}
+
+	@Test
+	void journaledSamplesArePagedByTheirId() throws IOException {
+		journal(10);
+
+		List<Long> ids = new ArrayList<>();
+		Long after = null;
+		List<RequestLogEntity> page;
+		do {
+			page = reader.findSamples(JOURNALED_RUN, RunSampleQueryDTO.builder().after(after).build(), 4);
+			page.forEach(sample -> ids.add(sample.getId()));
+			if (!page.isEmpty()) after = page.getLast().getId();
+		} while (page.size() == 4);
+
+		assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+	}
+
+	@Test
+	void journaledFiltersApplyAcrossPages() throws IOException {
+		journal(10);
+		// Endpoint 2 is every odd index, status 500 every third one: ids 4 and 10
+		RunSampleQueryDTO query = RunSampleQueryDTO.builder().endpointId(2L).minStatus(500).build();
+
+		List<RequestLogEntity> first = reader.findSamples(JOURNALED_RUN, query, 1);
+		query.setAfter(first.getLast().getId());
+		List<RequestLogEntity> second = reader.findSamples(JOURNALED_RUN, query, 1);
+		query.setAfter(second.getLast().getId());
+
+		assertThat(first).extracting(RequestLogEntity::getId).containsExactly(4L);
+		assertThat(second).extracting(RequestLogEntity::getId).containsExactly(10L);
+		assertThat(reader.findSamples(JOURNALED_RUN, query, 1)).isEmpty();
+	}
+
+	@Test
+	void journaledTimeWindowIncludesFromAndExcludesTo() throws IOException {
+		journal(10);
+		RunSampleQueryDTO query = RunSampleQueryDTO.builder().from(1_003L).to(1_006L).minResponseTime(4L).build();
+
+		assertThat(reader.findSamples(JOURNALED_RUN, query, 100))
+				.extracting(RequestLogEntity::getId).containsExactly(5L, 6L);
+	}
+
+	@Test
+	void journaledTimeWindowKeepsRecordsWrittenOutOfOrder() throws IOException {
+		// Requests complete in a different order than they read the clock
+		long[] timestamps = {1_000, 5_000, 4_990, 5_010, 9_000, 8_500};
+		try (RunJournalWriter writer = runJournalStore.create(JOURNALED_RUN)) {
+			for (long timestamp : timestamps) {
+				writer.append(timestamp, 1, 0, 200, 0, 0, 10, SampleError.NONE, null);
+			}
+		}
+		RunSampleQueryDTO query = RunSampleQueryDTO.builder().from(4_995L).to(8_600L).endpointId(1L).build();
+
+		assertThat(reader.findSamples(JOURNALED_RUN, query, 100))
+				.extracting(RequestLogEntity::getId).containsExactly(2L, 4L, 6L);
+	}
+
+	@Test
+	void payloadsOfCapturedSamplesAreAttachedFromTheShard() throws IOException {
+		journal(3);
+		try (RunShard shard = runShardStore.openForWrite(JOURNALED_RUN)) {
+			shard.getJdbcTemplate().update(INSERT_SQL, 2L, 2L, 200, 1L, "request-2", "response-2", new Timestamp(1_001L));
+		}
+
+		List<RequestLogEntity> samples = new ArrayList<>();
+		reader.forEach(JOURNALED_RUN, true, samples::add);
+
+		assertThat(samples).extracting(RequestLogEntity::getId).containsExactly(1L, 2L, 3L);
+		assertThat(samples).extracting(RequestLogEntity::getResponse).containsExactly(null, "response-2", null);
+		assertThat(reader.findSamples(JOURNALED_RUN, RunSampleQueryDTO.builder().after(1L).payloads(true).build(), 1))
+				.singleElement().satisfies(sample -> assertThat(sample.getRequest()).isEqualTo("request-2"));
+	}
+
+	@Test
+	void legacyShardIsPagedByItsId() throws IOException {
+		try (RunShard shard = runShardStore.openForWrite(LEGACY_RUN)) {
+			for (long id = 1; id <= 5; id++) {
+				shard.getJdbcTemplate().update(INSERT_SQL, id * 10, 1L, id == 3 ? 500 : 200, id, null, null,
+						new Timestamp(1_000L + id));
+			}
+		}
+
+		RunSampleQueryDTO query = RunSampleQueryDTO.builder().after(20L).build();
+		assertThat(findLegacy(query, 2)).extracting(RequestLogEntity::getId).containsExactly(30L, 40L);
+		query.setAfter(40L);
+		assertThat(findLegacy(query, 2)).extracting(RequestLogEntity::getId).containsExactly(50L);
+		assertThat(findLegacy(RunSampleQueryDTO.builder().minStatus(500).build(), 2))
+				.extracting(RequestLogEntity::getId).containsExactly(30L);
+		assertThat(findLegacy(RunSampleQueryDTO.builder().from(1_002L).to(1_004L).build(), 10))
+				.extracting(RequestLogEntity::getId).containsExactly(20L, 30L);
+	}
+
+	private List<RequestLogEntity> findLegacy(RunSampleQueryDTO query, int limit) throws IOException {
+		return reader.findSamples(LEGACY_RUN, query, limit);
+	}
+
+	// Sample i is written at 1000 + i ms, takes i ms, alternates endpoints 1 and 2 and fails every third time
+	private void journal(int samples) throws IOException {
+		try (RunJournalWriter writer = runJournalStore.create(JOURNALED_RUN)) {
+			for (int i = 0; i < samples; i++) {
+				writer.append(1_000 + i, i % 2 == 0 ? 1 : 2, 0, i % 3 == 0 ? 500 : 200,
+						TimeUnit.MILLISECONDS.toNanos(i), TimeUnit.MILLISECONDS.toNanos(i), 10, SampleError.NONE, null);
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.common.enums.CaptureMode;
+import dev.zeann3th.stresspilot.common.enums.FlowStepType;
+import dev.zeann3th.stresspilot.dto.endpoint.ExecuteEndpointResponseDTO;
+import dev.zeann3th.stresspilot.dto.flow.CapturePolicyDTO;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import dev.zeann3th.stresspilot.exception.CommandException;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledStep;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseCaptureTests {
+
+	// Steps 1 and 2 call the same endpoint, step 3 another one
+	private final FlowPlan plan = new FlowPlan(1L, new CompiledStep[]{
+			CompiledStep.builder().index(0).id("start").type(FlowStepType.START).nextIfTrue(1).build(),
+			endpointStep(1, "a", 10L),
+			endpointStep(2, "b", 10L),
+			endpointStep(3, "c", 20L)
+	}, 0);
+
+	@Test
+	void capturesEverythingWithoutPolicy() {
+		ResponseCapture capture = ResponseCapture.compile(plan, null, null);
+
+		assertThat(capture.shouldCapture(1, false)).isTrue();
+		assertThat(capture.shouldCapture(3, true)).isTrue();
+	}
+
+	@Test
+	void errorsOnlyCapturesFailedSamples() {
+		ResponseCapture capture = ResponseCapture.compile(plan, policy(CaptureMode.ERRORS_ONLY, null), null);
+
+		assertThat(capture.shouldCapture(1, false)).isFalse();
+		assertThat(capture.shouldCapture(1, true)).isTrue();
+	}
+
+	@Test
+	void firstNIsCountedPerEndpoint() {
+		ResponseCapture capture = ResponseCapture.compile(plan, policy(CaptureMode.FIRST_N, 2), null);
+
+		assertThat(capture.shouldCapture(1, false)).isTrue();
+		assertThat(capture.shouldCapture(2, false)).isTrue();
+		assertThat(capture.shouldCapture(1, false)).isFalse();
+		assertThat(capture.shouldCapture(3, false)).isTrue();
+	}
+
+	@Test
+	void oneInNCapturesEveryNthSample() {
+		ResponseCapture capture = ResponseCapture.compile(plan, policy(CaptureMode.ONE_IN_N, 3), null);
+
+		int captured = 0;
+		for (int i = 0; i < 9; i++) {
+			if (capture.shouldCapture(3, false)) captured++;
+		}
+		assertThat(captured).isEqualTo(3);
+	}
+
+	@Test
+	void stepPolicyOverridesRunPolicy() {
+		ResponseCapture capture = ResponseCapture.compile(plan, policy(CaptureMode.NONE, null),
+				Map.of("c", policy(CaptureMode.ALL, null)));
+
+		assertThat(capture.shouldCapture(1, true)).isFalse();
+		assertThat(capture.shouldCapture(3, false)).isTrue();
+	}
+
+	@Test
+	void bodiesAreCutToMaxBytes() {
+		CapturePolicyDTO policy = CapturePolicyDTO.builder().maxBytes(4).build();
+		ResponseCapture capture = ResponseCapture.compile(plan, policy, null);
+		ExecuteEndpointResponseDTO result = ExecuteEndpointResponseDTO.builder()
+				.rawBody("abcdefgh".getBytes(StandardCharsets.UTF_8))
+				.build();
+
+		assertThat(new String(capture.captureBody(1, result), StandardCharsets.UTF_8)).isEqualTo("abcd");
+		assertThat(capture.captureRequest(1)).hasSize(4);
+	}
+
+	@Test
+	void requestsAreCutByBytes() {
+		EndpointEntity endpoint = EndpointEntity.builder().id(10L).name("ééééé").build();
+		FlowPlan single = new FlowPlan(1L, new CompiledStep[]{
+				CompiledStep.builder().index(0).id("a").type(FlowStepType.ENDPOINT).nextIfTrue(CompiledStep.END).endpoint(endpoint).build()
+		}, 0);
+		byte[] request = endpoint.toString().getBytes(StandardCharsets.UTF_8);
+		int maxBytes = endpoint.toString().indexOf('é') + 3;
+
+		ResponseCapture whole = ResponseCapture.compile(single, null, null);
+		ResponseCapture cut = ResponseCapture.compile(single, CapturePolicyDTO.builder().maxBytes(maxBytes).build(), null);
+
+		assertThat(whole.captureRequest(0)).isEqualTo(request);
+		assertThat(cut.captureRequest(0)).isEqualTo(Arrays.copyOf(request, maxBytes));
+	}
+
+	@Test
+	void countingModesNeedPositiveN() {
+		assertThatThrownBy(() -> ResponseCapture.compile(plan, policy(CaptureMode.FIRST_N, 0), null))
+				.isInstanceOf(CommandException.class);
+		assertThatThrownBy(() -> ResponseCapture.compile(plan, null, Map.of("a", policy(CaptureMode.ONE_IN_N, null))))
+				.isInstanceOf(CommandException.class);
+	}
+
+	@Test
+	void policyForUnknownStepIsRejected() {
+		assertThatThrownBy(() -> ResponseCapture.compile(plan, null, Map.of("start", policy(CaptureMode.NONE, null))))
+				.isInstanceOf(CommandException.class);
+		assertThatThrownBy(() -> ResponseCapture.compile(plan, null, Map.of("missing", policy(CaptureMode.NONE, null))))
+				.isInstanceOf(CommandException.class);
+	}
+
+	private static CompiledStep endpointStep(int index, String id, Long endpointId) {
+		return CompiledStep.builder()
+				.index(index)
+				.id(id)
+				.type(FlowStepType.ENDPOINT)
+				.nextIfTrue(index + 1 < 4 ? index + 1 : CompiledStep.END)
+				.endpoint(EndpointEntity.builder().id(endpointId).build())
+				.build();
+	}
+
+	private static CapturePolicyDTO policy(CaptureMode mode, Integer n) {
+		return CapturePolicyDTO.builder().mode(mode).n(n).build();
+	}
+}
@@ -0,0 +1,104 @@
+package dev.zeann3th.stresspilot.service.run;
+
+import dev.zeann3th.stresspilot.common.enums.ConfigKey;
+import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.entity.RunShardEntity;
+import dev.zeann3th.stresspilot.repository.RunRepository;
+import dev.zeann3th.stresspilot.service.ConfigService;
+import dev.zeann3th.stresspilot.service.run.journal.RunJournalStore;
+import dev.zeann3th.stresspilot.service.run.metrics.RunMetricsRegistry;
+import dev.zeann3th.stresspilot.service.run.shard.RunShardStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RunCompactorTests {
+
+	private final RunRepository runRepository = mock(RunRepository.class);
+	private final RunShardStore runShardStore = mock(RunShardStore.class);
+	private final RunJournalStore runJournalStore = mock(RunJournalStore.class);
+	private final RunArchive runArchive = mock(RunArchive.class);
+	private final RunMetricsRegistry runMetricsRegistry = mock(RunMetricsRegistry.class);
+	private final RequestLogWriter requestLogWriter = mock(RequestLogWriter.class);
+	private final ConfigService configService = mock(ConfigService.class);
+	private final RunCompactor compactor = new RunCompactor(runRepository, runShardStore, runJournalStore, runArchive,
+			runMetricsRegistry, requestLogWriter, configService, mock(JdbcTemplate.class));
+
+	@BeforeEach
+	void setUp() {
+		when(configService.getValue(any())).thenReturn(Optional.empty());
+		when(runMetricsRegistry.getLive(anyLong())).thenReturn(Optional.empty());
+	}
+
+	@Test
+	void runsAreAgedByTheirOwnEndTime() throws Exception {
+		when(configService.getValue(ConfigKey.RETENTION_RAW_DAYS.name())).thenReturn(Optional.of("7"));
+		// The shard of the old run was re-created by an import today
+		when(runShardStore.catalog()).thenReturn(List.of(shard(2L), shard(1L)));
+		when(runRepository.findAllByOrderByIdDesc()).thenReturn(List.of(
+				run(2L, LocalDateTime.now().minusDays(1)),
+				run(1L, LocalDateTime.now().minusDays(30))));
+
+		compactor.compact();
+
+		verify(runArchive).write(1L);
+		verify(runJournalStore).delete(1L);
+		verify(runShardStore).delete(1L);
+		verify(runArchive, never()).write(2L);
+		verify(runShardStore, never()).delete(2L);
+	}
+
+	@Test
+	void runsWithOnlyAJournalAreCompacted() throws Exception {
+		when(configService.getValue(ConfigKey.RETENTION_RAW_RUNS.name())).thenReturn(Optional.of("1"));
+		when(runShardStore.catalog()).thenReturn(List.of());
+		when(runRepository.findAllByOrderByIdDesc()).thenReturn(List.of(
+				run(2L, LocalDateTime.now()),
+				run(1L, LocalDateTime.now())));
+
+		compactor.compact();
+
+		verify(runArchive).write(1L);
+		verify(runJournalStore).delete(1L);
+		verify(runShardStore, never()).delete(anyLong());
+	}
+
+	@Test
+	void liveRunsAreLeftAlone() throws Exception {
+		when(configService.getValue(ConfigKey.RETENTION_RAW_RUNS.name())).thenReturn(Optional.of("1"));
+		when(runShardStore.catalog()).thenReturn(List.of());
+		when(runRepository.findAllByOrderByIdDesc()).thenReturn(List.of(
+				run(2L, LocalDateTime.now()),
+				run(1L, LocalDateTime.now())));
+		when(requestLogWriter.isWriting(1L)).thenReturn(true);
+
+		compactor.compact();
+
+		verify(runArchive, never()).write(anyLong());
+	}
+
+	private RunEntity run(Long id, LocalDateTime endedAt) {
+		RunEntity run = RunEntity.builder().id(id).build();
+		run.setCreatedAt(endedAt.minusMinutes(5));
+		run.setUpdatedAt(endedAt);
+		return run;
+	}
+
+	private RunShardEntity shard(Long runId) {
+		RunShardEntity shard = RunShardEntity.builder()
+				.runId(runId)
+				.sizeBytes(1024L)
+				.sealedAt(LocalDateTime.now())
+				.build();
+		shard.setCreatedAt(LocalDateTime.now());
+		return shard;
+	}
+}
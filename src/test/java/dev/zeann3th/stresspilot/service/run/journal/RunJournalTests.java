@@ -0,0 +1,160 @@
+package dev.zeann3th.stresspilot.service.run.journal;
+
+import dev.zeann3th.stresspilot.common.enums.SampleError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunJournalTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsAndBodiesRoundTrip() throws IOException {
+		try (RunJournalWriter writer = new RunJournalWriter(directory, true)) {
+			writer.append(1_000, 7, 2, 503, 5_000_000, 4_000_000, 64, SampleError.HTTP_STATUS,
+					"unavailable".getBytes(StandardCharsets.UTF_8));
+			writer.append(1_001, 8, 3, 0, 6_000_000, 0, 0, SampleError.NO_RESPONSE, null);
+		}
+
+		try (RunJournalReader reader = new RunJournalReader(directory)) {
+			List<String> records = new ArrayList<>();
+			List<byte[]> bodies = new ArrayList<>();
+			reader.forEach(record -> {
+				records.add(record.getSampleId() + ":" + record.getTimestampMs() + ":" + record.getEndpointId() + ":"
+						+ record.getStepIndex() + ":" + record.getStatusCode() + ":" + record.getLatencyNanos() + ":"
+						+ record.getServiceTimeNanos() + ":" + record.getBytes() + ":" + record.getError());
+				bodies.add(record.hasBody() ? readBody(reader, record.getBodyOffset()) : null);
+			});
+
+			assertThat(reader.getCount()).isEqualTo(2);
+			assertThat(records).containsExactly(
+					"1:1000:7:2:503:5000000:4000000:64:HTTP_STATUS",
+					"2:1001:8:3:0:6000000:0:0:NO_RESPONSE");
+			assertThat(new String(bodies.get(0), StandardCharsets.UTF_8)).isEqualTo("unavailable");
+			assertThat(bodies.get(1)).isNull();
+		}
+	}
+
+	@Test
+	void readingResumesFromAnIndexAcrossSegments() throws IOException {
+		int total = JournalLayout.SEGMENT_RECORDS + 10;
+		try (RunJournalWriter writer = new RunJournalWriter(directory, false)) {
+			for (int i = 0; i < total; i++) {
+				writer.append(1_000 + i, 1, 0, 200, 1, 1, 0, SampleError.NONE, null);
+			}
+		}
+
+		try (RunJournalReader reader = new RunJournalReader(directory)) {
+			List<Long> indexes = new ArrayList<>();
+			reader.forEach(JournalLayout.SEGMENT_RECORDS - 2, record -> {
+				indexes.add(record.getIndex());
+				return indexes.size() < 4;
+			});
+
+			long boundary = JournalLayout.SEGMENT_RECORDS;
+			assertThat(indexes).containsExactly(boundary - 2, boundary - 1, boundary, boundary + 1);
+		}
+	}
+
+	@Test
+	void endpointRecordsAreReadThroughTheIndexOnceClosed() throws IOException {
+		RunJournalWriter writer = new RunJournalWriter(directory, false);
+		for (int i = 0; i < 10; i++) {
+			writer.append(1000 + i, i % 2 == 0 ? 1 : 2, 0, 200, 1_000_000, 900_000, 10, SampleError.NONE, null);
+		}
+
+		// A journal still being written is scanned and gets no index
+		assertThat(endpointRecords(2, 3)).containsExactly(3L, 5L, 7L, 9L);
+		assertThat(directory.resolve(JournalLayout.ENDPOINTS_FILE)).doesNotExist();
+
+		writer.close();
+		assertThat(endpointRecords(2, 3)).containsExactly(3L, 5L, 7L, 9L);
+		assertThat(endpointRecords(1, 0)).containsExactly(0L, 2L, 4L, 6L, 8L);
+		assertThat(endpointRecords(3, 0)).isEmpty();
+		assertThat(directory.resolve(JournalLayout.ENDPOINTS_FILE)).exists();
+	}
+
+	@Test
+	void timeIsFoundByBinarySearch() throws IOException {
+		try (RunJournalWriter writer = new RunJournalWriter(directory, false)) {
+			for (int i = 0; i < 10; i++) {
+				writer.append(1000 + i, 1, 0, 200, 1_000_000, 900_000, 10, SampleError.NONE, null);
+			}
+		}
+
+		try (RunJournalReader reader = new RunJournalReader(directory)) {
+			assertThat(reader.firstIndexFrom(0)).isZero();
+			assertThat(reader.firstIndexFrom(1003)).isEqualTo(3);
+			assertThat(reader.firstIndexFrom(5000)).isEqualTo(10);
+		}
+	}
+
+	@Test
+	void closedJournalIsCutToItsRecords() throws IOException {
+		try (RunJournalWriter writer = new RunJournalWriter(directory, false)) {
+			for (int i = 0; i < 10; i++) {
+				writer.append(1000 + i, 1, 0, 200, 1_000_000, 900_000, 10, SampleError.NONE, null);
+			}
+		}
+
+		assertThat(Files.size(directory.resolve(JournalLayout.SAMPLES_FILE)))
+				.isEqualTo(JournalLayout.HEADER_SIZE + 10L * JournalLayout.RECORD_SIZE);
+	}
+
+	@Test
+	void journalBeingReadKeepsItsTail() throws IOException {
+		JournalReaders readers = new JournalReaders();
+		RunJournalWriter writer = new RunJournalWriter(directory, false, readers, () -> {});
+		for (int i = 0; i < 10; i++) {
+			writer.append(1000 + i, 1, 0, 200, 1_000_000, 900_000, 10, SampleError.NONE, null);
+		}
+
+		try (RunJournalReader live = new RunJournalReader(directory, readers)) {
+			writer.close();
+
+			// The live reader still has the whole segment mapped, a later one stops at the count in the header
+			assertThat(Files.size(directory.resolve(JournalLayout.SAMPLES_FILE)))
+					.isEqualTo(JournalLayout.HEADER_SIZE + JournalLayout.SEGMENT_SIZE);
+			live.forEach(record -> {});
+		}
+		try (RunJournalReader reader = new RunJournalReader(directory, readers)) {
+			assertThat(reader.getCount()).isEqualTo(10);
+		}
+	}
+
+	@Test
+	void appendsAfterCloseAreRejected() throws IOException {
+		RunJournalWriter writer = new RunJournalWriter(directory, false);
+		assertThat(writer.append(1, 1, 0, 200, 1, 1, 0, SampleError.NONE, null)).isZero();
+		writer.close();
+
+		assertThat(writer.append(2, 1, 0, 200, 1, 1, 0, SampleError.NONE, null)).isEqualTo(-1);
+	}
+
+	private List<Long> endpointRecords(long endpointId, long fromIndex) throws IOException {
+		List<Long> indexes = new ArrayList<>();
+		try (RunJournalReader reader = new RunJournalReader(directory)) {
+			reader.forEach(endpointId, fromIndex, record -> indexes.add(record.getIndex()));
+		}
+		return indexes;
+	}
+
+	private static byte[] readBody(RunJournalReader reader, long offset) {
+		try {
+			return reader.readBody(offset);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
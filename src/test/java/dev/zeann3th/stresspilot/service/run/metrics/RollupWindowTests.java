@@ -0,0 +1,77 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import dev.zeann3th.stresspilot.common.enums.RollupResolution;
+import dev.zeann3th.stresspilot.entity.RunRollupEntity;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupWindowTests {
+
+	private final List<RunRollupEntity> finished = new ArrayList<>();
+
+	@Test
+	void intervalsOfOneBucketAreMerged() {
+		RollupWindow window = new RollupWindow(RollupResolution.TEN_SECONDS);
+
+		window.add(1L, 2L, 10, 1000, 5, 1, 500, latency(100, 5), finished);
+		window.add(1L, 2L, 19, 1000, 3, 0, 900, latency(300, 3), finished);
+		assertThat(finished).isEmpty();
+		window.close(1L, 2L, finished);
+
+		assertThat(finished).singleElement().satisfies(rollup -> {
+			assertThat(rollup.getRunId()).isEqualTo(1L);
+			assertThat(rollup.getEndpointId()).isEqualTo(2L);
+			assertThat(rollup.getResolution()).isEqualTo(10);
+			assertThat(rollup.getElapsedSecond()).isEqualTo(10L);
+			assertThat(rollup.getDurationMs()).isEqualTo(2000L);
+			assertThat(rollup.getRequests()).isEqualTo(8L);
+			assertThat(rollup.getErrors()).isEqualTo(1L);
+			assertThat(rollup.getLatencySumUs()).isEqualTo(1400L);
+			assertThat(rollup.getLatencyMinUs()).isEqualTo(100L);
+			assertThat(rollup.getLatencyMaxUs()).isBetween(299L, 301L);
+			assertThat(rollup.getHistogram()).isNotEmpty();
+		});
+	}
+
+	@Test
+	void intervalOfALaterBucketHandsTheCurrentOneOut() {
+		RollupWindow window = new RollupWindow(RollupResolution.MINUTE);
+
+		window.add(1L, 2L, 59, 1000, 2, 0, 200, latency(100, 2), finished);
+		window.add(1L, 2L, 60, 1000, 4, 2, 800, latency(200, 4), finished);
+
+		assertThat(finished).singleElement().satisfies(rollup -> {
+			assertThat(rollup.getElapsedSecond()).isZero();
+			assertThat(rollup.getRequests()).isEqualTo(2L);
+			assertThat(rollup.getLatencyMaxUs()).isEqualTo(100L);
+		});
+
+		window.close(1L, 2L, finished);
+		assertThat(finished).hasSize(2);
+		assertThat(finished.get(1).getElapsedSecond()).isEqualTo(60L);
+		assertThat(finished.get(1).getRequests()).isEqualTo(4L);
+		assertThat(finished.get(1).getErrors()).isEqualTo(2L);
+	}
+
+	@Test
+	void idleBucketsAreNotStored() {
+		RollupWindow window = new RollupWindow(RollupResolution.SECOND);
+
+		window.add(1L, 2L, 0, 1000, 0, 0, 0, latency(0, 0), finished);
+		window.close(1L, 2L, finished);
+		window.close(1L, 2L, finished);
+
+		assertThat(finished).isEmpty();
+	}
+
+	private Histogram latency(long micros, int count) {
+		Histogram histogram = new Histogram(LatencyRecorder.HIGHEST_TRACKABLE_MICROS, LatencyRecorder.SIGNIFICANT_DIGITS);
+		if (count > 0) histogram.recordValueWithCount(micros, count);
+		return histogram;
+	}
+}
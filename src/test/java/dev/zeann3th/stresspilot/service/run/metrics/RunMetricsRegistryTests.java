@@ -0,0 +1,65 @@
+package dev.zeann3th.stresspilot.service.run.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.zeann3th.stresspilot.common.enums.FlowStepType;
+import dev.zeann3th.stresspilot.entity.EndpointEntity;
+import dev.zeann3th.stresspilot.entity.RunEntity;
+import dev.zeann3th.stresspilot.repository.RunLatencyHistogramRepository;
+import dev.zeann3th.stresspilot.repository.RunRollupRepository;
+import dev.zeann3th.stresspilot.repository.RunSummaryRepository;
+import dev.zeann3th.stresspilot.service.flow.plan.CompiledStep;
+import dev.zeann3th.stresspilot.service.flow.plan.FlowPlan;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RunMetricsRegistryTests {
+
+	private final RunLatencyHistogramRepository histogramRepository = mock(RunLatencyHistogramRepository.class);
+	private final RunSummaryRepository summaryRepository = mock(RunSummaryRepository.class);
+	private final RunRollupRepository rollupRepository = mock(RunRollupRepository.class);
+	private final RunMetricsStreamer streamer = mock(RunMetricsStreamer.class);
+	private final RunMetricsRegistry registry = new RunMetricsRegistry(histogramRepository, summaryRepository,
+			rollupRepository, streamer, new ObjectMapper().registerModule(new JavaTimeModule()));
+
+	private final FlowPlan plan = new FlowPlan(1L, new CompiledStep[]{
+			CompiledStep.builder().index(0).id("start").type(FlowStepType.START).nextIfTrue(1).build(),
+			CompiledStep.builder().index(1).id("a").type(FlowStepType.ENDPOINT).nextIfTrue(CompiledStep.END)
+					.endpoint(EndpointEntity.builder().id(10L).name("a").build()).build()
+	}, 1);
+
+	@Test
+	void completedRunIsNoLongerLive() {
+		registry.register(1L, plan);
+
+		registry.complete(run(1L));
+
+		assertThat(registry.getLive(1L)).isEmpty();
+		verify(streamer).complete(eq(1L), anyList());
+	}
+
+	@Test
+	void runIsReleasedEvenWhenPersistingFails() {
+		registry.register(1L, plan);
+		when(histogramRepository.saveAll(any())).thenThrow(new DataAccessResourceFailureException("disk full"));
+
+		assertThatThrownBy(() -> registry.complete(run(1L))).isInstanceOf(DataAccessResourceFailureException.class);
+
+		assertThat(registry.getLive(1L)).isEmpty();
+		verify(streamer).complete(eq(1L), anyList());
+	}
+
+	private RunEntity run(Long id) {
+		RunEntity run = RunEntity.builder().id(id).flowId(1L).threads(1).duration(1).rampUpDuration(0).build();
+		run.setCreatedAt(LocalDateTime.now());
+		return run;
+	}
+}